@@ -1,16 +1,232 @@
 package engine;
 
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import game.Game;
+import game.input.BotController;
+import game.net.CoopClient;
+import game.net.CoopServer;
+import game.net.LossyLink;
+import game.net.SharedStateExporter;
+import game.net.SpectatorClient;
+import game.net.SpectatorServer;
+import game.render.RenderBenchmark;
+import game.render.SoftwareRenderer;
+import game.replay.Replay;
+import game.replay.ReplayPlayer;
+import game.replay.ReplayVerifier;
+import game.server.GameSession;
+import game.server.SessionManager;
+import game.server.TickListener;
+import game.sim.BalanceSimulator;
+import game.sim.LevelTuner;
+import game.sim.SimContext;
+import game.sim.SoakRunner;
+import game.telemetry.Telemetry;
+import game.telemetry.TelemetryReport;
+import game.util.StdDraw;
 
 /**
  * Classe de lancement du projet
+ * <p>
+ * Sans argument, lance le jeu. Options :
+ * <ul>
+ * <li>{@code --replay fichier [n]} : rejoue un replay sans affichage
+ * {@code n} fois et affiche les résultats</li>
+ * <li>{@code --verify fichier} : vérifie qu'un replay est reproduit à
+ * l'identique et indique la première frame divergente</li>
+ * <li>{@code --rehash source destination} : enregistre les empreintes
+ * produites par le code actuel dans une copie du replay</li>
+ * <li>{@code --bot} : lance le jeu piloté automatiquement</li>
+ * <li>{@code --soak [n]} : fait jouer le pilote automatique sans affichage
+ * pendant {@code n} parties (sans fin par défaut)</li>
+ * <li>{@code --balance n [niveaux...]} : simule {@code n} fois chaque
+ * niveau avec le pilote automatique, en parallèle, et affiche les
+ * statistiques d'équilibrage</li>
+ * <li>{@code --tune niveau secondes [tauxMort] [générations] [n]} : règle
+ * les paramètres d'un niveau pour viser une durée de survie médiane et
+ * écrit le résultat dans {@code ressources/levels/tuned/}</li>
+ * <li>{@code --sessions n [paced]} : test de charge, {@code n} sessions
+ * simultanées jouées par le pilote automatique</li>
+ * <li>{@code --spectate port} : enchaîne des parties du pilote automatique
+ * et les diffuse aux spectateurs</li>
+ * <li>{@code --watch hôte port} : regarde une partie diffusée</li>
+ * <li>{@code --telemetry [répertoire]} : synthèse des fichiers de
+ * télémétrie</li>
+ * <li>{@code --export fichier} : enchaîne des parties du pilote automatique
+ * et exporte chaque frame dans un fichier projeté en mémoire</li>
+ * <li>{@code --coop-server port joueurs [perte latenceMs]} : héberge une
+ * partie en coopération, éventuellement à travers un réseau simulé</li>
+ * <li>{@code --coop-join hôte port [bot] [avance]} : rejoint une partie en
+ * coopération</li>
+ * <li>{@code --render-bench [n]} : dessine {@code n} frames d'une partie
+ * du pilote automatique avec chaque moteur de rendu et compare leur
+ * coût</li>
+ * </ul>
+ * Placées avant les autres, l'option {@code --active} affiche le jeu par
+ * rendu actif (échange de pages) plutôt que par l'image hors écran de
+ * {@link StdDraw}, et l'option {@code --software} le dessine avec le
+ * moteur de rendu logiciel parallèle.
+ * </p>
  * 
  * @author Jouet Erwann monôme 1
  */
 public class App {
     public static void main(String[] args) throws Exception {
+        boolean software = false;
+        while (args.length >= 1 && (args[0].equals("--active") || args[0].equals("--software"))) {
+            if (args[0].equals("--active")) {
+                StdDraw.setActiveRendering(true);
+            } else {
+                software = true;
+            }
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length >= 2 && args[0].equals("--replay")) {
+            int runs = args.length >= 3 ? Integer.parseInt(args[2]) : 1;
+            ReplayPlayer.benchmark(args[1], runs);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--verify")) {
+            System.exit(ReplayVerifier.verify(args[1]) ? 0 : 1);
+        }
+        if (args.length >= 3 && args[0].equals("--rehash")) {
+            ReplayVerifier.rehash(Replay.load(args[1])).save(args[2]);
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--render-bench")) {
+            RenderBenchmark.run(args.length >= 2 ? Integer.parseInt(args[1]) : 2000, 1);
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--soak")) {
+            SoakRunner.run(args.length >= 2 ? Integer.parseInt(args[1]) : 0, SoakRunner.DEFAULT_MAX_TICKS);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--balance")) {
+            List<String> levels = args.length >= 3
+                    ? Arrays.asList(args).subList(2, args.length)
+                    : List.of("level1.lvl", "level2.lvl", "level3.lvl");
+            BalanceSimulator.run(levels, Integer.parseInt(args[1]));
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--tune")) {
+            LevelTuner.run(args[1],
+                    Double.parseDouble(args[2]),
+                    args.length >= 4 ? Double.parseDouble(args[3]) : -1,
+                    args.length >= 5 ? Integer.parseInt(args[4]) : 20,
+                    args.length >= 6 ? Integer.parseInt(args[5]) : 64,
+                    "ressources/levels/tuned/" + args[1]);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--sessions")) {
+            boolean paced = args.length >= 3 && args[2].equals("paced");
+            SessionManager.loadTest(Integer.parseInt(args[1]), paced ? 2_000 : 20_000, paced);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--spectate")) {
+            spectate(Integer.parseInt(args[1]));
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--telemetry")) {
+            String directory = args.length >= 2 ? args[1] : Telemetry.DEFAULT_DIRECTORY;
+            TelemetryReport.read(directory).print(SimContext.DEFAULT_TICK_MILLIS);
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--export")) {
+            try (SharedStateExporter exporter = new SharedStateExporter(args[1], 64, 16 * 1024)) {
+                System.out.println("Export dans " + args[1]);
+                playBots(exporter);
+            }
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--watch")) {
+            SpectatorClient.watch(args[1], Integer.parseInt(args[2]));
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--coop-server")) {
+            double loss = args.length >= 4 ? Double.parseDouble(args[3]) : 0;
+            int latency = args.length >= 5 ? Integer.parseInt(args[4]) : 0;
+            hostCoop(Integer.parseInt(args[1]), Integer.parseInt(args[2]), loss, latency);
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--coop-join")) {
+            boolean bot = args.length >= 4 && args[3].equals("bot");
+            int lead = args.length >= 5 ? Integer.parseInt(args[4]) : 4;
+            CoopClient.play(args[1], Integer.parseInt(args[2]), bot, lead);
+            return;
+        }
+
         // Création d'un nouveau jeu et lancement de celui-ci
         Game g = new Game();
+        if (software) {
+            g.setRenderer(new SoftwareRenderer(700, 700, ForkJoinPool.commonPool(), true));
+        }
+        if (args.length >= 1 && args[0].equals("--bot")) {
+            g.setController(new BotController());
+        }
         g.launch();
     }
+
+    /**
+     * Héberge une partie en coopération et affiche régulièrement ses
+     * statistiques d'envoi.
+     *
+     * @param port    port d'écoute
+     * @param players nombre de joueurs attendus
+     * @param loss    probabilité de perte simulée d'un datagramme
+     * @param latency latence simulée d'un aller (en millisecondes)
+     * @throws Exception en cas d'erreur réseau
+     */
+    private static void hostCoop(int port, int players, double loss, int latency) throws Exception {
+        LossyLink link = new LossyLink(loss, latency, latency / 4, System.nanoTime());
+        try (CoopServer server = new CoopServer(new InetSocketAddress(port), players, System.nanoTime(), 1,
+                SimContext.DEFAULT_TICK_MILLIS * 1_000_000L, link)) {
+            server.start();
+            System.out.println("Partie en coopération sur le port " + server.getPort()
+                    + ", en attente de " + players + " joueur(s)");
+            while (true) {
+                Thread.sleep(5000);
+                if (server.isStarted()) {
+                    System.out.printf("frame %d, %d états (%d complets), %.0f octets/état, %d commandes en retard%n",
+                            server.getTick(), server.getSnapshots(), server.getFullSnapshots(),
+                            server.getSnapshotBytes() / (double) Math.max(1, server.getSnapshots()),
+                            server.getLateInputs());
+                }
+            }
+        }
+    }
+
+    /**
+     * Enchaîne des parties du pilote automatique, au rythme réel du jeu,
+     * diffusées par un serveur de spectateurs.
+     *
+     * @param port port d'écoute
+     * @throws Exception en cas d'erreur réseau
+     */
+    private static void spectate(int port) throws Exception {
+        try (SpectatorServer server = new SpectatorServer(new InetSocketAddress(port))) {
+            server.start();
+            System.out.println("Diffusion sur le port " + server.getPort());
+            playBots(server);
+        }
+    }
+
+    /**
+     * Enchaîne indéfiniment des parties du pilote automatique, au rythme
+     * réel du jeu, en prévenant un observateur à chaque frame.
+     *
+     * @param listener observateur des frames
+     * @throws Exception si l'attente d'une partie est interrompue
+     */
+    private static void playBots(TickListener listener) throws Exception {
+        SessionManager manager = new SessionManager(1, 30_000_000L, 100);
+        while (true) {
+            GameSession session = manager.open(System.nanoTime(), new BotController(), Long.MAX_VALUE, true);
+            session.addTickListener(listener);
+            session.await();
+        }
+    }
 }
\ No newline at end of file
@@ -1,10 +1,34 @@
 package game;
 
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import javax.swing.plaf.FontUIResource;
 
 import game.actors.Player;
+import game.input.KeyboardSampler;
+import game.input.PlayerController;
+import game.level.FormationLayer;
 import game.level.Level;
 import game.level.LevelBuilder;
+import game.level.LevelData;
+import game.level.LevelLoader;
+import game.render.BatchingRenderer;
+import game.render.HudLayer;
+import game.render.Renderer;
+import game.render.ResolutionController;
+import game.render.StdDrawRenderer;
+import game.replay.ReplayRecorder;
+import game.sim.SimContext;
+import game.state.RewindBuffer;
+import game.telemetry.Telemetry;
+import game.telemetry.TelemetryEvent;
+import game.util.Leaderboard;
+import game.util.LeaderboardEntry;
 import game.util.StdDraw;
 import game.util.ScoreManager;
 
@@ -14,12 +38,27 @@ import game.util.ScoreManager;
  * Gère la boucle principale, les niveaux, le joueur, les scores,
  * et les écrans d'affichage (titre, transitions, game over, victoire).
  * </p>
+ * <p>
+ * Une partie peut aussi être simulée sans affichage (voir {@link #headless()}) :
+ * elle est alors pilotée frame par frame par {@link #step(int)}.
+ * </p>
+ * <p>
+ * Une partie peut réunir plusieurs joueurs en coopération (voir
+ * {@link #startSession(long, int, int)}) : ils partagent le score et la
+ * partie continue tant que l'un d'eux est encore en jeu.
+ * </p>
  */
 public class Game {
 
-    /** Joueur actuel */
+    /** Joueur actuel (joueur principal en coopération) */
     private Player player;
 
+    /** Joueurs de la partie, le joueur principal en premier */
+    private final List<Player> players = new ArrayList<>();
+
+    /** Commandes d'une frame à un joueur (réutilisé par {@link #update(int)}) */
+    private final int[] singleFrame = new int[1];
+
     /** Niveau en cours */
     private Level currentLevel;
 
@@ -35,14 +74,140 @@ public class Game {
     /** Meilleur score enregistré */
     private int highScore = 0;
 
+    /** Classement des meilleures parties (jeu avec affichage), ou {@code null} */
+    private Leaderboard leaderboard;
+
+    /** Nombre de parties du classement affichées sur l'écran de fin */
+    private static final int LEADERBOARD_LINES = 5;
+
+    /** Durée d'une frame de la boucle principale (en millisecondes) */
+    private static final int FRAME_MILLIS = (int) SimContext.DEFAULT_TICK_MILLIS;
+
+    /** Fichier où est enregistrée la dernière partie jouée */
+    private static final String LAST_REPLAY_FILE = "ressources/replays/last.rpl";
+
+    /** Source des commandes du joueur de la boucle principale (clavier par défaut) */
+    private PlayerController controller;
+
+    /** Enregistreur des commandes de la partie en cours (jeu avec affichage) */
+    private ReplayRecorder recorder;
+
+    /** Touche de retour en arrière (R) */
+    private static final int KEY_REWIND = 82;
+
+    /** Durée de l'historique de retour en arrière (en frames, environ 5 s) */
+    private static final int REWIND_HISTORY_TICKS = 5000 / FRAME_MILLIS;
+
+    /** Recul appliqué à chaque appui sur la touche de retour en arrière (environ 2 s) */
+    private static final int REWIND_STEP_TICKS = 2000 / FRAME_MILLIS;
+
+    /** Taille de la fenêtre de jeu (en pixels) */
+    private static final int CANVAS_SIZE = 700;
+
+    /** Budget de calcul et de dessin d'une frame (en nanosecondes) */
+    private static final long FRAME_BUDGET_NANOS = FRAME_MILLIS * 1_000_000L / 2;
+
+    /** Résolution de rendu adaptée à la durée des frames (jeu avec affichage) */
+    private ResolutionController resolution;
+
+    /** Historique des dernières secondes de jeu (jeu avec affichage) */
+    private RewindBuffer rewind;
+
+    /** État de la touche de retour en arrière à la frame précédente */
+    private boolean rewindKeyDown = false;
+
+    /** Télémétrie des parties, ou {@code null} */
+    private Telemetry telemetry;
+
+    /** Session de télémétrie de la partie en cours */
+    private int telemetrySession;
+
+    /** Contexte de simulation (horloge et aléatoire) de la partie en cours */
+    private SimContext context;
+
+    /** Indique si le jeu tourne sans affichage */
+    private final boolean headless;
+
+    /** Score, vies et niveaux affichés, créé au premier dessin */
+    private HudLayer hud;
+
+    /** Ennemis au repos dans la formation, créé au premier dessin */
+    private FormationLayer formationLayer;
+
+    /** Moteur de rendu de la boucle principale */
+    private Renderer renderer = new BatchingRenderer(new StdDrawRenderer());
+
     /**
      * Initialise le jeu.
      * <p>
      * Charge le meilleur score et prépare les données initiales.
+     * Le clavier, l'enregistreur de replay et l'historique de retour en
+     * arrière ne sont créés que pour le jeu avec affichage : une partie sans
+     * affichage ne dépend d'aucun état global.
      * </p>
      */
     public Game() {
+        this(false);
         this.highScore = ScoreManager.loadHighScore();
+        this.controller = new KeyboardSampler();
+        this.recorder = new ReplayRecorder();
+        this.rewind = new RewindBuffer(REWIND_HISTORY_TICKS, 4, 8, 32 * 1024);
+        this.resolution = new ResolutionController(FRAME_BUDGET_NANOS);
+        this.telemetry = Telemetry.open();
+        try {
+            this.leaderboard = Leaderboard.open();
+        } catch (IOException e) {
+            System.err.println("Classement indisponible : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Construit un jeu avec ou sans affichage.
+     *
+     * @param headless {@code true} pour ne jamais utiliser StdDraw
+     */
+    private Game(boolean headless) {
+        this.headless = headless;
+    }
+
+    /**
+     * Crée un jeu sans affichage, destiné aux simulations et aux replays.
+     * <p>
+     * La partie doit être démarrée par {@link #startSession(long, int)}.
+     * </p>
+     *
+     * @return jeu sans affichage
+     */
+    public static Game headless() {
+        return new Game(true);
+    }
+
+    /**
+     * Change la source des commandes du joueur de la boucle principale.
+     *
+     * @param controller clavier, pilote automatique...
+     */
+    public void setController(PlayerController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Change le moteur de rendu de la boucle principale.
+     *
+     * @param renderer fenêtre StdDraw, image en mémoire, aucun affichage...
+     */
+    public void setRenderer(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Active la télémétrie des parties suivantes (chacune reçoit sa propre
+     * session).
+     *
+     * @param telemetry télémétrie, ou {@code null} pour aucune
+     */
+    public void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry;
     }
 
     /**
@@ -58,19 +223,190 @@ public class Game {
             case 3 -> currentLevel = levelBuilder.buildLevel3(player);
             default -> currentLevel = null;
         }
+        if (currentLevel != null) {
+            for (int i = 1; i < players.size(); i++) {
+                currentLevel.addPlayer(players.get(i));
+            }
+            currentLevel.setTelemetry(telemetry, telemetrySession);
+        }
+    }
+
+    /**
+     * Émet un événement de niveau si la télémétrie est active.
+     */
+    private void emitLevel(int type) {
+        if (telemetry != null && currentLevel != null) {
+            telemetry.emit(telemetrySession, context.getTick(), type, 0, currentLevelNumber);
+        }
+    }
+
+    /**
+     * Démarre une nouvelle partie à partir d'un niveau donné.
+     * <p>
+     * Crée un contexte de simulation neuf, de sorte que la partie ne dépend
+     * que de la graine et des commandes reçues.
+     * </p>
+     *
+     * @param seed        graine du générateur aléatoire
+     * @param levelNumber numéro du premier niveau
+     */
+    public void startSession(long seed, int levelNumber) {
+        startSession(seed, levelNumber, 1);
+    }
+
+    /**
+     * Démarre une nouvelle partie en coopération.
+     * <p>
+     * Les joueurs sont répartis régulièrement sur la largeur de l'écran ;
+     * seul, le joueur démarre au centre.
+     * </p>
+     *
+     * @param seed        graine du générateur aléatoire
+     * @param levelNumber numéro du premier niveau
+     * @param playerCount nombre de joueurs (au moins 1)
+     */
+    public void startSession(long seed, int levelNumber, int playerCount) {
+        if (playerCount < 1)
+            throw new IllegalArgumentException("Nombre de joueurs invalide : " + playerCount);
+        context = new SimContext(seed, FRAME_MILLIS);
+        SimContext.bind(context);
+        createPlayers(playerCount);
+        currentLevelNumber = levelNumber;
+        levelsCompleted = 0;
+        score = 0;
+        if (telemetry != null) {
+            telemetrySession = telemetry.newSession();
+        }
+        initLevel(currentLevelNumber);
+        emitLevel(TelemetryEvent.LEVEL_START);
+    }
+
+    /**
+     * Démarre une partie limitée à un seul niveau, construit à partir de
+     * son contenu plutôt que de son numéro (simulations d'équilibrage).
+     * <p>
+     * Le niveau porte le numéro 0 : une fois terminé, la partie enchaîne
+     * sur le niveau 1. Une telle partie ne peut pas être sauvegardée par
+     * {@link game.state.SnapshotCodec}, qui recharge les niveaux par numéro.
+     * </p>
+     *
+     * @param seed  graine du générateur aléatoire
+     * @param level contenu du niveau
+     */
+    public void startSession(long seed, LevelData level) {
+        startSession(seed, 0);
+        currentLevel = LevelLoader.buildLevel(level, player);
+        currentLevel.setTelemetry(telemetry, telemetrySession);
+        emitLevel(TelemetryEvent.LEVEL_START);
+    }
+
+    /**
+     * Crée les joueurs d'une nouvelle partie.
+     */
+    private void createPlayers(int count) {
+        players.clear();
+        for (int i = 0; i < count; i++) {
+            players.add(new Player((i + 1) / (double) (count + 1), 0.1, 0.05, 1, 25));
+        }
+        player = players.get(0);
     }
 
     /**
      * Prépare la fenêtre et le joueur pour le démarrage d'une partie.
      */
     private void init() {
-        StdDraw.setCanvasSize(700, 700);
+        StdDraw.setCanvasSize(CANVAS_SIZE, CANVAS_SIZE);
         StdDraw.enableDoubleBuffering();
-        player = new Player(0.5, 0.1, 0.05, 1, 25);
-        currentLevelNumber = 1;
-        levelsCompleted = 0;
-        initLevel(currentLevelNumber);
+        long seed = System.nanoTime();
+        startSession(seed, 1);
+        recorder.start(seed, currentLevelNumber, FRAME_MILLIS);
+        rewind.start(this);
         displayLevelTransition();
+        controller.resync();
+    }
+
+    /**
+     * @return {@code true} tant que la partie en cours n'est ni perdue ni gagnée
+     */
+    public boolean isSessionRunning() {
+        for (Player p : players) {
+            if (p.isAlive() || p.isRespawning()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passe au niveau suivant si le niveau courant est terminé.
+     * <p>
+     * Lorsque le dernier niveau est terminé, la partie est gagnée et
+     * le joueur est marqué comme mort pour y mettre fin.
+     * </p>
+     *
+     * @param display {@code true} pour afficher les écrans de transition
+     *
+     * @return {@code true} si un changement de niveau a eu lieu
+     */
+    private boolean advanceLevel(boolean display) {
+        if (!currentLevel.getEnemies().isEmpty()) {
+            return false;
+        }
+
+        emitLevel(TelemetryEvent.LEVEL_END);
+        levelsCompleted++;
+        currentLevelNumber++;
+        if (display) {
+            displayLevelTransition();
+        }
+        initLevel(currentLevelNumber);
+        emitLevel(TelemetryEvent.LEVEL_START);
+        if (currentLevel == null) {
+            if (display) {
+                displayGameWonScreen();
+            }
+            for (Player p : players) {
+                p.setAlive(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Simule une frame de jeu avec les commandes données.
+     * <p>
+     * Les changements de niveau en attente sont appliqués avant la frame,
+     * comme dans la boucle principale, mais sans écran de transition.
+     * Le contexte de la partie est lié au thread appelant : plusieurs parties
+     * peuvent ainsi être avancées à tour de rôle sur le même thread.
+     * </p>
+     *
+     * @param frame commandes du joueur (voir {@link game.input.InputFrame})
+     */
+    public void step(int frame) {
+        singleFrame[0] = frame;
+        step(singleFrame);
+    }
+
+    /**
+     * Simule une frame de jeu en coopération.
+     *
+     * @param frames commandes de chaque joueur, dans l'ordre de
+     *               {@link #getPlayers()}
+     * @throws IllegalArgumentException si le nombre de commandes ne
+     *                                  correspond pas au nombre de joueurs
+     */
+    public void step(int[] frames) {
+        if (frames.length != players.size())
+            throw new IllegalArgumentException("Commandes attendues pour " + players.size() + " joueur(s)");
+        SimContext.bind(context);
+        while (isSessionRunning() && advanceLevel(false)) {
+            // enchaîner les niveaux vides
+        }
+        if (!isSessionRunning()) {
+            return;
+        }
+        update(frames);
     }
 
     /**
@@ -86,35 +422,64 @@ public class Game {
         while (isGameRunning()) {
             init();
 
-            while (player.isAlive() || player.isRespawning()) {
-                if (currentLevel.getEnemies().isEmpty()) {
-                    levelsCompleted++;
-                    currentLevelNumber++;
-                    displayLevelTransition();
-                    initLevel(currentLevelNumber);
-                    if (currentLevel == null) {
-                        displayGameWonScreen();
-                        player.setAlive(false);
-                        continue;
-                    }
+            while (isSessionRunning()) {
+                if (advanceLevel(true)) {
+                    controller.resync();
+                    continue;
+                }
+
+                if (handleRewindKey()) {
+                    controller.resync();
                     continue;
                 }
 
-                StdDraw.clear(StdDraw.BLACK);
+                long frameStart = System.nanoTime();
+                renderer.clear(Color.BLACK);
 
-                update();
-                draw();
+                int frame = controller.nextFrame(this);
+                recorder.record(frame);
+                update(frame);
+                recorder.checkpoint(this);
+                rewind.record(this, frame);
+                draw(renderer);
 
-                StdDraw.show();
-                StdDraw.pause(30);
+                renderer.show();
+                if (resolution.update(System.nanoTime() - frameStart)) {
+                    StdDraw.setRenderScale(resolution.getScale());
+                }
+                StdDraw.pause(FRAME_MILLIS);
             }
 
+            recorder.save(LAST_REPLAY_FILE);
+
             if (!player.isAlive()) {
                 handleGameOver();
             }
         }
     }
 
+    /**
+     * Revient environ deux secondes en arrière lors d'un appui sur la
+     * touche de retour en arrière.
+     *
+     * @return {@code true} si la partie a été ramenée en arrière
+     */
+    private boolean handleRewindKey() {
+        boolean down = StdDraw.isKeyPressed(KEY_REWIND);
+        boolean pressed = down && !rewindKeyDown;
+        rewindKeyDown = down;
+        if (!pressed || rewind.getOldestTick() < 0) {
+            return false;
+        }
+
+        long target = Math.max(rewind.getOldestTick(), context.getTick() - REWIND_STEP_TICKS);
+        if (!rewind.rewindTo(this, target)) {
+            return false;
+        }
+        recorder.rewindTo(context.getTick());
+        return true;
+    }
+
     /**
      * Affiche l'écran titre du jeu.
      */
@@ -169,42 +534,59 @@ public class Game {
     }
 
     /**
-     * Affiche les niveaux complétés sous forme de sprites en bas à droite.
+     * Dessine tous les éléments du jeu (joueur, ennemis, score, niveaux complétés).
+     *
+     * @param renderer moteur de rendu
      */
-    private void drawCompletedLevels() {
-        for (int i = 0; i < levelsCompleted; i++) {
-            try {
-                char[][] spriteData = game.util.SpriteLoader.loadSprite("level.spr");
-                if (spriteData != null) {
-                    game.util.Sprite levelSprite = new game.util.Sprite(spriteData);
-                    double posX = 0.95 - (i * 0.05);
-                    game.util.SpriteRenderer.drawSprite(levelSprite, posX - 0.02, 0.03, 0.04);
-                }
-            } catch (Exception e) {
-                // ignorer
-            }
+    public void draw(Renderer renderer) {
+        if (hud == null) {
+            hud = new HudLayer(CANVAS_SIZE, 2, Color.BLACK);
+            formationLayer = new FormationLayer(CANVAS_SIZE, 2, Color.BLACK);
+        }
+        // images opaques d'abord : formation, puis HUD par-dessus sa marge
+        boolean layered = renderer.prefersImages();
+        if (layered) {
+            currentLevel.drawFormation(renderer, formationLayer);
+        }
+        int lives = 0;
+        for (Player p : players) {
+            lives = Math.max(lives, p.getLives());
+        }
+        hud.update(score, highScore, lives, levelsCompleted);
+        hud.draw(renderer);
+
+        for (Player p : players) {
+            p.draw(renderer);
+        }
+        if (layered) {
+            currentLevel.drawActiveEnemies(renderer);
+        } else {
+            currentLevel.drawEnemies(renderer);
         }
     }
 
     /**
-     * Dessine tous les éléments du jeu (joueur, ennemis, score, niveaux complétés).
+     * Met à jour tous les éléments du jeu : joueur, ennemis, collisions et score.
+     *
+     * @param frame commandes du joueur pour cette frame
      */
-    public void draw() {
-        StdDraw.setPenColor(StdDraw.WHITE);
-        StdDraw.setFont(new FontUIResource("Arial", 14, 14));
-        StdDraw.text(0.5, 0.95, "SCORE: " + score);
-        StdDraw.text(0.5, 0.92, "HIGHSCORE: " + highScore);
-
-        drawCompletedLevels();
-        player.draw();
-        currentLevel.drawEnemies();
+    private void update(int frame) {
+        singleFrame[0] = frame;
+        update(singleFrame);
     }
 
     /**
-     * Met à jour tous les éléments du jeu : joueur, ennemis, collisions et score.
+     * Met à jour tous les éléments du jeu avec les commandes de chaque joueur.
+     *
+     * @param frames commandes de chaque joueur pour cette frame
      */
-    private void update() {
-        player.update();
+    private void update(int[] frames) {
+        context.advance();
+
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).setInput(frames[i], context.getTickMillis());
+            players.get(i).update();
+        }
         currentLevel.updateEnemies();
         currentLevel.handleCollisions();
         int gained = currentLevel.removeDeadActors();
@@ -213,6 +595,119 @@ public class Game {
         }
     }
 
+    /**
+     * Écrit l'état complet de la partie en cours (voir
+     * {@link game.state.SnapshotCodec}).
+     *
+     * @param out tampon de destination
+     */
+    public void writeState(ByteBuffer out) {
+        out.putLong(context.getSeed()).putLong(context.getTickMillis())
+                .putLong(context.getTick()).putLong(context.getRngState())
+                .putInt(score).putInt(currentLevelNumber).putInt(levelsCompleted);
+        out.put((byte) players.size());
+        for (Player p : players) {
+            p.writeState(out);
+        }
+        out.put((byte) (currentLevel != null ? 1 : 0));
+        if (currentLevel != null) {
+            currentLevel.writeState(out);
+        }
+    }
+
+    /**
+     * Remplace la partie en cours par l'état écrit par
+     * {@link #writeState(ByteBuffer)}.
+     * <p>
+     * Le niveau est rechargé depuis son fichier puis mis dans l'état
+     * sauvegardé ; le contexte de simulation restauré devient le contexte
+     * courant du thread appelant.
+     * </p>
+     *
+     * @param in tampon source
+     */
+    public void readState(ByteBuffer in) {
+        long seed = in.getLong();
+        long tickMillis = in.getLong();
+        long tick = in.getLong();
+        long rngState = in.getLong();
+
+        context = new SimContext(seed, tickMillis);
+        SimContext.bind(context);
+        score = in.getInt();
+        currentLevelNumber = in.getInt();
+        levelsCompleted = in.getInt();
+
+        createPlayers(in.get());
+        for (Player p : players) {
+            p.readState(in);
+        }
+        if (in.get() != 0) {
+            initLevel(currentLevelNumber);
+            currentLevel.readState(in);
+        } else {
+            currentLevel = null;
+        }
+        // après le rechargement du niveau, qui consomme des tirages aléatoires
+        context.restore(tick, rngState);
+    }
+
+    /**
+     * @return score de la partie en cours
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return nombre de niveaux complétés dans la partie en cours
+     */
+    public int getLevelsCompleted() {
+        return levelsCompleted;
+    }
+
+    /**
+     * Retourne le dernier niveau joué dans la partie en cours.
+     * <p>
+     * Après une victoire, le numéro de niveau courant désigne un niveau qui
+     * n'existe pas : le niveau atteint est alors le dernier niveau terminé.
+     * </p>
+     *
+     * @return numéro du dernier niveau joué
+     */
+    public int getLevelReached() {
+        return currentLevel != null ? currentLevelNumber : Math.max(1, currentLevelNumber - 1);
+    }
+
+    /**
+     * @return joueur de la partie en cours
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return joueurs de la partie en cours (liste non modifiable), le
+     *         joueur principal en premier
+     */
+    public List<Player> getPlayers() {
+        return Collections.unmodifiableList(players);
+    }
+
+    /**
+     * @return niveau en cours, ou {@code null} si tous les niveaux sont terminés
+     */
+    public Level getCurrentLevel() {
+        return currentLevel;
+    }
+
+    /**
+     * @return contexte de simulation de la partie en cours
+     */
+    public SimContext getContext() {
+        return context;
+    }
+
     /**
      * Vérifie si le jeu est en cours.
      *
@@ -222,6 +717,20 @@ public class Game {
         return true;
     }
 
+    /**
+     * Affiche les meilleures parties du classement.
+     *
+     * @param top hauteur de la première ligne
+     */
+    private void drawLeaderboard(double top) {
+        StdDraw.setFont(new FontUIResource("Monospaced", 12, 12));
+        List<LeaderboardEntry> best = leaderboard.top(LEADERBOARD_LINES);
+        for (int i = 0; i < best.size(); i++) {
+            StdDraw.text(0.5, top - i * 0.03, (i + 1) + ". " + best.get(i));
+        }
+        StdDraw.setFont(new FontUIResource("Arial", 14, 14));
+    }
+
     /**
      * Gère l'écran Game Over et la sauvegarde du highscore.
      */
@@ -230,6 +739,11 @@ public class Game {
             highScore = score;
             ScoreManager.saveHighScore(highScore);
         }
+        long rank = 0;
+        if (leaderboard != null) {
+            rank = leaderboard.submit(new LeaderboardEntry(score, System.getProperty("user.name", "JOUEUR"),
+                    getLevelReached(), System.currentTimeMillis(), context.getTick() * FRAME_MILLIS));
+        }
 
         StdDraw.clear(StdDraw.BLACK);
         StdDraw.setPenColor(StdDraw.RED);
@@ -243,8 +757,13 @@ public class Game {
         StdDraw.show();
         StdDraw.pause(2500);
 
+        if (leaderboard != null) {
+            StdDraw.text(0.5, 0.4, "RANG: " + rank + " / " + leaderboard.size());
+            drawLeaderboard(0.27);
+        }
+
         StdDraw.setFont(new FontUIResource("Arial", 14, 24));
-        StdDraw.text(0.5, 0.4, "Appuyez sur ESPACE pour recommencer");
+        StdDraw.text(0.5, 0.33, "Appuyez sur ESPACE pour recommencer");
         StdDraw.show();
 
         while (!StdDraw.isKeyPressed(32)) {
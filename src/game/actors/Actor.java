@@ -1,7 +1,10 @@
 package game.actors;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+
+import game.render.Renderer;
 import game.util.Vector2;
 
 /**
@@ -154,10 +157,12 @@ public abstract class Actor {
 
     /**
      * Dessine tous les missiles de l'acteur à l'écran.
+     *
+     * @param renderer moteur de rendu
      */
-    public void drawMissiles() {
+    public void drawMissiles(Renderer renderer) {
         for (Missile m : missiles) {
-            m.draw();
+            m.draw(renderer);
         }
     }
 
@@ -186,6 +191,58 @@ public abstract class Actor {
         }
     }
 
+    /**
+     * Écrit l'état complet de l'acteur, missiles compris.
+     * <p>
+     * Les sous-classes ajoutent leurs propres champs après ceux de leur
+     * classe parente (voir {@link game.state.SnapshotCodec}).
+     * </p>
+     *
+     * @param out tampon de destination
+     */
+    public void writeState(ByteBuffer out) {
+        out.putDouble(position.getX()).putDouble(position.getY())
+                .putDouble(length).putDouble(speed)
+                .putInt(maxConcurrentMissiles).putInt(currentMissilesCount)
+                .putLong(cooldown).putLong(lastShotTime)
+                .put((byte) (alive ? 1 : 0));
+
+        out.putInt(missiles.size());
+        for (Missile m : missiles) {
+            out.put((byte) (m instanceof PlayerMissile ? 0 : 1))
+                    .putDouble(m.position.getX()).putDouble(m.position.getY())
+                    .putDouble(m.velocity.getX()).putDouble(m.velocity.getY())
+                    .put((byte) (m.alive ? 1 : 0));
+        }
+    }
+
+    /**
+     * Restaure l'état écrit par {@link #writeState(ByteBuffer)}.
+     *
+     * @param in tampon source
+     */
+    public void readState(ByteBuffer in) {
+        position = new Vector2(in.getDouble(), in.getDouble());
+        length = in.getDouble();
+        speed = in.getDouble();
+        maxConcurrentMissiles = in.getInt();
+        currentMissilesCount = in.getInt();
+        cooldown = in.getLong();
+        lastShotTime = in.getLong();
+        alive = in.get() != 0;
+
+        missiles.clear();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            boolean fromPlayer = in.get() == 0;
+            Vector2 pos = new Vector2(in.getDouble(), in.getDouble());
+            Vector2 velocity = new Vector2(in.getDouble(), in.getDouble());
+            Missile m = fromPlayer ? new PlayerMissile(pos, velocity) : new EnemyMissile(pos, velocity);
+            m.alive = in.get() != 0;
+            missiles.add(m);
+        }
+    }
+
     /**
      * Met à jour l'état de l'acteur (déplacement, attaques, etc.).
      * Méthode appelée à chaque frame du jeu.
@@ -194,6 +251,8 @@ public abstract class Actor {
 
     /**
      * Dessine l'acteur à l'écran.
+     *
+     * @param renderer moteur de rendu
      */
-    public abstract void draw();
+    public abstract void draw(Renderer renderer);
 }
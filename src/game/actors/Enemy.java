@@ -1,6 +1,11 @@
 package game.actors;
 
+import java.nio.ByteBuffer;
+
+import game.actors.Enemys.EnemyType;
 import game.level.Formation;
+import game.render.Renderer;
+import game.sim.SimContext;
 import game.util.Vector2;
 
 /**
@@ -42,6 +47,9 @@ public abstract class Enemy extends LivingActor {
     /** Indique si l'ennemi capture une vie (cas spécial) */
     protected boolean isCapturingLife = false;
 
+    /** Identifiant de l'ennemi dans son niveau (ordre d'apparition dans le fichier) */
+    private int id = -1;
+
     /**
      * Construit un ennemi.
      *
@@ -77,6 +85,27 @@ public abstract class Enemy extends LivingActor {
         isReturning = false;
     }
 
+    /**
+     * @return type de l'ennemi
+     */
+    public abstract EnemyType getType();
+
+    /**
+     * @return identifiant de l'ennemi dans son niveau
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Définit l'identifiant de l'ennemi dans son niveau.
+     *
+     * @param id identifiant (ordre d'apparition dans le fichier de niveau)
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * @return {@code true} si l'ennemi capture une vie
      */
@@ -112,7 +141,7 @@ public abstract class Enemy extends LivingActor {
         if (!formation.canShoot())
             return;
 
-        long now = System.currentTimeMillis();
+        long now = SimContext.now();
         if (now - lastShotTime < cooldown)
             return;
 
@@ -189,6 +218,33 @@ public abstract class Enemy extends LivingActor {
         updateMissiles();
     }
 
+    @Override
+    public void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.put((byte) (isAttacking ? 1 : 0)).put((byte) (isReturning ? 1 : 0))
+                .put((byte) (attackTarget != null ? 1 : 0));
+        if (attackTarget != null) {
+            out.putDouble(attackTarget.getX()).putDouble(attackTarget.getY());
+        }
+        out.putDouble(value).putDouble(attackSpeed).putDouble(returnSpeed)
+                .putDouble(columnX).putDouble(originalY)
+                .put((byte) (isCapturingLife ? 1 : 0));
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        super.readState(in);
+        isAttacking = in.get() != 0;
+        isReturning = in.get() != 0;
+        attackTarget = in.get() != 0 ? new Vector2(in.getDouble(), in.getDouble()) : null;
+        value = in.getDouble();
+        attackSpeed = in.getDouble();
+        returnSpeed = in.getDouble();
+        columnX = in.getDouble();
+        originalY = in.getDouble();
+        isCapturingLife = in.get() != 0;
+    }
+
     @Override
     protected void onDeath() {
         setAlive(false);
@@ -203,6 +259,8 @@ public abstract class Enemy extends LivingActor {
 
     /**
      * Dessine l'ennemi à l'écran.
+     *
+     * @param renderer moteur de rendu
      */
-    public abstract void draw();
+    public abstract void draw(Renderer renderer);
 }
@@ -1,6 +1,8 @@
 package game.actors;
 
-import game.util.StdDraw;
+import java.awt.Color;
+
+import game.render.Renderer;
 import game.util.Vector2;
 
 /**
@@ -30,14 +32,14 @@ public class EnemyMissile extends Missile {
      * </p>
      */
     @Override
-    public void draw() {
-        StdDraw.setPenColor(StdDraw.RED);
+    public void draw(Renderer renderer) {
+        renderer.setPenColor(Color.RED);
 
         double halfLength = 0.02; // Demi-longueur de la ligne
         double x = position.getX();
         double y = position.getY();
 
-        StdDraw.line(
+        renderer.line(
                 x, y - halfLength,
                 x, y + halfLength);
     }
@@ -2,8 +2,9 @@ package game.actors.Enemys;
 
 import game.actors.Enemy;
 import game.level.Formation;
-import game.util.Sprite;
-import game.util.SpriteLoader;
+import game.render.Renderer;
+import game.sim.SimContext;
+import game.util.SpriteAtlas;
 import game.util.SpriteRenderer;
 
 /**
@@ -16,7 +17,7 @@ import game.util.SpriteRenderer;
 public class Bee extends Enemy {
 
     /** Sprite représentant visuellement la Bee */
-    private static final Sprite SPRITE = new Sprite(SpriteLoader.loadSprite("bee.spr"));
+    private static final SpriteAtlas.Region SPRITE = SpriteAtlas.shared().getRegion("bee.spr");
 
     /**
      * Crée une Bee.
@@ -47,15 +48,20 @@ public class Bee extends Enemy {
      */
     @Override
     protected double getZigZag() {
-        return 0.01 * Math.sin(System.currentTimeMillis() / 100.0);
+        return 0.01 * Math.sin(SimContext.now() / 100.0);
+    }
+
+    @Override
+    public EnemyType getType() {
+        return EnemyType.BEE;
     }
 
     /**
      * Dessine la Bee à l'écran à sa position actuelle.
      */
     @Override
-    public void draw() {
-        SpriteRenderer.drawSprite(SPRITE, position.getX() - 0.02, position.getY() - 0.02, 0.04);
+    public void draw(Renderer renderer) {
+        SpriteRenderer.drawSprite(renderer, SPRITE, position.getX() - 0.02, position.getY() - 0.02, 0.04);
     }
 
     /**
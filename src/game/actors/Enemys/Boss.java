@@ -1,12 +1,15 @@
 package game.actors.Enemys;
 
+import java.nio.ByteBuffer;
+
 import game.actors.Enemy;
 import game.actors.EnemyMissile;
-import game.util.Sprite;
-import game.util.SpriteLoader;
+import game.render.Renderer;
+import game.util.SpriteAtlas;
 import game.util.SpriteRenderer;
 import game.util.Vector2;
 import game.level.Formation;
+import game.sim.SimContext;
 
 /**
  * Classe représentant un ennemi de type Boss.
@@ -21,7 +24,7 @@ import game.level.Formation;
 public class Boss extends Enemy {
 
     /** Sprite représentant visuellement le Boss */
-    private static final Sprite SPRITE = new Sprite(SpriteLoader.loadSprite("boss.spr"));
+    private static final SpriteAtlas.Region SPRITE = SpriteAtlas.shared().getRegion("boss.spr");
 
     /** Cooldown entre chaque séquence de deux rafales */
     private static final long BURST_COOLDOWN = 2000; // ms
@@ -97,7 +100,7 @@ public class Boss extends Enemy {
      * Gère la séquence de rafales automatiques en respectant les cooldowns.
      */
     private void burstSequence() {
-        long now = System.currentTimeMillis();
+        long now = SimContext.now();
         if (!inBurstSequence) {
             if (now - lastSequenceEndTime >= BURST_COOLDOWN) {
                 fireBurst();
@@ -140,12 +143,35 @@ public class Boss extends Enemy {
         updateMissiles();
     }
 
+    @Override
+    public EnemyType getType() {
+        return EnemyType.BOSS;
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.putLong(lastSequenceEndTime).put((byte) (inBurstSequence ? 1 : 0)).putLong(firstBurstTime)
+                .putDouble(patrolLeft).putDouble(patrolRight).putInt(patrolDir);
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        super.readState(in);
+        lastSequenceEndTime = in.getLong();
+        inBurstSequence = in.get() != 0;
+        firstBurstTime = in.getLong();
+        patrolLeft = in.getDouble();
+        patrolRight = in.getDouble();
+        patrolDir = in.getInt();
+    }
+
     /**
      * Dessine le Boss à l'écran à sa position actuelle.
      */
     @Override
-    public void draw() {
-        SpriteRenderer.drawSprite(SPRITE, position.getX() - 0.04, position.getY() - 0.04, 0.08);
+    public void draw(Renderer renderer) {
+        SpriteRenderer.drawSprite(renderer, SPRITE, position.getX() - 0.04, position.getY() - 0.04, 0.08);
     }
 
     /**
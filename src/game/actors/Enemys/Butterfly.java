@@ -2,8 +2,8 @@ package game.actors.Enemys;
 
 import game.actors.Enemy;
 import game.level.Formation;
-import game.util.Sprite;
-import game.util.SpriteLoader;
+import game.render.Renderer;
+import game.util.SpriteAtlas;
 import game.util.SpriteRenderer;
 
 /**
@@ -17,7 +17,7 @@ import game.util.SpriteRenderer;
 public class Butterfly extends Enemy {
 
     /** Sprite représentant visuellement la Butterfly */
-    private static final Sprite SPRITE = new Sprite(SpriteLoader.loadSprite("butterfly.spr"));
+    private static final SpriteAtlas.Region SPRITE = SpriteAtlas.shared().getRegion("butterfly.spr");
 
     /**
      * Crée une Butterfly.
@@ -38,12 +38,17 @@ public class Butterfly extends Enemy {
         this.value = value;
     }
 
+    @Override
+    public EnemyType getType() {
+        return EnemyType.BUTTERFLY;
+    }
+
     /**
      * Dessine la Butterfly à sa position actuelle.
      */
     @Override
-    public void draw() {
-        SpriteRenderer.drawSprite(SPRITE, position.getX() - 0.02, position.getY() - 0.02, 0.04);
+    public void draw(Renderer renderer) {
+        SpriteRenderer.drawSprite(renderer, SPRITE, position.getX() - 0.02, position.getY() - 0.02, 0.04);
     }
 
     /**
@@ -1,11 +1,12 @@
 package game.actors.Enemys;
 
+import java.awt.Color;
+
 import game.actors.Enemy;
 import game.level.Formation;
-import game.util.Sprite;
-import game.util.SpriteLoader;
+import game.render.Renderer;
+import game.util.SpriteAtlas;
 import game.util.SpriteRenderer;
-import game.util.StdDraw;
 
 /**
  * Classe représentant un ennemi de type {@code Moth}.
@@ -25,7 +26,7 @@ import game.util.StdDraw;
 public class Moth extends Enemy {
 
     /** Sprite utilisé pour dessiner le Moth */
-    private static final Sprite SPRITE = new Sprite(SpriteLoader.loadSprite("catcher.spr"));
+    private static final SpriteAtlas.Region SPRITE = SpriteAtlas.shared().getRegion("catcher.spr");
 
     /**
      * Crée un nouveau Moth.
@@ -46,6 +47,11 @@ public class Moth extends Enemy {
         this.value = value;
     }
 
+    @Override
+    public EnemyType getType() {
+        return EnemyType.MOTH;
+    }
+
     /**
      * Dessine le Moth à l'écran.
      * <p>
@@ -53,13 +59,13 @@ public class Moth extends Enemy {
      * </p>
      */
     @Override
-    public void draw() {
-        SpriteRenderer.drawSprite(SPRITE, position.getX() - 0.02, position.getY() - 0.02, 0.04);
+    public void draw(Renderer renderer) {
+        SpriteRenderer.drawSprite(renderer, SPRITE, position.getX() - 0.02, position.getY() - 0.02, 0.04);
 
         if (isCapturingLife) {
-            StdDraw.setPenColor(StdDraw.YELLOW);
+            renderer.setPenColor(Color.YELLOW);
             // Petit carré jaune au-dessus du Moth pour indiquer la capture
-            StdDraw.filledRectangle(position.getX(), position.getY() + 0.035, 0.008, 0.008);
+            renderer.filledRectangle(position.getX(), position.getY() + 0.035, 0.008, 0.008);
         }
     }
 
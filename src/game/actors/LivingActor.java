@@ -1,5 +1,7 @@
 package game.actors;
 
+import java.nio.ByteBuffer;
+
 /**
  * Classe abstraite représentant un acteur vivant du jeu.
  * <p>
@@ -45,6 +47,19 @@ public abstract class LivingActor extends Actor {
         return attack;
     }
 
+    @Override
+    public void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.putInt(health).putInt(attack);
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        super.readState(in);
+        health = in.getInt();
+        attack = in.getInt();
+    }
+
     /**
      * Inflige des dégâts à l'acteur.
      * <p>
@@ -1,6 +1,8 @@
 package game.actors;
 
-import game.util.StdDraw;
+import java.awt.Color;
+
+import game.render.Renderer;
 import game.util.Vector2;
 
 /**
@@ -56,8 +58,8 @@ public class Missile extends Actor {
      * Dessine le missile à l'écran.
      */
     @Override
-    public void draw() {
-        StdDraw.setPenColor(StdDraw.RED);
+    public void draw(Renderer renderer) {
+        renderer.setPenColor(Color.RED);
     }
 
     /**
@@ -1,16 +1,19 @@
 package game.actors;
 
-import game.util.Sprite;
-import game.util.SpriteLoader;
+import java.nio.ByteBuffer;
+
+import game.input.InputFrame;
+import game.render.Renderer;
+import game.sim.SimContext;
+import game.util.SpriteAtlas;
 import game.util.SpriteRenderer;
-import game.util.StdDraw;
 import game.util.Vector2;
 
 /**
  * Classe représentant le joueur.
  * <p>
- * Le joueur est un acteur vivant contrôlé par le clavier.
- * Il peut se déplacer horizontalement, tirer des missiles,
+ * Le joueur est un acteur vivant contrôlé par des frames de commandes
+ * (voir {@link InputFrame}) fournies à chaque tour de boucle. Il peut se déplacer horizontalement, tirer des missiles,
  * perdre et gagner des vies, et bénéficie de phases de
  * respawn et d'invincibilité temporaire.
  * </p>
@@ -26,8 +29,11 @@ public class Player extends LivingActor {
     /** Instant du dernier tir */
     private long lastShotTime = 0;
 
+    /** Tirs depuis le dernier appel à {@link #takeShotsFired()} (statistique, non sauvegardée) */
+    private int shotsFired = 0;
+
     /** Sprite du joueur */
-    private static final Sprite SPRITE = new Sprite(SpriteLoader.loadSprite("ship.spr"));
+    private static final SpriteAtlas.Region SPRITE = SpriteAtlas.shared().getRegion("ship.spr");
 
     /** Nombre de vies restantes */
     private int lives = 3;
@@ -62,6 +68,16 @@ public class Player extends LivingActor {
     /** Durée de l'invincibilité après réapparition (en millisecondes) */
     private static final long INVINCIBILITY_DURATION = 1000;
 
+    /* ===================== */
+    /* ====== COMMANDES ==== */
+    /* ===================== */
+
+    /** Commandes de la frame en cours */
+    private int input = InputFrame.NONE;
+
+    /** Durée de la frame en cours (en millisecondes) */
+    private long frameMillis = 0;
+
     /**
      * Construit un joueur.
      *
@@ -117,7 +133,7 @@ public class Player extends LivingActor {
             onDeath();
         } else {
             isRespawning = true;
-            respawnStartTime = System.currentTimeMillis();
+            respawnStartTime = SimContext.now();
             isInvincible = true;
             setAlive(false);
         }
@@ -138,13 +154,13 @@ public class Player extends LivingActor {
             return;
         }
 
-        long elapsedTime = System.currentTimeMillis() - respawnStartTime;
+        long elapsedTime = SimContext.now() - respawnStartTime;
         if (elapsedTime >= RESPAWN_COOLDOWN) {
             isRespawning = false;
             position = new Vector2(spawnX, spawnY);
             setAlive(true);
             isInvincible = true;
-            invincibilityStartTime = System.currentTimeMillis();
+            invincibilityStartTime = SimContext.now();
         }
     }
 
@@ -161,28 +177,89 @@ public class Player extends LivingActor {
             return;
         }
 
-        long elapsedTime = System.currentTimeMillis() - invincibilityStartTime;
+        long elapsedTime = SimContext.now() - invincibilityStartTime;
         if (elapsedTime >= INVINCIBILITY_DURATION) {
             isInvincible = false;
         }
     }
 
+    /**
+     * @return déplacement horizontal maximal du joueur par frame
+     */
+    public double getMoveSpeed() {
+        return speed;
+    }
+
+    /**
+     * Définit les commandes à appliquer lors de la prochaine mise à jour.
+     *
+     * @param frame       frame de commandes encodée (voir {@link InputFrame})
+     * @param frameMillis durée couverte par la frame (en millisecondes)
+     */
+    public void setInput(int frame, long frameMillis) {
+        this.input = frame;
+        this.frameMillis = frameMillis;
+    }
+
+    /**
+     * @return commandes appliquées lors de la dernière mise à jour
+     */
+    public int getInput() {
+        return input;
+    }
+
     /**
      * Fait tirer un missile au joueur si les conditions le permettent.
      */
     public void shoot() {
-        long now = System.currentTimeMillis();
+        fire(SimContext.now(), 0);
+    }
+
+    /**
+     * Fait tirer un missile au joueur à un instant situé dans la frame.
+     * <p>
+     * Le cooldown est évalué à l'instant réel du tir et le missile est
+     * placé là où il se trouverait s'il était parti à cet instant.
+     * </p>
+     *
+     * @param fireAt instant du tir, en fraction de frame depuis son début
+     */
+    private void shoot(double fireAt) {
+        fire(SimContext.now() - Math.round((1 - fireAt) * frameMillis), fireAt);
+    }
+
+    /**
+     * Crée un missile si le cooldown et la limite de missiles le permettent.
+     *
+     * @param now instant du tir (en millisecondes)
+     * @param lag fraction de déplacement que le missile n'a pas encore parcourue
+     *            pendant la frame
+     */
+    private void fire(long now, double lag) {
         if (now - lastShotTime < cooldown)
             return;
         if (currentMissilesCount >= maxConcurrentMissiles)
             return;
 
-        Vector2 startPos = new Vector2(position.getX(), position.getY() + length / 2);
         Vector2 velocity = new Vector2(0, 0.03);
+        Vector2 startPos = new Vector2(position.getX(),
+                position.getY() + length / 2 - velocity.getY() * lag);
 
         missiles.add(new PlayerMissile(startPos, velocity));
         currentMissilesCount++;
         lastShotTime = now;
+        shotsFired++;
+    }
+
+    /**
+     * Retourne le nombre de tirs depuis le dernier appel, puis le remet à zéro.
+     *
+     * @return nombre de tirs
+     */
+    public int takeShotsFired() {
+        int shots = shotsFired;
+        shotsFired = 0;
+        return shots;
     }
 
     /**
@@ -200,12 +277,7 @@ public class Player extends LivingActor {
         double radius = length / 2;
         double x = position.getX();
 
-        if (StdDraw.isKeyPressed(37)) {
-            move(-speed, 0);
-        }
-        if (StdDraw.isKeyPressed(39)) {
-            move(speed, 0);
-        }
+        move((InputFrame.rightHold(input) - InputFrame.leftHold(input)) * speed, 0);
 
         if (x - radius < 0) {
             position = new Vector2(radius, position.getY());
@@ -214,13 +286,40 @@ public class Player extends LivingActor {
             position = new Vector2(1 - radius, position.getY());
         }
 
-        if (StdDraw.isKeyPressed(32)) {
-            shoot();
+        if (InputFrame.fire(input)) {
+            shoot(InputFrame.fireAt(input));
         }
 
         updateMissiles();
     }
 
+    @Override
+    public void writeState(ByteBuffer out) {
+        super.writeState(out);
+        out.putDouble(speed).putLong(cooldown).putLong(lastShotTime)
+                .putInt(lives).putDouble(spawnX).putDouble(spawnY)
+                .put((byte) (isRespawning ? 1 : 0)).putLong(respawnStartTime)
+                .put((byte) (isInvincible ? 1 : 0)).putLong(invincibilityStartTime)
+                .putInt(input).putLong(frameMillis);
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        super.readState(in);
+        speed = in.getDouble();
+        cooldown = in.getLong();
+        lastShotTime = in.getLong();
+        lives = in.getInt();
+        spawnX = in.getDouble();
+        spawnY = in.getDouble();
+        isRespawning = in.get() != 0;
+        respawnStartTime = in.getLong();
+        isInvincible = in.get() != 0;
+        invincibilityStartTime = in.getLong();
+        input = in.getInt();
+        frameMillis = in.getLong();
+    }
+
     /**
      * Gère la mort définitive du joueur.
      */
@@ -230,20 +329,24 @@ public class Player extends LivingActor {
     }
 
     /**
-     * Dessine le joueur, ses missiles et ses vies restantes.
+     * Dessine le joueur et ses missiles (les vies restantes font partie du
+     * HUD, voir {@link game.render.HudLayer}).
+     *
+     * @param renderer moteur de rendu
      */
     @Override
-    public void draw() {
+    public void draw(Renderer renderer) {
         if (isRespawning) {
             return;
         }
 
-        drawMissiles();
+        drawMissiles(renderer);
 
         if (isInvincible) {
-            long elapsedTime = System.currentTimeMillis() - invincibilityStartTime;
+            long elapsedTime = SimContext.now() - invincibilityStartTime;
             if ((elapsedTime / 100) % 2 == 0) {
                 SpriteRenderer.drawSprite(
+                        renderer,
                         SPRITE,
                         position.getX() - 0.02,
                         position.getY() - 0.02,
@@ -251,31 +354,11 @@ public class Player extends LivingActor {
             }
         } else {
             SpriteRenderer.drawSprite(
+                    renderer,
                     SPRITE,
                     position.getX() - 0.02,
                     position.getY() - 0.02,
                     0.04);
         }
-
-        drawLives();
-    }
-
-    /**
-     * Dessine les icônes représentant les vies restantes.
-     */
-    private void drawLives() {
-        double size = 0.03;
-        double startX = 0.03;
-        double startY = 0.04;
-        double gap = 0.05;
-
-        for (int i = 0; i < lives; i++) {
-            double x = startX + i * gap;
-            SpriteRenderer.drawSprite(
-                    SPRITE,
-                    x - size / 2,
-                    startY - size / 2,
-                    size);
-        }
     }
 }
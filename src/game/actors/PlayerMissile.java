@@ -1,6 +1,8 @@
 package game.actors;
 
-import game.util.StdDraw;
+import java.awt.Color;
+
+import game.render.Renderer;
 import game.util.Vector2;
 
 /**
@@ -29,11 +31,11 @@ public class PlayerMissile extends Missile {
      * </p>
      */
     @Override
-    public void draw() {
-        StdDraw.setPenColor(StdDraw.GREEN);
+    public void draw(Renderer renderer) {
+        renderer.setPenColor(Color.GREEN);
         double halfLength = 0.02;
         double x = position.getX();
         double y = position.getY();
-        StdDraw.line(x, y - halfLength, x, y + halfLength);
+        renderer.line(x, y - halfLength, x, y + halfLength);
     }
 }
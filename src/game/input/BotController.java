@@ -0,0 +1,246 @@
+package game.input;
+
+import java.util.Arrays;
+import java.util.List;
+
+import game.Game;
+import game.actors.Enemy;
+import game.actors.EnemyMissile;
+import game.actors.Missile;
+import game.actors.Player;
+import game.level.Level;
+
+/**
+ * Pilote automatique : joue à la place d'un humain.
+ * <p>
+ * À chaque frame, le pilote projette les missiles ennemis sur une grille
+ * horizontale de {@link #CELLS} cases couvrant l'écran : chaque case retient
+ * le nombre de frames avant qu'un missile n'atteigne la hauteur du joueur
+ * à cet endroit. Les ennemis en piqué ou en retour vers la formation
+ * bloquent aussi leurs cases. Une requête sur la largeur du vaisseau ne
+ * coûte alors que quelques lectures de tableau, et la grille est réutilisée
+ * d'une frame à l'autre sans allocation.
+ * </p>
+ * <p>
+ * Le pilote fuit vers la case sûre la plus proche lorsqu'un missile menace
+ * sa position, sinon il se place sous l'ennemi le plus proche de la rangée
+ * du bas (voir {@link game.level.Formation#getBottomEnemies()}) et tire
+ * lorsqu'il est aligné.
+ * </p>
+ * <p>
+ * En coopération, chaque pilote contrôle le joueur d'indice donné.
+ * </p>
+ */
+public class BotController implements PlayerController {
+
+    /** Nombre de cases de la grille de danger */
+    private static final int CELLS = 100;
+
+    /** Valeur d'une case sans danger prévu */
+    private static final int SAFE = Integer.MAX_VALUE;
+
+    /** Horizon d'anticipation des missiles (en frames) */
+    private static final int HORIZON = 40;
+
+    /** Marge ajoutée autour du vaisseau dans les tests de collision */
+    private static final double MARGIN = 0.01;
+
+    /** Distance verticale sous laquelle un ennemi en piqué est évité */
+    private static final double DIVE_RANGE = 0.35;
+
+    /** Distance verticale sous laquelle un ennemi revenant vers la formation est évité */
+    private static final double RETURN_RANGE = 0.15;
+
+    /** Frames avant impact par case (réutilisé à chaque frame) */
+    private final int[] danger = new int[CELLS];
+
+    /** Indice du joueur contrôlé dans {@link Game#getPlayers()} */
+    private final int slot;
+
+    /**
+     * Construit un pilote pour le joueur principal.
+     */
+    public BotController() {
+        this(0);
+    }
+
+    /**
+     * Construit un pilote pour un joueur de coopération.
+     *
+     * @param slot indice du joueur contrôlé
+     */
+    public BotController(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public void resync() {
+    }
+
+    @Override
+    public int nextFrame(Game game) {
+        Player player = game.getPlayers().get(slot);
+        Level level = game.getCurrentLevel();
+        if (level == null || !player.isAlive() || player.isRespawning()) {
+            return InputFrame.NONE;
+        }
+
+        double x = player.getPosition().getX();
+        double y = player.getPosition().getY();
+        double radius = player.getLength() / 2 + MARGIN;
+        double speed = player.getMoveSpeed();
+
+        buildDangerMap(level, x, y, radius);
+
+        int here = cellOf(x);
+        int reach = Math.max(1, cellOf(radius) + 1);
+        double goal = x;
+
+        if (frameOfImpact(here, reach) <= HORIZON) {
+            int escape = findEscape(here, reach, speed);
+            goal = cellCenter(escape);
+        } else {
+            Enemy target = findTarget(level, x);
+            if (target != null) {
+                goal = target.getPosition().getX();
+            }
+        }
+
+        // ne jamais entrer dans une case qui sera touchée avant d'en sortir
+        double step = Math.max(-speed, Math.min(speed, goal - x));
+        int next = cellOf(x + step);
+        if (next != here && frameOfImpact(next, reach) <= 2 && frameOfImpact(here, reach) > 2) {
+            step = 0;
+        }
+
+        int hold = (int) Math.round(Math.abs(step) / speed * InputFrame.SUBSTEPS);
+        boolean aligned = isAligned(level, x);
+        return InputFrame.of(step < 0 ? hold : 0, step > 0 ? hold : 0, aligned, 0);
+    }
+
+    /**
+     * Remplit la grille de danger à partir des missiles ennemis et des
+     * ennemis en piqué.
+     */
+    private void buildDangerMap(Level level, double x, double y, double radius) {
+        Arrays.fill(danger, SAFE);
+        for (Enemy e : level.getEnemies()) {
+            for (Missile m : e.getMissiles()) {
+                if (!(m instanceof EnemyMissile) || !m.isAlive()) {
+                    continue;
+                }
+                double vy = m.getVelocity().getY();
+                double dy = m.getPosition().getY() - y;
+                if (vy >= 0 || dy < -radius) {
+                    continue;
+                }
+                int frames = (int) Math.max(0, dy / -vy);
+                if (frames > HORIZON) {
+                    continue;
+                }
+                double impactX = m.getPosition().getX() + m.getVelocity().getX() * frames;
+                mark(impactX, m.getLength() / 2, frames);
+            }
+            double range = e.isAttacking ? DIVE_RANGE : e.isReturning ? RETURN_RANGE : 0;
+            if (e.getPosition().getY() - y < range) {
+                mark(e.getPosition().getX(), e.getLength() / 2 + radius, 0);
+            }
+        }
+    }
+
+    /**
+     * Marque les cases couvertes par un danger.
+     */
+    private void mark(double centerX, double halfWidth, int frames) {
+        int from = Math.max(0, cellOf(centerX - halfWidth));
+        int to = Math.min(CELLS - 1, cellOf(centerX + halfWidth));
+        for (int c = from; c <= to; c++) {
+            if (frames < danger[c]) {
+                danger[c] = frames;
+            }
+        }
+    }
+
+    /**
+     * @return frames avant le premier impact sur les cases
+     *         {@code [cell - reach, cell + reach]}
+     */
+    private int frameOfImpact(int cell, int reach) {
+        int min = SAFE;
+        for (int c = Math.max(0, cell - reach); c <= Math.min(CELLS - 1, cell + reach); c++) {
+            min = Math.min(min, danger[c]);
+        }
+        return min;
+    }
+
+    /**
+     * Cherche la case sûre la plus proche atteignable avant l'impact.
+     */
+    private int findEscape(int here, int reach, double speed) {
+        int deadline = frameOfImpact(here, reach);
+        double cellsPerFrame = speed * CELLS;
+        for (int d = 1; d < CELLS; d++) {
+            if (d / cellsPerFrame > deadline + reach) {
+                break;
+            }
+            if (isSafe(here - d, reach)) {
+                return here - d;
+            }
+            if (isSafe(here + d, reach)) {
+                return here + d;
+            }
+        }
+        // aucune case sûre à portée : s'éloigner au plus vite du danger
+        return danger[Math.max(0, here - reach)] > danger[Math.min(CELLS - 1, here + reach)] ? 0 : CELLS - 1;
+    }
+
+    /**
+     * @return {@code true} si le vaisseau peut rester durablement sur la case
+     */
+    private boolean isSafe(int cell, int reach) {
+        return cell >= reach && cell < CELLS - reach && frameOfImpact(cell, reach) > HORIZON;
+    }
+
+    /**
+     * @return ennemi de la rangée du bas le plus proche horizontalement, ou
+     *         à défaut l'ennemi hors formation le plus proche
+     */
+    private static Enemy findTarget(Level level, double x) {
+        Enemy best = nearest(level.getFormation().getBottomEnemies(), x, true);
+        return best != null ? best : nearest(level.getEnemies(), x, false);
+    }
+
+    private static Enemy nearest(List<Enemy> enemies, double x, boolean inFormation) {
+        Enemy best = null;
+        for (Enemy e : enemies) {
+            if (inFormation && (e.isAttacking || e.isReturning)) {
+                continue;
+            }
+            if (best == null
+                    || Math.abs(e.getPosition().getX() - x) < Math.abs(best.getPosition().getX() - x)) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return {@code true} si un ennemi se trouve au-dessus du joueur
+     */
+    private static boolean isAligned(Level level, double x) {
+        for (Enemy e : level.getEnemies()) {
+            if (Math.abs(e.getPosition().getX() - x) < e.getLength() / 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int cellOf(double x) {
+        return Math.max(0, Math.min(CELLS - 1, (int) (x * CELLS)));
+    }
+
+    private static double cellCenter(int cell) {
+        return (cell + 0.5) / CELLS;
+    }
+}
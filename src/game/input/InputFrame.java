@@ -0,0 +1,99 @@
+package game.input;
+
+/**
+ * Encodage compact des commandes du joueur pour une frame de simulation.
+ * <p>
+ * Une frame est un simple {@code int} contenant :
+ * <ul>
+ * <li>la durée d'appui sur GAUCHE pendant la frame, en seizièmes de frame</li>
+ * <li>la durée d'appui sur DROITE pendant la frame, en seizièmes de frame</li>
+ * <li>un bit de tir</li>
+ * <li>l'instant du premier tir dans la frame, en seizièmes de frame</li>
+ * </ul>
+ * Une touche maintenue pendant toute la frame vaut donc {@link #SUBSTEPS}
+ * et la valeur {@code 0} correspond à une frame sans aucune commande.
+ * </p>
+ */
+public final class InputFrame {
+
+    /** Nombre de subdivisions d'une frame */
+    public static final int SUBSTEPS = 16;
+
+    /** Frame sans aucune commande */
+    public static final int NONE = 0;
+
+    private static final int LEFT_SHIFT = 0;
+    private static final int RIGHT_SHIFT = 5;
+    private static final int FIRE_BIT = 1 << 10;
+    private static final int FIRE_AT_SHIFT = 11;
+    private static final int HOLD_MASK = 0x1F;
+    private static final int FIRE_AT_MASK = 0x0F;
+
+    private InputFrame() {
+    }
+
+    /**
+     * Construit une frame.
+     *
+     * @param leftHold  durée d'appui sur GAUCHE (0 à {@link #SUBSTEPS})
+     * @param rightHold durée d'appui sur DROITE (0 à {@link #SUBSTEPS})
+     * @param fire      {@code true} si le tir est demandé pendant la frame
+     * @param fireAt    instant du tir dans la frame (0 à {@link #SUBSTEPS} - 1)
+     * @return frame encodée
+     */
+    public static int of(int leftHold, int rightHold, boolean fire, int fireAt) {
+        int frame = (clamp(leftHold) << LEFT_SHIFT) | (clamp(rightHold) << RIGHT_SHIFT);
+        if (fire) {
+            frame |= FIRE_BIT | (Math.max(0, Math.min(SUBSTEPS - 1, fireAt)) << FIRE_AT_SHIFT);
+        }
+        return frame;
+    }
+
+    /**
+     * Construit une frame à partir de touches maintenues toute la frame.
+     *
+     * @param left  GAUCHE maintenue
+     * @param right DROITE maintenue
+     * @param fire  tir maintenu
+     * @return frame encodée
+     */
+    public static int held(boolean left, boolean right, boolean fire) {
+        return of(left ? SUBSTEPS : 0, right ? SUBSTEPS : 0, fire, 0);
+    }
+
+    /**
+     * @param frame frame encodée
+     * @return fraction de la frame pendant laquelle GAUCHE était appuyée
+     */
+    public static double leftHold(int frame) {
+        return ((frame >>> LEFT_SHIFT) & HOLD_MASK) / (double) SUBSTEPS;
+    }
+
+    /**
+     * @param frame frame encodée
+     * @return fraction de la frame pendant laquelle DROITE était appuyée
+     */
+    public static double rightHold(int frame) {
+        return ((frame >>> RIGHT_SHIFT) & HOLD_MASK) / (double) SUBSTEPS;
+    }
+
+    /**
+     * @param frame frame encodée
+     * @return {@code true} si un tir est demandé
+     */
+    public static boolean fire(int frame) {
+        return (frame & FIRE_BIT) != 0;
+    }
+
+    /**
+     * @param frame frame encodée
+     * @return instant du tir, en fraction de frame depuis son début
+     */
+    public static double fireAt(int frame) {
+        return ((frame >>> FIRE_AT_SHIFT) & FIRE_AT_MASK) / (double) SUBSTEPS;
+    }
+
+    private static int clamp(int hold) {
+        return Math.max(0, Math.min(SUBSTEPS, hold));
+    }
+}
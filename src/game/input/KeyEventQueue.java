@@ -0,0 +1,123 @@
+package game.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File d'événements clavier horodatés, sans verrou.
+ * <p>
+ * Le producteur (le thread AWT qui reçoit les {@code KeyEvent}) ajoute les
+ * appuis et relâchements avec leur instant en nanosecondes, le consommateur
+ * (la boucle de jeu) les lit dans l'ordre. La file est un tampon circulaire
+ * de taille fixe à un seul producteur et un seul consommateur : aucune
+ * allocation ni aucun verrou n'est nécessaire.
+ * </p>
+ * <p>
+ * Si la file est pleine, les nouveaux événements sont ignorés.
+ * </p>
+ */
+public final class KeyEventQueue {
+
+    /** Capacité de la file clavier partagée */
+    private static final int KEYBOARD_CAPACITY = 1024;
+
+    /** File alimentée par le listener clavier de StdDraw */
+    private static final KeyEventQueue KEYBOARD = new KeyEventQueue(KEYBOARD_CAPACITY);
+
+    /** Instants des événements (nanosecondes) */
+    private final long[] times;
+
+    /** Codes des touches, décalés d'un bit ; le bit de poids faible vaut 1 pour un appui */
+    private final int[] keys;
+
+    /** Masque d'indice (capacité - 1) */
+    private final int mask;
+
+    /** Indice du prochain événement à lire (écrit par le consommateur) */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Indice du prochain emplacement libre (écrit par le producteur) */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Construit une file de capacité donnée.
+     *
+     * @param capacity capacité, arrondie à la puissance de deux supérieure
+     */
+    public KeyEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.times = new long[size];
+        this.keys = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return file partagée alimentée par le clavier
+     */
+    public static KeyEventQueue keyboard() {
+        return KEYBOARD;
+    }
+
+    /**
+     * Ajoute un événement en fin de file.
+     * <p>
+     * Ne doit être appelée que depuis un seul thread producteur.
+     * </p>
+     *
+     * @param keyCode   code de la touche
+     * @param pressed   {@code true} pour un appui, {@code false} pour un relâchement
+     * @param timeNanos instant de l'événement ({@link System#nanoTime()})
+     * @return {@code false} si la file est pleine
+     */
+    public boolean offer(int keyCode, boolean pressed, long timeNanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+        int i = (int) (t & mask);
+        times[i] = timeNanos;
+        keys[i] = (keyCode << 1) | (pressed ? 1 : 0);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * @return {@code true} si aucun événement n'est en attente
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * @return instant du premier événement en attente (file non vide)
+     */
+    public long peekTime() {
+        return times[(int) (head.get() & mask)];
+    }
+
+    /**
+     * @return code de touche du premier événement en attente (file non vide)
+     */
+    public int peekKeyCode() {
+        return keys[(int) (head.get() & mask)] >>> 1;
+    }
+
+    /**
+     * @return {@code true} si le premier événement en attente est un appui
+     */
+    public boolean peekPressed() {
+        return (keys[(int) (head.get() & mask)] & 1) != 0;
+    }
+
+    /**
+     * Retire le premier événement en attente.
+     * <p>
+     * Ne doit être appelée que depuis un seul thread consommateur.
+     * </p>
+     */
+    public void poll() {
+        long h = head.get();
+        if (h != tail.get()) {
+            head.lazySet(h + 1);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package game.input;
+
+import game.Game;
+
+/**
+ * Convertit les événements clavier horodatés en frames de commandes.
+ * <p>
+ * À chaque frame, le sampler consomme dans l'ordre les événements de la
+ * {@link KeyEventQueue} survenus depuis l'échantillon précédent et mesure,
+ * pour chaque touche, la durée exacte pendant laquelle elle a été
+ * maintenue. Un appui plus court qu'une frame n'est donc jamais perdu, et
+ * le tir est daté à l'instant réel de l'appui.
+ * </p>
+ */
+public class KeyboardSampler implements PlayerController {
+
+    /** Touche flèche gauche */
+    public static final int KEY_LEFT = 37;
+
+    /** Touche flèche droite */
+    public static final int KEY_RIGHT = 39;
+
+    /** Touche espace (tir) */
+    public static final int KEY_FIRE = 32;
+
+    /** Intervalle maximal couvert par un échantillon (au-delà, la pause est ignorée) */
+    private static final long MAX_INTERVAL_NANOS = 100_000_000L;
+
+    /** File d'événements lue par le sampler */
+    private final KeyEventQueue queue;
+
+    /** État courant des touches */
+    private boolean leftDown, rightDown, fireDown;
+
+    /** Instant du dernier échantillon */
+    private long lastSampleNanos;
+
+    /**
+     * Construit un sampler sur la file clavier partagée.
+     */
+    public KeyboardSampler() {
+        this(KeyEventQueue.keyboard());
+    }
+
+    /**
+     * Construit un sampler sur une file donnée.
+     *
+     * @param queue file d'événements à consommer
+     */
+    public KeyboardSampler(KeyEventQueue queue) {
+        this.queue = queue;
+        this.lastSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * Applique tous les événements en attente sans mesurer de durée.
+     * <p>
+     * À appeler après un écran bloquant (titre, transition) pour repartir
+     * d'un état de touches à jour.
+     * </p>
+     */
+    @Override
+    public void resync() {
+        long now = System.nanoTime();
+        while (!queue.isEmpty() && queue.peekTime() <= now) {
+            apply(queue.peekKeyCode(), queue.peekPressed());
+            queue.poll();
+        }
+        lastSampleNanos = now;
+    }
+
+    @Override
+    public int nextFrame(Game game) {
+        return sample();
+    }
+
+    /**
+     * Calcule la frame de commandes couvrant l'intervalle écoulé depuis
+     * l'échantillon précédent.
+     *
+     * @return frame encodée (voir {@link InputFrame})
+     */
+    public int sample() {
+        return sample(System.nanoTime());
+    }
+
+    /**
+     * Calcule la frame de commandes de l'intervalle se terminant à
+     * {@code nowNanos}.
+     *
+     * @param nowNanos fin de l'intervalle échantillonné
+     * @return frame encodée (voir {@link InputFrame})
+     */
+    public int sample(long nowNanos) {
+        long start = Math.max(lastSampleNanos, nowNanos - MAX_INTERVAL_NANOS);
+        long length = Math.max(1, nowNanos - start);
+
+        // Événements antérieurs à l'intervalle : seul l'état compte
+        while (!queue.isEmpty() && queue.peekTime() < start) {
+            apply(queue.peekKeyCode(), queue.peekPressed());
+            queue.poll();
+        }
+
+        long leftNanos = 0, rightNanos = 0;
+        long fireTime = fireDown ? start : -1;
+        long cursor = start;
+
+        while (!queue.isEmpty() && queue.peekTime() <= nowNanos) {
+            long t = Math.max(start, queue.peekTime());
+            if (leftDown)
+                leftNanos += t - cursor;
+            if (rightDown)
+                rightNanos += t - cursor;
+            cursor = t;
+
+            int key = queue.peekKeyCode();
+            boolean pressed = queue.peekPressed();
+            if (key == KEY_FIRE && pressed && fireTime < 0) {
+                fireTime = t;
+            }
+            apply(key, pressed);
+            queue.poll();
+        }
+
+        if (leftDown)
+            leftNanos += nowNanos - cursor;
+        if (rightDown)
+            rightNanos += nowNanos - cursor;
+
+        lastSampleNanos = nowNanos;
+
+        int fireAt = fireTime < 0 ? 0 : (int) ((fireTime - start) * InputFrame.SUBSTEPS / length);
+        return InputFrame.of(
+                toSubsteps(leftNanos, length),
+                toSubsteps(rightNanos, length),
+                fireTime >= 0,
+                fireAt);
+    }
+
+    /**
+     * Met à jour l'état d'une touche.
+     *
+     * @param key     code de la touche
+     * @param pressed nouvel état
+     */
+    private void apply(int key, boolean pressed) {
+        switch (key) {
+            case KEY_LEFT -> leftDown = pressed;
+            case KEY_RIGHT -> rightDown = pressed;
+            case KEY_FIRE -> fireDown = pressed;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Arrondit une durée en seizièmes d'intervalle, sans jamais perdre un
+     * appui non nul.
+     */
+    private static int toSubsteps(long nanos, long length) {
+        if (nanos <= 0)
+            return 0;
+        return (int) Math.max(1, Math.round((double) nanos * InputFrame.SUBSTEPS / length));
+    }
+}
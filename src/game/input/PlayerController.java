@@ -0,0 +1,29 @@
+package game.input;
+
+import game.Game;
+
+/**
+ * Source des commandes du joueur.
+ * <p>
+ * À chaque frame, la partie demande au contrôleur la frame de commandes à
+ * appliquer (voir {@link InputFrame}). Le clavier ({@link KeyboardSampler})
+ * et le pilote automatique ({@link BotController}) sont interchangeables,
+ * ce qui permet de faire jouer le jeu sans humain, avec ou sans affichage.
+ * </p>
+ */
+public interface PlayerController {
+
+    /**
+     * Calcule les commandes de la prochaine frame.
+     *
+     * @param game partie en cours, dans son état avant la frame
+     * @return frame encodée (voir {@link InputFrame})
+     */
+    int nextFrame(Game game);
+
+    /**
+     * Repart d'un état à jour après une interruption (écran bloquant,
+     * retour en arrière, nouvelle partie).
+     */
+    void resync();
+}
@@ -1,10 +1,11 @@
 package game.level;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import game.actors.Enemy;
+import game.sim.SimContext;
 import game.util.Vector2;
 
 /**
@@ -30,7 +31,7 @@ public class Formation {
     private double formationSpeed = 0.001;
 
     /** Cooldown entre tirs d'ennemis (aléatoire initialement) */
-    private long enemyShootCooldown = new Random().nextInt(700);
+    private long enemyShootCooldown = SimContext.current().nextInt(700);
 
     /** Largeur maximale d'une colonne pour regrouper les ennemis */
     private static final double COLUMN_WIDTH = 0.06;
@@ -77,6 +78,29 @@ public class Formation {
         this.enemyShootCooldown = ms;
     }
 
+    /**
+     * Écrit l'état de la formation (minuteries, vitesse et cooldowns).
+     *
+     * @param out tampon de destination
+     */
+    public void writeState(ByteBuffer out) {
+        out.putLong(lastAttackTime).putLong(lastEnemyShotTime).putDouble(formationSpeed)
+                .putLong(enemyShootCooldown).putLong(attackCooldown);
+    }
+
+    /**
+     * Restaure l'état écrit par {@link #writeState(ByteBuffer)}.
+     *
+     * @param in tampon source
+     */
+    public void readState(ByteBuffer in) {
+        lastAttackTime = in.getLong();
+        lastEnemyShotTime = in.getLong();
+        formationSpeed = in.getDouble();
+        enemyShootCooldown = in.getLong();
+        attackCooldown = in.getLong();
+    }
+
     /* ========================= */
     /* ==== MÉTHODES INTERNES === */
     /* ========================= */
@@ -148,7 +172,7 @@ public class Formation {
      * @return {@code true} si un tir peut être effectué
      */
     public boolean canShoot() {
-        long now = System.currentTimeMillis();
+        long now = SimContext.now();
         return now - lastEnemyShotTime >= enemyShootCooldown;
     }
 
@@ -169,11 +193,10 @@ public class Formation {
         if (bottomEnemies.isEmpty())
             return null;
 
-        Random random = new Random();
-        int index = random.nextInt(bottomEnemies.size());
+        int index = SimContext.current().nextInt(bottomEnemies.size());
         Enemy shooter = bottomEnemies.get(index);
 
-        lastEnemyShotTime = System.currentTimeMillis();
+        lastEnemyShotTime = SimContext.now();
         return shooter;
     }
 
@@ -217,7 +240,7 @@ public class Formation {
      * @param playerPos position du joueur à attaquer
      */
     public void triggerRandomAttack(Vector2 playerPos) {
-        long now = System.currentTimeMillis();
+        long now = SimContext.now();
 
         if (now - lastAttackTime < attackCooldown)
             return;
@@ -239,7 +262,7 @@ public class Formation {
         if (candidates.isEmpty())
             return;
 
-        Enemy attacker = candidates.get(new Random().nextInt(candidates.size()));
+        Enemy attacker = candidates.get(SimContext.current().nextInt(candidates.size()));
         attacker.startAttack(playerPos);
         lastAttackTime = now;
     }
@@ -0,0 +1,203 @@
+package game.level;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+
+import game.actors.Enemy;
+import game.render.FramebufferRenderer;
+import game.render.Renderer;
+
+/**
+ * Image en cache des ennemis au repos dans la formation.
+ * <p>
+ * Les ennemis qui n'attaquent pas se déplacent tous ensemble : leurs
+ * positions relatives ne changent pas d'une frame à l'autre. Ils sont donc
+ * dessinés une fois dans une image, qui est ensuite copiée à chaque frame
+ * à la position de la formation. L'image n'est redessinée que lorsque la
+ * formation change : un ennemi meurt, part à l'attaque, revient, change
+ * d'apparence (capture d'une vie) ou est replacé. Les ennemis en attaque
+ * ou en retour sont dessinés un par un par {@link Level#drawActiveEnemies}.
+ * </p>
+ * <p>
+ * Comme le HUD, l'image est opaque, de la couleur du fond : elle doit être
+ * dessinée avant les joueurs et les missiles.
+ * </p>
+ */
+public class FormationLayer {
+
+    /** Marge autour de la position d'un ennemi (demi-taille du plus grand sprite, avec ses indicateurs) */
+    private static final double MARGIN = 0.05;
+
+    /** Tolérance sur les positions relatives des ennemis */
+    private static final double EPSILON = 1e-9;
+
+    /** Taille de la fenêtre (en pixels) */
+    private final int canvasSize;
+
+    /** Pixels de l'image par pixel de la fenêtre */
+    private final int scale;
+
+    /** Couleur du fond de l'image */
+    private final Color background;
+
+    /** Image de la formation, ou {@code null} avant le premier dessin */
+    private FramebufferRenderer layer;
+
+    /** Ennemis dessinés dans l'image, le premier servant de repère */
+    private Enemy[] members = new Enemy[0];
+
+    /** Nombre d'ennemis dessinés dans l'image */
+    private int count = 0;
+
+    /** Position de chaque ennemi par rapport au repère (x, y) */
+    private double[] offsets = new double[0];
+
+    /** Capture d'une vie de chaque ennemi au moment du dessin */
+    private boolean[] capturing = new boolean[0];
+
+    /** Zone de l'image par rapport au repère */
+    private double left, right, bottom, top;
+
+    /** Nombre de fois où l'image a été redessinée */
+    private long rebuilds = 0;
+
+    /**
+     * Construit une image de formation vide.
+     *
+     * @param canvasSize taille de la fenêtre (en pixels)
+     * @param scale      pixels de l'image par pixel de la fenêtre (2 pour
+     *                   la fenêtre de StdDraw)
+     * @param background couleur du fond de l'écran
+     */
+    public FormationLayer(int canvasSize, int scale, Color background) {
+        this.canvasSize = canvasSize;
+        this.scale = scale;
+        this.background = background;
+    }
+
+    /**
+     * Indique si un ennemi est au repos dans la formation, donc dessiné dans
+     * l'image.
+     *
+     * @param enemy ennemi
+     * @return {@code true} si l'ennemi n'attaque pas et ne revient pas
+     */
+    public static boolean isResident(Enemy enemy) {
+        return !enemy.isAttacking && !enemy.isReturning;
+    }
+
+    /**
+     * Dessine les ennemis au repos, en redessinant l'image si la formation a
+     * changé depuis la frame précédente.
+     *
+     * @param renderer moteur de rendu
+     * @param enemies  ennemis du niveau
+     */
+    public void draw(Renderer renderer, List<Enemy> enemies) {
+        if (!isValid(enemies)) {
+            rebuild(enemies);
+        }
+        if (count == 0) {
+            return;
+        }
+        double x = members[0].getPosition().getX();
+        double y = members[0].getPosition().getY();
+        renderer.picture(layer.getImage(), x + (left + right) / 2, y + (bottom + top) / 2,
+                (right - left) / 2, (top - bottom) / 2);
+    }
+
+    /**
+     * @return nombre de fois où l'image a été redessinée
+     */
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Vérifie que l'image correspond encore aux ennemis au repos : mêmes
+     * ennemis, dans le même ordre, aux mêmes positions relatives et avec la
+     * même apparence.
+     */
+    private boolean isValid(List<Enemy> enemies) {
+        int i = 0;
+        double x = 0, y = 0;
+        for (Enemy e : enemies) {
+            if (!isResident(e)) {
+                continue;
+            }
+            if (i == count || members[i] != e || capturing[i] != e.isCapturingLife()) {
+                return false;
+            }
+            if (i == 0) {
+                x = e.getPosition().getX();
+                y = e.getPosition().getY();
+            } else if (Math.abs(e.getPosition().getX() - x - offsets[2 * i]) > EPSILON
+                    || Math.abs(e.getPosition().getY() - y - offsets[2 * i + 1]) > EPSILON) {
+                return false;
+            }
+            i++;
+        }
+        return i == count;
+    }
+
+    /**
+     * Redessine l'image avec les ennemis actuellement au repos.
+     */
+    private void rebuild(List<Enemy> enemies) {
+        rebuilds++;
+        count = 0;
+        double xmin = Double.MAX_VALUE, xmax = -Double.MAX_VALUE;
+        double ymin = Double.MAX_VALUE, ymax = -Double.MAX_VALUE;
+        for (Enemy e : enemies) {
+            if (!isResident(e)) {
+                continue;
+            }
+            if (count == members.length) {
+                int capacity = Math.max(16, count * 2);
+                members = Arrays.copyOf(members, capacity);
+                offsets = Arrays.copyOf(offsets, 2 * capacity);
+                capturing = Arrays.copyOf(capturing, capacity);
+            }
+            double x = e.getPosition().getX();
+            double y = e.getPosition().getY();
+            members[count] = e;
+            offsets[2 * count] = x - members[0].getPosition().getX();
+            offsets[2 * count + 1] = y - members[0].getPosition().getY();
+            capturing[count] = e.isCapturingLife();
+            xmin = Math.min(xmin, x);
+            xmax = Math.max(xmax, x);
+            ymin = Math.min(ymin, y);
+            ymax = Math.max(ymax, y);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        // zone alignée sur les pixels de la fenêtre, pour une copie sans
+        // rééchantillonnage
+        int x0 = (int) Math.floor((xmin - MARGIN) * canvasSize);
+        int x1 = (int) Math.ceil((xmax + MARGIN) * canvasSize);
+        int y0 = (int) Math.floor((ymin - MARGIN) * canvasSize);
+        int y1 = (int) Math.ceil((ymax + MARGIN) * canvasSize);
+        int width = (x1 - x0) * scale;
+        int height = (y1 - y0) * scale;
+        if (layer == null || layer.getWidth() != width || layer.getHeight() != height) {
+            layer = new FramebufferRenderer(width, height, true);
+        }
+        double originX = members[0].getPosition().getX();
+        double originY = members[0].getPosition().getY();
+        left = (double) x0 / canvasSize - originX;
+        right = (double) x1 / canvasSize - originX;
+        bottom = (double) y0 / canvasSize - originY;
+        top = (double) y1 / canvasSize - originY;
+
+        layer.setView((double) x0 / canvasSize, (double) x1 / canvasSize,
+                (double) y0 / canvasSize, (double) y1 / canvasSize);
+        layer.clear(background);
+        for (int i = 0; i < count; i++) {
+            members[i].draw(layer);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package game.level;
+
+/**
+ * Cause d'une perte de vie du joueur.
+ */
+public enum HitCause {
+    /** Touché par un missile ennemi */
+    MISSILE,
+
+    /** Percuté par un ennemi (l'ennemi est détruit) */
+    COLLISION,
+
+    /** Vie capturée par un Moth */
+    CAPTURE
+}
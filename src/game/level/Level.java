@@ -1,28 +1,61 @@
 package game.level;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import game.actors.*;
+import game.render.Renderer;
+import game.sim.SimContext;
+import game.telemetry.Telemetry;
+import game.telemetry.TelemetryEvent;
 
 /**
  * Représente un niveau du jeu.
  * <p>
- * Un Level contient le joueur, les ennemis et leur formation.
+ * Un Level contient le ou les joueurs, les ennemis et leur formation.
  * Il gère les collisions, la mise à jour et le dessin des ennemis,
  * ainsi que le score et la réinitialisation de la formation.
  * </p>
+ * <p>
+ * En coopération, chaque joueur est touché et marque des points pour
+ * l'équipe indépendamment des autres ; les attaques de la formation
+ * visent à tour de rôle les joueurs encore en jeu.
+ * </p>
  */
 public class Level {
 
     /** Liste des ennemis présents dans le niveau */
     private List<Enemy> enemies;
 
-    /** Joueur du niveau */
-    private Player player;
+    /** Joueurs du niveau (le premier est le joueur principal) */
+    private final List<Player> players = new ArrayList<>();
 
     /** Formation des ennemis */
     private Formation formation;
 
+    /** Observateur des pertes de vie du joueur, ou {@code null} */
+    private HitListener hitListener;
+
+    /** Télémétrie de la partie, ou {@code null} */
+    private Telemetry telemetry;
+
+    /** Session de télémétrie de la partie */
+    private int telemetrySession;
+
+    /**
+     * Observateur des pertes de vie du joueur.
+     */
+    public interface HitListener {
+
+        /**
+         * Appelé chaque fois que le joueur perd une vie.
+         *
+         * @param cause cause de la perte de vie
+         * @param enemy ennemi responsable
+         */
+        void onPlayerHit(HitCause cause, Enemy enemy);
+    }
+
     /**
      * Construit un niveau avec un nom, une liste d'ennemis et un joueur.
      *
@@ -32,10 +65,26 @@ public class Level {
      */
     public Level(String name, List<Enemy> enemies, Player player) {
         this.enemies = enemies;
-        this.player = player;
+        this.players.add(player);
         this.formation = new Formation(enemies);
     }
 
+    /**
+     * Ajoute un joueur au niveau (partie en coopération).
+     *
+     * @param player joueur supplémentaire
+     */
+    public void addPlayer(Player player) {
+        players.add(player);
+    }
+
+    /**
+     * @return joueurs du niveau, le joueur principal en premier
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
     /**
      * @return formation des ennemis
      */
@@ -43,6 +92,27 @@ public class Level {
         return formation;
     }
 
+    /**
+     * Définit l'observateur des pertes de vie du joueur.
+     *
+     * @param listener observateur, ou {@code null} pour aucun
+     */
+    public void setHitListener(HitListener listener) {
+        this.hitListener = listener;
+    }
+
+    /**
+     * Active l'émission des événements de jeu (tirs, touches, ennemis
+     * détruits, vies perdues) vers une télémétrie.
+     *
+     * @param telemetry télémétrie, ou {@code null} pour aucune
+     * @param session   session de la partie
+     */
+    public void setTelemetry(Telemetry telemetry, int session) {
+        this.telemetry = telemetry;
+        this.telemetrySession = session;
+    }
+
     /**
      * @return liste des ennemis
      */
@@ -51,7 +121,49 @@ public class Level {
     }
 
     /**
-     * Gère toutes les collisions dans le niveau.
+     * Écrit l'état du niveau : ennemis restants (identifiant et état
+     * complet) et formation.
+     *
+     * @param out tampon de destination
+     */
+    public void writeState(ByteBuffer out) {
+        out.putInt(enemies.size());
+        for (Enemy e : enemies) {
+            out.putInt(e.getId());
+            e.writeState(out);
+        }
+        formation.writeState(out);
+    }
+
+    /**
+     * Restaure l'état écrit par {@link #writeState(ByteBuffer)}.
+     * <p>
+     * Le niveau doit venir d'être chargé depuis son fichier : les ennemis
+     * restants sont retrouvés par leur identifiant, les autres sont retirés.
+     * </p>
+     *
+     * @param in tampon source
+     * @throws IllegalArgumentException si un identifiant est inconnu
+     */
+    public void readState(ByteBuffer in) {
+        Enemy[] spawned = enemies.toArray(new Enemy[0]);
+        int count = in.getInt();
+        List<Enemy> restored = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = in.getInt();
+            if (id < 0 || id >= spawned.length || spawned[id].getId() != id)
+                throw new IllegalArgumentException("Ennemi inconnu : " + id);
+            spawned[id].readState(in);
+            restored.add(spawned[id]);
+        }
+        // la liste est partagée avec les formations : la modifier sur place
+        enemies.clear();
+        enemies.addAll(restored);
+        formation.readState(in);
+    }
+
+    /**
+     * Gère toutes les collisions dans le niveau, pour chaque joueur.
      * <p>
      * - Missiles du joueur sur ennemis : inflige des dégâts et récupère la vie si
      * applicable
@@ -68,6 +180,21 @@ public class Level {
      * en même temps que je me perdais avec trop d'idée.
      */
     public void handleCollisions() {
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            int shots = player.takeShotsFired();
+            if (shots > 0) {
+                emit(TelemetryEvent.SHOTS, i, shots);
+            }
+            handleCollisions(player);
+        }
+    }
+
+    /**
+     * Gère les collisions d'un joueur. Un joueur éliminé ou en train de
+     * réapparaître ne peut pas être touché.
+     */
+    private void handleCollisions(Player player) {
         // Missiles du joueur sur ennemis
         for (Missile m : new ArrayList<>(player.getMissiles())) {
             for (Enemy e : enemies) {
@@ -77,18 +204,24 @@ public class Level {
                         e.setCapturingLife(false);
                     }
                     e.takeDamage(player.getAttack());
+                    emit(TelemetryEvent.HIT, e.getType().ordinal(), player.getAttack());
                     player.removeMissile(m);
                     break;
                 }
             }
         }
 
+        if (!player.isAlive()) {
+            return;
+        }
+
         // Missiles ennemis sur joueur
         if (!player.isInvincible()) {
             for (Enemy e : enemies) {
                 for (Missile m : new ArrayList<>(e.getMissiles())) {
                     if (m.collidesWith(player)) {
                         player.loseLife();
+                        notifyHit(HitCause.MISSILE, e);
                         player.getMissiles().clear();
                         resetEnemies();
                         e.removeMissile(m);
@@ -105,12 +238,14 @@ public class Level {
                     if (e.getClass().getSimpleName().equals("Moth")) {
                         if (!e.isCapturingLife()) {
                             player.loseLife();
+                            notifyHit(HitCause.CAPTURE, e);
                             player.getMissiles().clear();
                             resetEnemies();
                             e.setCapturingLife(true);
                         }
                     } else {
                         player.loseLife();
+                        notifyHit(HitCause.COLLISION, e);
                         player.getMissiles().clear();
                         resetEnemies();
                         e.takeDamage(e.getHealth());
@@ -120,6 +255,25 @@ public class Level {
         }
     }
 
+    /**
+     * Prévient l'observateur d'une perte de vie du joueur.
+     */
+    private void notifyHit(HitCause cause, Enemy enemy) {
+        emit(TelemetryEvent.DEATH, cause.ordinal(), enemy.getType().ordinal());
+        if (hitListener != null) {
+            hitListener.onPlayerHit(cause, enemy);
+        }
+    }
+
+    /**
+     * Émet un événement de télémétrie si elle est active.
+     */
+    private void emit(int type, int arg, int value) {
+        if (telemetry != null) {
+            telemetry.emit(telemetrySession, SimContext.current().getTick(), type, arg, value);
+        }
+    }
+
     /**
      * Supprime les ennemis morts et calcule le score obtenu.
      *
@@ -131,6 +285,7 @@ public class Level {
         for (Enemy e : enemies) {
             if (!e.isAlive()) {
                 gained += e.getValue();
+                emit(TelemetryEvent.KILL, e.getType().ordinal(), e.getValue());
                 toRemove.add(e);
             }
         }
@@ -165,7 +320,7 @@ public class Level {
             e.update();
         }
 
-        formation.triggerRandomAttack(player.getPosition());
+        formation.triggerRandomAttack(attackTarget().getPosition());
         formation.updateDeplacement();
 
         for (Enemy e : enemies) {
@@ -179,13 +334,69 @@ public class Level {
             shooter.shoot();
     }
 
+    /**
+     * Choisit le joueur visé par la prochaine attaque : les joueurs encore
+     * en jeu à tour de rôle selon la frame, sans tirage aléatoire (une
+     * partie à un joueur tire exactement les mêmes nombres qu'avant).
+     */
+    private Player attackTarget() {
+        if (players.size() == 1) {
+            return players.get(0);
+        }
+        int active = 0;
+        for (Player p : players) {
+            if (p.isAlive()) {
+                active++;
+            }
+        }
+        if (active == 0) {
+            return players.get(0);
+        }
+        int pick = (int) (SimContext.current().getTick() % active);
+        for (Player p : players) {
+            if (p.isAlive() && pick-- == 0) {
+                return p;
+            }
+        }
+        return players.get(0);
+    }
+
     /**
      * Dessine tous les ennemis et leurs missiles à l'écran.
+     *
+     * @param renderer moteur de rendu
      */
-    public void drawEnemies() {
+    public void drawEnemies(Renderer renderer) {
         for (Enemy e : enemies) {
-            e.draw();
-            e.drawMissiles();
+            e.draw(renderer);
+            e.drawMissiles(renderer);
+        }
+    }
+
+    /**
+     * Dessine les ennemis au repos dans la formation, d'une seule copie
+     * d'image.
+     *
+     * @param renderer moteur de rendu
+     * @param layer    image de la formation
+     */
+    public void drawFormation(Renderer renderer, FormationLayer layer) {
+        layer.draw(renderer, enemies);
+    }
+
+    /**
+     * Dessine les ennemis en attaque ou en retour et les missiles de tous
+     * les ennemis ; les ennemis au repos sont dessinés par
+     * {@link #drawFormation}.
+     *
+     * @param renderer moteur de rendu
+     */
+    public void drawActiveEnemies(Renderer renderer) {
+        for (Enemy e : enemies) {
+            if (!FormationLayer.isResident(e)) {
+                e.draw(renderer);
+            }
+            e.drawMissiles(renderer);
         }
     }
 }
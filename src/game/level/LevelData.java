@@ -0,0 +1,84 @@
+package game.level;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classe représentant le contenu d'un fichier de niveau.
+ * <p>
+ * Contient les paramètres de la formation lus sur la première ligne
+ * et les données de chaque ennemi. Un LevelData est immuable : il peut
+ * être lu une seule fois puis réutilisé pour construire autant de
+ * {@link Level} que nécessaire.
+ * </p>
+ */
+public class LevelData {
+
+    /** Nom du niveau */
+    private final String name;
+
+    /** Vitesse de déplacement horizontal de la formation */
+    private final double formationSpeed;
+
+    /** Cooldown entre deux attaques (en millisecondes, Long.MAX_VALUE si désactivé) */
+    private final long attackCooldown;
+
+    /** Cooldown entre tirs d'ennemis (en millisecondes) */
+    private final long enemyShootCooldown;
+
+    /** Données des ennemis, dans l'ordre du fichier */
+    private final List<EnemyData> enemies;
+
+    /**
+     * Construit les données d'un niveau.
+     *
+     * @param name               nom du niveau
+     * @param formationSpeed     vitesse horizontale de la formation
+     * @param attackCooldown     cooldown entre deux attaques (ms)
+     * @param enemyShootCooldown cooldown entre tirs d'ennemis (ms)
+     * @param enemies            données des ennemis
+     */
+    public LevelData(String name, double formationSpeed, long attackCooldown, long enemyShootCooldown,
+            List<EnemyData> enemies) {
+        this.name = name;
+        this.formationSpeed = formationSpeed;
+        this.attackCooldown = attackCooldown;
+        this.enemyShootCooldown = enemyShootCooldown;
+        this.enemies = Collections.unmodifiableList(enemies);
+    }
+
+    /**
+     * @return nom du niveau
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return vitesse horizontale de la formation
+     */
+    public double getFormationSpeed() {
+        return formationSpeed;
+    }
+
+    /**
+     * @return cooldown entre deux attaques (en millisecondes)
+     */
+    public long getAttackCooldown() {
+        return attackCooldown;
+    }
+
+    /**
+     * @return cooldown entre tirs d'ennemis (en millisecondes)
+     */
+    public long getEnemyShootCooldown() {
+        return enemyShootCooldown;
+    }
+
+    /**
+     * @return données des ennemis (liste non modifiable)
+     */
+    public List<EnemyData> getEnemies() {
+        return enemies;
+    }
+}
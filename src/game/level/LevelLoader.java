@@ -1,10 +1,16 @@
 package game.level;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import game.actors.Enemy;
 import game.actors.Player;
@@ -25,14 +31,20 @@ import game.util.Vector2;
  * Les lignes vides ou commençant par '#' sont ignorées.
  * Chaque ligne d'ennemi décrit un ennemi à instancier dans le niveau.
  * </p>
+ * <p>
+ * Chaque fichier n'est lu qu'une fois : son contenu ({@link LevelData})
+ * est gardé en mémoire et réutilisé pour les chargements suivants.
+ * </p>
  */
 public class LevelLoader {
 
+    /** Contenu des fichiers de niveau déjà lus, par nom de fichier */
+    private static final Map<String, LevelData> CACHE = new ConcurrentHashMap<>();
+
     /**
      * Charge un niveau à partir d'un fichier et l'associe à un joueur.
      * <p>
-     * Lit le fichier, extrait les paramètres de formation et crée
-     * tous les ennemis via {@link EnemyFactory}.
+     * Le fichier n'est lu que lors du premier chargement.
      * </p>
      *
      * @param levelFileName nom du fichier de niveau (ex: "level1.lvl")
@@ -40,6 +52,62 @@ public class LevelLoader {
      * @return instance du {@link Level} correspondant
      * @throws IOException si le fichier est introuvable ou non lisible
      */
+    public static Level loadLevel(String levelFileName, Player player) throws IOException {
+        LevelData data = CACHE.get(levelFileName);
+        if (data == null) {
+            data = readLevelData(levelFileName);
+            CACHE.put(levelFileName, data);
+        }
+        return buildLevel(data, player);
+    }
+
+    /**
+     * Crée un niveau à partir de son contenu.
+     * <p>
+     * Crée la formation avec ses paramètres et tous les ennemis via
+     * {@link EnemyFactory}, numérotés dans l'ordre des données.
+     * </p>
+     *
+     * @param data   contenu du niveau
+     * @param player joueur associé au niveau
+     * @return nouveau niveau
+     */
+    public static Level buildLevel(LevelData data, Player player) {
+        // Création des ennemis et de la formation
+        List<Enemy> enemies = new ArrayList<>();
+        Formation formation = new Formation(enemies);
+        formation.setFormationSpeed(data.getFormationSpeed());
+        formation.setAttackCooldown(data.getAttackCooldown());
+        formation.setEnemyShootCooldown(data.getEnemyShootCooldown());
+
+        EnemyFactory factory = new EnemyFactory(formation);
+        for (EnemyData enemyData : data.getEnemies()) {
+            Enemy enemy = factory.createEnemy(enemyData);
+            enemy.setId(enemies.size());
+            enemies.add(enemy);
+        }
+
+        Level level = new Level(data.getName(), enemies, player);
+
+        // Synchroniser les paramètres de la formation dans le Level
+        level.getFormation().setFormationSpeed(data.getFormationSpeed());
+        level.getFormation().setAttackCooldown(data.getAttackCooldown());
+        level.getFormation().setEnemyShootCooldown(data.getEnemyShootCooldown());
+
+        return level;
+    }
+
+    /**
+     * Lit le contenu d'un fichier de niveau.
+     * <p>
+     * Lit le fichier, extrait les paramètres de formation et les
+     * données de tous les ennemis.
+     * </p>
+     *
+     * @param levelFileName nom du fichier de niveau (ex: "level1.lvl")
+     * @return contenu du niveau
+     * @throws IOException si le fichier est introuvable ou non lisible
+     */
 
     /*
      * @IAGENERATIVE
@@ -50,7 +118,7 @@ public class LevelLoader {
      * Cette méthode, et seulement celle-ci à été réaliser en majeur-partie par
      * L'IA.
      */
-    public static Level loadLevel(String levelFileName, Player player) throws IOException {
+    public static LevelData readLevelData(String levelFileName) throws IOException {
         String filePath = "ressources/levels/" + levelFileName;
 
         List<EnemyData> enemyDataList = new ArrayList<>();
@@ -133,25 +201,47 @@ public class LevelLoader {
             // ignore, valeurs par défaut déjà appliquées
         }
 
-        // Création des ennemis et de la formation
-        List<Enemy> enemies = new ArrayList<>();
-        Formation formation = new Formation(enemies);
-        formation.setFormationSpeed(formationSpeed);
-        formation.setAttackCooldown(attackCooldown);
-        formation.setEnemyShootCooldown(enemyShootCooldown);
+        return new LevelData(levelName, formationSpeed, attackCooldown, enemyShootCooldown, enemyDataList);
+    }
 
-        EnemyFactory factory = new EnemyFactory(formation);
-        for (EnemyData data : enemyDataList) {
-            enemies.add(factory.createEnemy(data));
+    /**
+     * Écrit le contenu d'un niveau dans un fichier au format .lvl.
+     * <p>
+     * Crée les répertoires nécessaires si ils n'existent pas.
+     * </p>
+     *
+     * @param data contenu du niveau
+     * @param path chemin du fichier
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public static void writeLevelData(LevelData data, String path) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
         }
 
-        Level level = new Level(levelName, enemies, player);
-
-        // Synchroniser les paramètres de la formation dans le Level
-        level.getFormation().setFormationSpeed(formationSpeed);
-        level.getFormation().setAttackCooldown(attackCooldown);
-        level.getFormation().setEnemyShootCooldown(enemyShootCooldown);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            long attackCooldown = data.getAttackCooldown() == Long.MAX_VALUE ? -1 : data.getAttackCooldown();
+            writer.println(data.getName() + " " + format(data.getFormationSpeed()) + " "
+                    + attackCooldown + " " + data.getEnemyShootCooldown());
+            for (EnemyData enemy : data.getEnemies()) {
+                String type = enemy.getType().name();
+                writer.println(type.charAt(0) + type.substring(1).toLowerCase() + " "
+                        + format(enemy.getPosition().getX()) + " "
+                        + format(enemy.getPosition().getY()) + " "
+                        + format(enemy.getLength()) + " "
+                        + format(enemy.getValue()) + " "
+                        + format(enemy.getSpeed()));
+            }
+        }
+    }
 
-        return level;
+    /**
+     * Formate un nombre sans zéros inutiles (ex: 300, 0.0005).
+     */
+    private static String format(double value) {
+        String text = String.format(Locale.ROOT, "%.6f", value);
+        text = text.replaceAll("0+$", "");
+        return text.endsWith(".") ? text.substring(0, text.length() - 1) : text;
     }
 }
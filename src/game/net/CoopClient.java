@@ -0,0 +1,451 @@
+package game.net;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import game.Game;
+import game.actors.Player;
+import game.input.BotController;
+import game.input.InputFrame;
+import game.input.KeyboardSampler;
+import game.input.PlayerController;
+import game.render.Renderer;
+import game.render.StdDrawRenderer;
+import game.replay.StateHasher;
+import game.sim.SimContext;
+import game.state.SnapshotCodec;
+import game.state.StateDelta;
+import game.util.StdDraw;
+
+/**
+ * Client de coopération en réseau : prédit localement la partie simulée
+ * par un {@link CoopServer}.
+ * <p>
+ * Le client joue avec une avance fixe de {@code leadTicks} frames sur le
+ * dernier état reçu. Cet état ayant mis une latence à arriver, et les
+ * commandes devant mettre une latence à repartir, l'avance doit couvrir
+ * l'aller-retour pour que les commandes arrivent au serveur avant qu'il
+ * ne simule les frames correspondantes : sinon le serveur répète la
+ * commande précédente du joueur, et la prédiction est corrigée. Les commandes de
+ * chaque frame prédite sont conservées. À chaque nouvel état du serveur
+ * (frame {@code S}), le client le restaure puis resimule les frames
+ * {@code S+1} jusqu'à la frame prédite avec ses propres commandes ; les
+ * autres joueurs sont supposés garder les commandes que le serveur leur a
+ * appliquées en dernier. La simulation étant déterministe, la prédiction
+ * ne se trompe que lorsque les autres joueurs changent de commande ou
+ * lorsqu'une commande du client est arrivée trop tard.
+ * </p>
+ * <p>
+ * Un client n'est pas thread-safe : {@link #tick()} est appelé à chaque
+ * frame par la boucle qui le possède.
+ * </p>
+ */
+public class CoopClient implements AutoCloseable {
+
+    /** Fenêtre de commandes et de prédictions conservées (en frames) */
+    private static final int WINDOW = 128;
+
+    /** Intervalle entre deux demandes d'entrée dans la partie (en frames) */
+    private static final int HELLO_INTERVAL = 10;
+
+    /** Taille maximale d'un état décompressé (en octets) */
+    private static final int MAX_STATE = 64 * 1024;
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress server;
+    private final LossyLink link;
+    private final IntFunction<PlayerController> controllers;
+    private final int leadTicks;
+
+    /** Partie prédite */
+    private final Game game = Game.headless();
+    private PlayerController controller;
+
+    /** Place attribuée par le serveur, -1 avant l'entrée dans la partie */
+    private int slot = -1;
+
+    /** États reçus, indexés par frame modulo {@link CoopServer#HISTORY} */
+    private final byte[][] states = new byte[CoopServer.HISTORY][];
+    private final int[] stateLengths = new int[CoopServer.HISTORY];
+    private final long[] stateTicks = new long[CoopServer.HISTORY];
+
+    /** Dernier état reçu, et dernier état restauré dans la partie prédite */
+    private long serverTick = -1;
+    private long appliedTick = -1;
+
+    /** Dernière frame de commandes confirmée par le serveur */
+    private long inputAck = -1;
+
+    /** Frame prédite courante, -1 avant le premier état */
+    private long predictedTick = -1;
+
+    /** Commandes du joueur, et empreinte prédite de son vaisseau, par frame */
+    private final int[] inputs = new int[WINDOW];
+    private final long[] predictions = new long[WINDOW];
+    private final long[] predictionTicks = new long[WINDOW];
+
+    private final ByteBuffer packet = ByteBuffer.allocate(CoopServer.MAX_DATAGRAM);
+    private final ByteBuffer in = ByteBuffer.allocate(CoopServer.MAX_DATAGRAM);
+    private byte[] scratch = new byte[16 * 1024];
+    private byte[] raw = new byte[16 * 1024];
+    private final Inflater inflater = new Inflater();
+    private int[] frames = new int[0];
+
+    /** Statistiques */
+    private long calls, received, receivedBytes, corrections, resimulated;
+
+    /**
+     * Construit un client.
+     *
+     * @param server      adresse du serveur
+     * @param controllers fabrique du contrôleur du joueur, appelée avec la
+     *                    place attribuée par le serveur
+     * @param leadTicks   avance de la prédiction sur le dernier état reçu
+     *                    (en frames), au moins l'aller-retour
+     * @param link        réseau (simulé ou parfait) utilisé pour les envois
+     * @throws IOException si le canal ne peut pas être ouvert
+     */
+    public CoopClient(InetSocketAddress server, IntFunction<PlayerController> controllers, int leadTicks,
+            LossyLink link) throws IOException {
+        if (leadTicks < 1 || leadTicks >= WINDOW - CoopServer.MAX_REDUNDANCY)
+            throw new IllegalArgumentException("Avance invalide : " + leadTicks);
+        this.server = server;
+        this.controllers = controllers;
+        this.leadTicks = leadTicks;
+        this.link = link;
+        Arrays.fill(stateTicks, -1);
+        Arrays.fill(predictionTicks, -1);
+
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(server.getAddress().isLoopbackAddress()
+                ? server.getAddress() : null, 0));
+        // seuls les datagrammes du serveur sont reçus
+        channel.connect(server);
+        channel.configureBlocking(false);
+    }
+
+    /**
+     * Avance le client d'une frame : réception des états, réconciliation,
+     * prédiction de la frame suivante et envoi des commandes.
+     *
+     * @throws IOException en cas d'erreur réseau
+     */
+    public void tick() throws IOException {
+        calls++;
+        link.flush(channel);
+        try {
+            while (channel.receive(in.clear()) != null) {
+                handle(in.flip());
+            }
+        } catch (PortUnreachableException e) {
+            // serveur pas encore démarré (canal connecté) : réessayer plus tard
+        }
+
+        if (slot < 0) {
+            if (calls % HELLO_INTERVAL == 1) {
+                packet.clear();
+                packet.put(CoopServer.HELLO).flip();
+                link.send(channel, packet, server);
+            }
+            return;
+        }
+        if (serverTick < 0) {
+            return;
+        }
+        if (serverTick > appliedTick) {
+            reconcile();
+        }
+        if (predictedTick < serverTick + 2 * leadTicks && game.isSessionRunning()) {
+            // au-delà, le serveur est en retard : attendre plutôt que de trop prédire
+            predict(controller.nextFrame(game));
+        }
+        sendInputs();
+    }
+
+    /**
+     * Traite un datagramme reçu. Les messages invalides sont ignorés.
+     */
+    private void handle(ByteBuffer in) {
+        received++;
+        receivedBytes += in.remaining();
+        try {
+            byte type = in.get();
+            if (type == CoopServer.WELCOME && slot < 0) {
+                slot = in.get();
+                controller = controllers.apply(slot);
+            } else if (type == CoopServer.SNAPSHOT) {
+                receiveSnapshot(in);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                | DataFormatException e) {
+            // datagramme tronqué ou invalide
+        }
+    }
+
+    /**
+     * Reconstruit et conserve un état reçu s'il est plus récent que le
+     * dernier.
+     */
+    private void receiveSnapshot(ByteBuffer in) throws DataFormatException {
+        long tick = in.getLong();
+        long base = in.getLong();
+        long ack = in.getLong();
+        int length = in.getInt();
+        if (tick <= serverTick) {
+            return; // doublon ou arrivé dans le désordre
+        }
+        if (length < 0 || length > MAX_STATE)
+            throw new IllegalArgumentException("Taille d'état invalide : " + length);
+
+        if (raw.length < length) {
+            raw = new byte[length];
+        }
+        inflater.reset();
+        inflater.setInput(in.array(), in.position(), in.remaining());
+        if (inflater.inflate(raw, 0, length) != length)
+            throw new IllegalArgumentException("État tronqué");
+
+        int index = (int) (tick % CoopServer.HISTORY);
+        if (base < 0) {
+            store(index, raw, length);
+        } else {
+            int baseIndex = (int) (base % CoopServer.HISTORY);
+            if (stateTicks[baseIndex] != base) {
+                return; // référence oubliée : attendre un état complet
+            }
+            int stateLength = StateDelta.decodedLength(raw);
+            if (stateLength < 0 || stateLength > MAX_STATE)
+                throw new IllegalArgumentException("Taille d'état invalide : " + stateLength);
+            if (scratch.length < stateLength) {
+                scratch = new byte[stateLength];
+            }
+            StateDelta.decode(raw, length, states[baseIndex], stateLengths[baseIndex], scratch);
+            store(index, scratch, stateLength);
+        }
+        stateTicks[index] = tick;
+        serverTick = tick;
+        inputAck = Math.max(inputAck, ack);
+    }
+
+    private void store(int index, byte[] state, int length) {
+        if (states[index] == null || states[index].length < length) {
+            states[index] = new byte[length];
+        }
+        System.arraycopy(state, 0, states[index], 0, length);
+        stateLengths[index] = length;
+    }
+
+    /**
+     * Restaure le dernier état du serveur et rejoue les frames prédites
+     * depuis.
+     */
+    private void reconcile() {
+        int index = (int) (serverTick % CoopServer.HISTORY);
+        SnapshotCodec.decode(ByteBuffer.wrap(states[index], 0, stateLengths[index]), game);
+        appliedTick = serverTick;
+
+        int predicted = (int) (serverTick % WINDOW);
+        if (predictionTicks[predicted] == serverTick && predictions[predicted] != shipHash()) {
+            corrections++;
+        }
+
+        if (predictedTick < serverTick) {
+            // première frame, ou client en retard : repartir avec l'avance voulue
+            predictedTick = serverTick;
+            for (int i = 0; i < leadTicks && game.isSessionRunning(); i++) {
+                predict(InputFrame.NONE);
+            }
+            return;
+        }
+        for (long t = serverTick + 1; t <= predictedTick && game.isSessionRunning(); t++) {
+            simulate(inputs[(int) (t % WINDOW)]);
+            predictions[(int) (t % WINDOW)] = shipHash();
+            resimulated++;
+        }
+    }
+
+    /**
+     * Prédit la frame suivante avec une commande du joueur.
+     */
+    private void predict(int frame) {
+        long t = predictedTick + 1;
+        inputs[(int) (t % WINDOW)] = frame;
+        simulate(frame);
+        predictedTick = t;
+        predictions[(int) (t % WINDOW)] = shipHash();
+        predictionTicks[(int) (t % WINDOW)] = t;
+    }
+
+    /**
+     * Simule une frame de la partie prédite : le joueur applique sa
+     * commande, les autres répètent leur dernière commande connue.
+     */
+    private void simulate(int frame) {
+        List<Player> players = game.getPlayers();
+        if (frames.length != players.size()) {
+            frames = new int[players.size()];
+        }
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = i == slot ? frame : players.get(i).getInput();
+        }
+        game.step(frames);
+    }
+
+    /**
+     * @return empreinte du vaisseau du joueur (position, vies, missiles)
+     */
+    private long shipHash() {
+        Player player = game.getPlayers().get(slot);
+        StateHasher hasher = new StateHasher();
+        hasher.add(player.getPosition().getX()).add(player.getPosition().getY())
+                .add(player.getLives()).add(player.isAlive()).add(player.getMissiles().size());
+        return hasher.finish();
+    }
+
+    /**
+     * Envoie les commandes que le serveur n'a pas encore confirmées.
+     */
+    private void sendInputs() throws IOException {
+        if (predictedTick < 0) {
+            return;
+        }
+        long first = Math.max(inputAck + 1, predictedTick - CoopServer.MAX_REDUNDANCY + 1);
+        int count = (int) Math.max(0, predictedTick - first + 1);
+        packet.clear();
+        packet.put(CoopServer.INPUT).put((byte) slot).putLong(serverTick).putLong(predictedTick).put((byte) count);
+        for (long t = first; t <= predictedTick; t++) {
+            packet.putInt(inputs[(int) (t % WINDOW)]);
+        }
+        link.send(channel, packet.flip(), server);
+    }
+
+    /**
+     * @return partie prédite (à dessiner)
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * @return place attribuée par le serveur, -1 avant l'entrée dans la partie
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return dernière frame reçue du serveur, -1 si aucune
+     */
+    public long getServerTick() {
+        return serverTick;
+    }
+
+    /**
+     * @return frame prédite courante
+     */
+    public long getPredictedTick() {
+        return predictedTick;
+    }
+
+    /**
+     * @return nombre de prédictions du vaisseau du joueur démenties par le
+     *         serveur
+     */
+    public long getCorrections() {
+        return corrections;
+    }
+
+    /**
+     * @return nombre de frames resimulées lors des réconciliations
+     */
+    public long getResimulated() {
+        return resimulated;
+    }
+
+    /**
+     * @return nombre de datagrammes reçus
+     */
+    public long getReceived() {
+        return received;
+    }
+
+    /**
+     * @return nombre d'octets reçus
+     */
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    /**
+     * @return réseau utilisé pour les envois (statistiques d'envoi)
+     */
+    public LossyLink getLink() {
+        return link;
+    }
+
+    /**
+     * Rejoint une partie en coopération et l'affiche jusqu'à sa fin.
+     *
+     * @param host      adresse du serveur
+     * @param port      port du serveur
+     * @param bot       {@code true} pour jouer avec le pilote automatique
+     *                  plutôt qu'au clavier
+     * @param leadTicks avance de la prédiction (en frames)
+     * @throws IOException en cas d'erreur réseau
+     */
+    public static void play(String host, int port, boolean bot, int leadTicks) throws IOException {
+        IntFunction<PlayerController> controllers = bot ? BotController::new : slot -> new KeyboardSampler();
+        try (CoopClient client = new CoopClient(new InetSocketAddress(host, port), controllers, leadTicks,
+                new LossyLink())) {
+            StdDraw.setCanvasSize(700, 700);
+            StdDraw.enableDoubleBuffering();
+            Renderer renderer = new StdDrawRenderer();
+            // cadence absolue, comme le serveur : une pause fixe après le
+            // dessin ferait prendre du retard au client et fondre son avance
+            long tickNanos = SimContext.DEFAULT_TICK_MILLIS * 1_000_000L;
+            long deadline = System.nanoTime();
+            while (client.getServerTick() < 0 || client.getGame().isSessionRunning()) {
+                long wait = deadline - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (wait < -tickNanos) {
+                    // trop de retard : repartir de maintenant plutôt que d'enchaîner les frames
+                    deadline = System.nanoTime();
+                }
+                deadline += tickNanos;
+
+                client.tick();
+                renderer.clear(Color.BLACK);
+                if (client.getServerTick() >= 0) {
+                    client.getGame().draw(renderer);
+                }
+                renderer.show();
+            }
+        }
+    }
+
+    /**
+     * Ferme le client.
+     */
+    @Override
+    public void close() {
+        try {
+            inflater.end();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture du client de coopération");
+            e.printStackTrace();
+        }
+    }
+}
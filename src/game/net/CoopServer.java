@@ -0,0 +1,450 @@
+package game.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import game.Game;
+import game.input.InputFrame;
+import game.state.SnapshotCodec;
+import game.state.StateDelta;
+
+/**
+ * Serveur de coopération en réseau local (UDP) : seul le serveur simule la
+ * partie, les clients ne font que prédire.
+ * <p>
+ * Les joueurs rejoignent la partie par un message {@link #HELLO} ; la
+ * partie démarre lorsque toutes les places sont prises. À chaque frame,
+ * le serveur applique les commandes reçues pour cette frame (ou, si elles
+ * ne sont pas encore arrivées, les dernières commandes connues du joueur),
+ * puis envoie à chaque client l'état complet de la partie sous forme de
+ * différence (voir {@link StateDelta}) avec la dernière frame que ce
+ * client a confirmé avoir reçue, compressée par {@link Deflater} : environ
+ * 500 octets par frame pour deux joueurs, au lieu de près de 3 Ko pour la
+ * sauvegarde brute. Sans confirmation exploitable, la sauvegarde complète
+ * (compressée elle aussi) est envoyée.
+ * </p>
+ * <p>
+ * Chaque message de commandes d'un client répète toutes les commandes
+ * que le serveur n'a pas encore confirmées (au plus
+ * {@link #MAX_REDUNDANCY}) : une commande n'est perdue que si tous les
+ * messages qui la portent le sont.
+ * </p>
+ * <p>
+ * Messages (entiers en gros-boutiste) :
+ * <ul>
+ * <li>{@code HELLO} : type</li>
+ * <li>{@code WELCOME} : type, place (octet)</li>
+ * <li>{@code INPUT} : type, place, dernière frame d'état reçue (long),
+ * dernière frame de commandes (long), nombre de commandes (octet),
+ * commandes (int) des frames consécutives se terminant à la dernière</li>
+ * <li>{@code SNAPSHOT} : type, frame (long), frame de référence (long, -1
+ * pour un état complet), dernière frame de commandes confirmée (long),
+ * longueur avant compression (int), état ou différence compressé</li>
+ * </ul>
+ * </p>
+ */
+public class CoopServer implements AutoCloseable {
+
+    /** Types de messages */
+    static final byte HELLO = 0;
+    static final byte WELCOME = 1;
+    static final byte INPUT = 2;
+    static final byte SNAPSHOT = 3;
+
+    /** Taille maximale d'un datagramme */
+    static final int MAX_DATAGRAM = 65507;
+
+    /** Nombre d'états conservés comme références des différences */
+    static final int HISTORY = 64;
+
+    /** Nombre maximal de commandes répétées dans un message */
+    static final int MAX_REDUNDANCY = 32;
+
+    /** Fenêtre de commandes conservées par joueur (en frames) */
+    private static final int INPUT_WINDOW = 128;
+
+    /**
+     * Place d'un joueur.
+     */
+    private static final class Slot {
+        /** Adresse du client, ou {@code null} si la place est libre */
+        SocketAddress address;
+        /** Commandes reçues, indexées par frame modulo la fenêtre */
+        final int[] inputs = new int[INPUT_WINDOW];
+        /** Frame de chaque commande reçue */
+        final long[] inputTicks = new long[INPUT_WINDOW];
+        /** Dernière commande appliquée */
+        int lastInput = InputFrame.NONE;
+        /** Dernière frame d'état reçue par le client, -1 si aucune */
+        long ackTick = -1;
+
+        Slot() {
+            Arrays.fill(inputTicks, -1);
+        }
+    }
+
+    private final Selector selector;
+    private final DatagramChannel channel;
+    private final LossyLink link;
+    private final Slot[] slots;
+    private final long seed;
+    private final int levelNumber;
+    private final long tickNanos;
+
+    /** Partie simulée (thread du serveur uniquement) */
+    private final Game game = Game.headless();
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private final int[] frames;
+
+    /** États récents et leur frame, indexés par frame modulo {@link #HISTORY} */
+    private final byte[][] history = new byte[HISTORY][];
+    private final int[] historyLengths = new int[HISTORY];
+    private final long[] historyTicks = new long[HISTORY];
+
+    private byte[] deltaBuffer = new byte[16 * 1024];
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final ByteBuffer packet = ByteBuffer.allocate(MAX_DATAGRAM);
+
+    /** Indique si la partie a démarré */
+    private volatile boolean started = false;
+
+    /** Dernière frame simulée */
+    private volatile long tick = -1;
+
+    /** Statistiques d'envoi et de réception */
+    private volatile long snapshots, fullSnapshots, snapshotBytes, lateInputs;
+
+    private Thread thread;
+
+    /**
+     * Ouvre un serveur.
+     *
+     * @param address     adresse d'écoute (port 0 pour un port libre)
+     * @param playerCount nombre de joueurs attendus
+     * @param seed        graine de la partie
+     * @param levelNumber premier niveau
+     * @param tickNanos   durée réelle d'une frame (en nanosecondes)
+     * @param link        réseau (simulé ou parfait) utilisé pour les envois
+     * @throws IOException si l'adresse ne peut pas être utilisée
+     */
+    public CoopServer(InetSocketAddress address, int playerCount, long seed, int levelNumber,
+            long tickNanos, LossyLink link) throws IOException {
+        if (playerCount < 1 || playerCount > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Nombre de joueurs invalide : " + playerCount);
+        this.slots = new Slot[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            slots[i] = new Slot();
+        }
+        this.frames = new int[playerCount];
+        this.seed = seed;
+        this.levelNumber = levelNumber;
+        this.tickNanos = tickNanos;
+        this.link = link;
+        Arrays.fill(historyTicks, -1);
+
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.bind(address);
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    /**
+     * Démarre le thread du serveur.
+     */
+    public void start() {
+        thread = new Thread(this::loop, "coop-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return port d'écoute
+     */
+    public int getPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    /**
+     * @return {@code true} une fois tous les joueurs arrivés
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * @return dernière frame simulée, -1 avant le démarrage
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return nombre d'états envoyés
+     */
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * @return nombre d'états envoyés complets plutôt qu'en différence
+     */
+    public long getFullSnapshots() {
+        return fullSnapshots;
+    }
+
+    /**
+     * @return nombre d'octets d'état envoyés
+     */
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    /**
+     * @return nombre de commandes arrivées trop tard (remplacées par la
+     *         commande précédente du joueur)
+     */
+    public long getLateInputs() {
+        return lateInputs;
+    }
+
+    /**
+     * Boucle du serveur : réception, simulation au rythme des frames et
+     * envoi des états.
+     */
+    private void loop() {
+        ByteBuffer in = ByteBuffer.allocate(MAX_DATAGRAM);
+        long nextTick = 0;
+        try {
+            while (selector.isOpen()) {
+                long now = System.nanoTime();
+                long wait = Math.min(started ? nextTick - now : 50_000_000L, link.nanosUntilNext());
+                selector.select(Math.max(1, wait / 1_000_000L));
+                selector.selectedKeys().clear();
+
+                SocketAddress from;
+                while ((from = channel.receive(in.clear())) != null) {
+                    handle(in.flip(), from);
+                }
+
+                if (!started && allJoined()) {
+                    game.startSession(seed, levelNumber, slots.length);
+                    publish();
+                    started = true;
+                    nextTick = System.nanoTime() + tickNanos;
+                }
+                while (started && System.nanoTime() >= nextTick) {
+                    if (game.isSessionRunning()) {
+                        simulate();
+                    }
+                    // une fois la partie finie, l'état final continue d'être envoyé
+                    sendSnapshots();
+                    nextTick += tickNanos;
+                }
+                link.flush(channel);
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (selector.isOpen()) {
+                System.err.println("Erreur du serveur de coopération");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private boolean allJoined() {
+        for (Slot slot : slots) {
+            if (slot.address == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Traite un datagramme reçu. Les messages invalides sont ignorés.
+     */
+    private void handle(ByteBuffer in, SocketAddress from) throws IOException {
+        try {
+            byte type = in.get();
+            if (type == HELLO) {
+                int index = join(from);
+                if (index >= 0) {
+                    packet.clear();
+                    packet.put(WELCOME).put((byte) index).flip();
+                    link.send(channel, packet, from);
+                }
+            } else if (type == INPUT) {
+                int index = in.get();
+                if (index < 0 || index >= slots.length || !from.equals(slots[index].address)) {
+                    return;
+                }
+                receiveInputs(slots[index], in);
+            }
+        } catch (BufferUnderflowException e) {
+            // datagramme tronqué
+        }
+    }
+
+    /**
+     * Attribue une place à un client (la même s'il l'a déjà).
+     *
+     * @return place attribuée, ou -1 si la partie est complète
+     */
+    private int join(SocketAddress from) {
+        for (int i = 0; i < slots.length; i++) {
+            if (from.equals(slots[i].address)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].address == null) {
+                slots[i].address = from;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Enregistre les commandes d'un message ; celles des frames déjà
+     * simulées sont ignorées.
+     */
+    private void receiveInputs(Slot slot, ByteBuffer in) {
+        slot.ackTick = Math.max(slot.ackTick, in.getLong());
+        long last = in.getLong();
+        int count = in.get() & 0xFF;
+        long current = game.getContext() != null ? game.getContext().getTick() : -1;
+        for (long t = last - count + 1; t <= last; t++) {
+            int frame = in.getInt();
+            if (t > current && t <= current + INPUT_WINDOW) {
+                slot.inputs[(int) (t % INPUT_WINDOW)] = frame;
+                slot.inputTicks[(int) (t % INPUT_WINDOW)] = t;
+            }
+        }
+    }
+
+    /**
+     * Simule une frame avec les commandes reçues.
+     */
+    private void simulate() {
+        long t = game.getContext().getTick() + 1;
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = slots[i];
+            int index = (int) (t % INPUT_WINDOW);
+            if (slot.inputTicks[index] == t) {
+                slot.lastInput = slot.inputs[index];
+            } else {
+                lateInputs++;
+            }
+            frames[i] = slot.lastInput;
+        }
+        game.step(frames);
+        publish();
+    }
+
+    /**
+     * Enregistre l'état courant dans l'historique des références.
+     */
+    private void publish() {
+        ByteBuffer state = codec.encode(game);
+        long t = game.getContext().getTick();
+        int index = (int) (t % HISTORY);
+        if (history[index] == null || history[index].length < state.limit()) {
+            history[index] = new byte[state.capacity()];
+        }
+        state.get(history[index], 0, state.limit());
+        historyLengths[index] = state.limit();
+        historyTicks[index] = t;
+        tick = t;
+    }
+
+    /**
+     * Envoie l'état courant à chaque client, en différence avec la
+     * dernière frame qu'il a reçue si elle est encore dans l'historique.
+     */
+    private void sendSnapshots() throws IOException {
+        long t = game.getContext().getTick();
+        int current = (int) (t % HISTORY);
+        byte[] state = history[current];
+        int stateLength = historyLengths[current];
+        for (Slot slot : slots) {
+            long base = slot.ackTick;
+            int baseIndex = Math.floorMod(base, HISTORY);
+            int length = -1;
+            if (base >= 0 && base < t && historyTicks[baseIndex] == base) {
+                if (deltaBuffer.length < stateLength) {
+                    deltaBuffer = new byte[stateLength];
+                }
+                // une différence aussi grosse que l'état ne sert à rien
+                length = StateDelta.encode(state, stateLength, history[baseIndex], historyLengths[baseIndex],
+                        deltaBuffer);
+            }
+
+            packet.clear();
+            packet.put(SNAPSHOT).putLong(t).putLong(length >= 0 ? base : -1)
+                    .putLong(Math.max(t, contiguousInput(slot, t)));
+            if (length >= 0) {
+                compress(deltaBuffer, length);
+            } else {
+                compress(state, stateLength);
+                fullSnapshots++;
+            }
+            snapshots++;
+            snapshotBytes += packet.position();
+            link.send(channel, packet.flip(), slot.address);
+        }
+    }
+
+    /**
+     * Écrit dans le message sa longueur puis les données compressées.
+     */
+    private void compress(byte[] data, int length) {
+        packet.putInt(length);
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int written = deflater.deflate(packet.array(), packet.position(), packet.remaining());
+        packet.position(packet.position() + written);
+    }
+
+    /**
+     * @return dernière frame jusqu'à laquelle toutes les commandes du joueur
+     *         ont été reçues, à partir de la frame courante
+     */
+    private static long contiguousInput(Slot slot, long from) {
+        long t = from;
+        while (t + 1 - from < INPUT_WINDOW && slot.inputTicks[(int) ((t + 1) % INPUT_WINDOW)] == t + 1) {
+            t++;
+        }
+        return t;
+    }
+
+    /**
+     * Ferme le serveur.
+     */
+    @Override
+    public void close() {
+        try {
+            selector.close();
+            channel.close();
+            if (thread != null) {
+                thread.join(1000);
+            }
+            deflater.end();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture du serveur de coopération");
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package game.net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Envoi de datagrammes à travers un réseau simulé : perte aléatoire,
+ * latence et gigue.
+ * <p>
+ * Permet de tester la coopération en réseau sur la boucle locale dans des
+ * conditions réalistes. Les datagrammes retenus sont copiés et envoyés
+ * plus tard par {@link #flush(DatagramChannel)}, qui doit être appelé
+ * régulièrement par la boucle du propriétaire du canal ; la gigue peut
+ * donc inverser l'ordre d'arrivée. Sans perte ni latence, l'envoi est
+ * direct.
+ * </p>
+ * <p>
+ * Une instance n'est pas thread-safe : elle appartient à la boucle qui
+ * possède le canal.
+ * </p>
+ */
+public class LossyLink {
+
+    /**
+     * Datagramme en attente d'envoi.
+     */
+    private static final class Delayed implements Comparable<Delayed> {
+        final long dueNanos;
+        final SocketAddress target;
+        final ByteBuffer data;
+
+        Delayed(long dueNanos, SocketAddress target, ByteBuffer data) {
+            this.dueNanos = dueNanos;
+            this.target = target;
+            this.data = data;
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, other.dueNanos);
+        }
+    }
+
+    /** Probabilité de perte d'un datagramme */
+    private final double lossRate;
+
+    /** Latence fixe (en nanosecondes) */
+    private final long latencyNanos;
+
+    /** Gigue maximale ajoutée à la latence (en nanosecondes) */
+    private final long jitterNanos;
+
+    /** Tirages de perte et de gigue */
+    private final SplittableRandom random;
+
+    /** Datagrammes retenus, par instant d'envoi */
+    private final PriorityQueue<Delayed> pending = new PriorityQueue<>();
+
+    /** Nombre de datagrammes et d'octets soumis, et de datagrammes perdus */
+    private long packets, bytes, lost;
+
+    /**
+     * Construit un réseau parfait (envoi direct).
+     */
+    public LossyLink() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * Construit un réseau simulé.
+     *
+     * @param lossRate      probabilité de perte d'un datagramme (0 à 1)
+     * @param latencyMillis latence d'un aller (en millisecondes)
+     * @param jitterMillis  gigue maximale (en millisecondes)
+     * @param seed          graine des tirages
+     */
+    public LossyLink(double lossRate, int latencyMillis, int jitterMillis, long seed) {
+        if (lossRate < 0 || lossRate > 1 || latencyMillis < 0 || jitterMillis < 0)
+            throw new IllegalArgumentException("Conditions réseau invalides");
+        this.lossRate = lossRate;
+        this.latencyNanos = latencyMillis * 1_000_000L;
+        this.jitterNanos = jitterMillis * 1_000_000L;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Envoie (ou retient, ou perd) un datagramme.
+     *
+     * @param channel canal d'envoi
+     * @param data    contenu, de sa position à sa limite (consommé)
+     * @param target  destinataire
+     * @throws IOException en cas d'erreur d'envoi
+     */
+    public void send(DatagramChannel channel, ByteBuffer data, SocketAddress target) throws IOException {
+        packets++;
+        bytes += data.remaining();
+        if (lossRate > 0 && random.nextDouble() < lossRate) {
+            lost++;
+            data.position(data.limit());
+            return;
+        }
+        if (latencyNanos == 0 && jitterNanos == 0) {
+            channel.send(data, target);
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data).flip();
+        long jitter = jitterNanos > 0 ? random.nextLong(jitterNanos + 1) : 0;
+        pending.add(new Delayed(System.nanoTime() + latencyNanos + jitter, target, copy));
+    }
+
+    /**
+     * Envoie les datagrammes retenus dont l'heure est venue.
+     *
+     * @param channel canal d'envoi
+     * @throws IOException en cas d'erreur d'envoi
+     */
+    public void flush(DatagramChannel channel) throws IOException {
+        long now = System.nanoTime();
+        while (!pending.isEmpty() && pending.peek().dueNanos <= now) {
+            Delayed d = pending.poll();
+            channel.send(d.data, d.target);
+        }
+    }
+
+    /**
+     * @return délai avant le prochain datagramme retenu (en nanosecondes),
+     *         ou {@link Long#MAX_VALUE} si aucun
+     */
+    public long nanosUntilNext() {
+        return pending.isEmpty() ? Long.MAX_VALUE : Math.max(0, pending.peek().dueNanos - System.nanoTime());
+    }
+
+    /**
+     * @return nombre de datagrammes soumis
+     */
+    public long getPackets() {
+        return packets;
+    }
+
+    /**
+     * @return nombre d'octets soumis
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return nombre de datagrammes perdus
+     */
+    public long getLost() {
+        return lost;
+    }
+}
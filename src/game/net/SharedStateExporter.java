@@ -0,0 +1,196 @@
+package game.net;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import game.Game;
+import game.server.TickListener;
+
+/**
+ * Exporte l'état de chaque frame dans un fichier projeté en mémoire, lisible
+ * sans socket par des outils externes de la même machine (visualiseurs,
+ * entraînement, enregistreurs).
+ * <p>
+ * Le fichier contient un en-tête suivi d'un anneau de {@code slotCount}
+ * emplacements. La frame numéro {@code n} (numérotation propre à
+ * l'exportateur, à partir de 0) est écrite directement dans l'emplacement
+ * {@code n % slotCount}, au format {@link WorldFrame#FULL}, puis son numéro
+ * est publié dans l'en-tête. Chaque emplacement est protégé par un
+ * compteur de séquence (seqlock) : impair pendant l'écriture, pair
+ * ensuite. Un lecteur lit le numéro publié, copie l'emplacement, et
+ * recommence si le compteur a changé entre-temps (voir
+ * {@link SharedStateReader}).
+ * </p>
+ * <p>
+ * L'écriture n'attend jamais les lecteurs : un lecteur en retard ne voit
+ * simplement que la dernière frame complète. Une image trop grande pour un
+ * emplacement est abandonnée et comptée dans l'en-tête.
+ * </p>
+ * <p>
+ * Format (gros-boutiste) :
+ * <ul>
+ * <li>en-tête de {@link #HEADER_BYTES} octets : signature "GSHM" (int),
+ * version (int), nombre d'emplacements (int), capacité d'un emplacement
+ * (int), dernière frame publiée (long, -1 si aucune), frames abandonnées
+ * (long)</li>
+ * <li>emplacement : compteur de séquence (long), longueur (int), réservé
+ * (int), image</li>
+ * </ul>
+ * </p>
+ */
+public class SharedStateExporter implements TickListener, AutoCloseable {
+
+    /** Signature du format ("GSHM") */
+    static final int MAGIC = 0x4753484D;
+
+    /** Version du format */
+    static final int VERSION = 1;
+
+    /** Taille de l'en-tête du fichier */
+    static final int HEADER_BYTES = 64;
+
+    /** Taille de l'en-tête d'un emplacement */
+    static final int SLOT_HEADER_BYTES = 16;
+
+    /** Positions des champs de l'en-tête */
+    static final int SLOT_COUNT_OFFSET = 8;
+    static final int SLOT_BYTES_OFFSET = 12;
+    static final int LATEST_OFFSET = 16;
+    static final int DROPPED_OFFSET = 24;
+
+    /** Accès ordonnés aux compteurs (longs alignés du fichier projeté) */
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final int slotBytes;
+
+    /** Vue de la zone d'image de chaque emplacement */
+    private final ByteBuffer[] payloads;
+
+    /** Image réutilisée (thread de simulation uniquement) */
+    private final WorldFrame frame = new WorldFrame();
+
+    /** Numéro de la dernière frame écrite */
+    private long sequence = -1;
+
+    /** Nombre de frames abandonnées */
+    private long dropped = 0;
+
+    /**
+     * Crée (ou remplace) le fichier d'export.
+     *
+     * @param path      chemin du fichier (de préférence sur un système de
+     *                  fichiers en mémoire, par exemple {@code /dev/shm})
+     * @param slotCount nombre d'emplacements de l'anneau
+     * @param slotBytes capacité d'un emplacement (en octets)
+     * @throws IOException si le fichier ne peut pas être créé
+     */
+    public SharedStateExporter(String path, int slotCount, int slotBytes) throws IOException {
+        if (slotCount < 2 || slotBytes < 64 || slotBytes % 8 != 0)
+            throw new IllegalArgumentException("Anneau invalide : " + slotCount + " x " + slotBytes);
+        this.slotCount = slotCount;
+        this.slotBytes = slotBytes;
+
+        File f = new File(path);
+        if (f.getParentFile() != null) {
+            f.getParentFile().mkdirs();
+        }
+        long size = HEADER_BYTES + (long) slotCount * (SLOT_HEADER_BYTES + slotBytes);
+        file = new RandomAccessFile(f, "rw");
+        file.setLength(0);
+        file.setLength(size);
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        payloads = new ByteBuffer[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            payloads[i] = buffer.slice(slotOffset(i) + SLOT_HEADER_BYTES, slotBytes);
+        }
+
+        buffer.putInt(0, MAGIC).putInt(4, VERSION)
+                .putInt(SLOT_COUNT_OFFSET, slotCount).putInt(SLOT_BYTES_OFFSET, slotBytes);
+        LONGS.setRelease(buffer, DROPPED_OFFSET, 0L);
+        LONGS.setRelease(buffer, LATEST_OFFSET, -1L);
+    }
+
+    /**
+     * @return position d'un emplacement dans le fichier
+     */
+    private int slotOffset(int slot) {
+        return HEADER_BYTES + slot * (SLOT_HEADER_BYTES + slotBytes);
+    }
+
+    /**
+     * Écrit l'état d'une partie dans le prochain emplacement. Appelé par le
+     * thread de simulation, ne bloque jamais.
+     *
+     * @param game partie après la frame
+     */
+    @Override
+    public void onTick(Game game) {
+        frame.capture(game);
+        long n = sequence + 1;
+        int slot = (int) (n % slotCount);
+        int offset = slotOffset(slot);
+
+        long seq = (long) LONGS.get(buffer, offset);
+        LONGS.setOpaque(buffer, offset, seq + 1);
+        VarHandle.storeStoreFence();
+
+        ByteBuffer payload = payloads[slot].clear();
+        int length;
+        try {
+            frame.writeFull(payload);
+            length = payload.position();
+        } catch (BufferOverflowException e) {
+            length = 0;
+        }
+        buffer.putInt(offset + 8, length);
+        LONGS.setRelease(buffer, offset, seq + 2);
+
+        if (length == 0) {
+            // l'emplacement reste marqué vide : les lecteurs l'ignorent
+            LONGS.setRelease(buffer, DROPPED_OFFSET, ++dropped);
+            return;
+        }
+        sequence = n;
+        LONGS.setRelease(buffer, LATEST_OFFSET, n);
+    }
+
+    /**
+     * @return numéro de la dernière frame publiée, -1 si aucune
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return nombre de frames abandonnées car trop grandes
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Ferme le fichier. Les lecteurs conservent la dernière frame publiée.
+     */
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            file.close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture de l'export");
+            e.printStackTrace();
+        }
+    }
+}
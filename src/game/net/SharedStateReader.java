@@ -0,0 +1,123 @@
+package game.net;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Lecteur d'un fichier écrit par un {@link SharedStateExporter}.
+ * <p>
+ * Sert d'exemple et de référence aux outils externes : la lecture suit le
+ * protocole du compteur de séquence et ne ralentit jamais l'écrivain. Un
+ * lecteur peut tourner dans un autre processus.
+ * </p>
+ */
+public class SharedStateReader implements AutoCloseable {
+
+    /** Nombre de tentatives avant d'abandonner une lecture concurrente d'une écriture */
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final int slotBytes;
+
+    /** Copie de l'emplacement lu */
+    private final byte[] scratch;
+
+    /** Dernière frame lue, -1 si aucune */
+    private long lastSequence = -1;
+
+    /** Nombre de lectures recommencées car l'emplacement était en cours d'écriture */
+    private long retries = 0;
+
+    /**
+     * Ouvre un fichier d'export en lecture.
+     *
+     * @param path chemin du fichier
+     * @throws IOException              si le fichier ne peut pas être lu
+     * @throws IllegalArgumentException si le fichier n'est pas un export
+     */
+    public SharedStateReader(String path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        if (file.length() < SharedStateExporter.HEADER_BYTES || buffer.getInt(0) != SharedStateExporter.MAGIC)
+            throw new IllegalArgumentException("Fichier d'export invalide : " + path);
+        if (buffer.getInt(4) != SharedStateExporter.VERSION)
+            throw new IllegalArgumentException("Version d'export non supportée : " + buffer.getInt(4));
+        slotCount = buffer.getInt(SharedStateExporter.SLOT_COUNT_OFFSET);
+        slotBytes = buffer.getInt(SharedStateExporter.SLOT_BYTES_OFFSET);
+        scratch = new byte[slotBytes];
+    }
+
+    /**
+     * Lit la dernière frame publiée si elle est plus récente que la
+     * dernière lue.
+     *
+     * @param frame image à remplir
+     * @return {@code true} si une nouvelle frame a été lue
+     */
+    public boolean poll(WorldFrame frame) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long n = (long) SharedStateExporter.LONGS.getAcquire(buffer, SharedStateExporter.LATEST_OFFSET);
+            if (n < 0 || n == lastSequence) {
+                return false;
+            }
+            int offset = SharedStateExporter.HEADER_BYTES
+                    + (int) (n % slotCount) * (SharedStateExporter.SLOT_HEADER_BYTES + slotBytes);
+
+            long before = (long) SharedStateExporter.LONGS.getAcquire(buffer, offset);
+            int length = buffer.getInt(offset + 8);
+            if ((before & 1) == 0 && length > 0 && length <= slotBytes) {
+                buffer.get(offset + SharedStateExporter.SLOT_HEADER_BYTES, scratch, 0, length);
+                VarHandle.loadLoadFence();
+                long after = (long) SharedStateExporter.LONGS.getVolatile(buffer, offset);
+                if (before == after) {
+                    frame.read(ByteBuffer.wrap(scratch, 0, length));
+                    lastSequence = n;
+                    return true;
+                }
+            }
+            // l'écrivain a réutilisé l'emplacement pendant la lecture
+            retries++;
+        }
+        return false;
+    }
+
+    /**
+     * @return numéro de la dernière frame lue, -1 si aucune
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return nombre de frames abandonnées par l'écrivain
+     */
+    public long getDropped() {
+        return (long) SharedStateExporter.LONGS.getAcquire(buffer, SharedStateExporter.DROPPED_OFFSET);
+    }
+
+    /**
+     * @return nombre de lectures recommencées
+     */
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * Ferme le fichier.
+     */
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture de l'export");
+            e.printStackTrace();
+        }
+    }
+}
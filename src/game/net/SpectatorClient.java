@@ -0,0 +1,225 @@
+package game.net;
+
+import java.awt.Color;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.plaf.FontUIResource;
+
+import game.actors.Enemys.EnemyType;
+import game.render.Renderer;
+import game.render.StdDrawRenderer;
+import game.util.SpriteAtlas;
+import game.util.SpriteRenderer;
+import game.util.StdDraw;
+
+/**
+ * Client spectateur : reçoit le flux d'un {@link SpectatorServer} et
+ * l'affiche avec les sprites du jeu.
+ * <p>
+ * La réception ({@link #receive()}) et l'affichage sont séparés : un thread
+ * lit les messages aussi vite qu'ils arrivent, et la fenêtre affiche la
+ * dernière image complète reçue à son propre rythme.
+ * </p>
+ */
+public class SpectatorClient implements AutoCloseable {
+
+    /** Sprites des ennemis, par type */
+    private static final SpriteAtlas.Region[] ENEMY_SPRITES = new SpriteAtlas.Region[EnemyType.values().length];
+
+    /** Sprite du joueur */
+    private static SpriteAtlas.Region shipSprite;
+
+    /** Connexion au serveur */
+    private final SocketChannel channel;
+
+    /** Tampon de réception d'un message */
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    /** Longueur d'un message */
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+
+    /** Image reconstruite au fil des messages */
+    private final WorldFrame frame = new WorldFrame();
+
+    /** Indique si {@link #frame} est à jour (une image complète a été reçue) */
+    private boolean synced = false;
+
+    /** Messages appliqués et ignorés (différence sans image de référence) */
+    private long applied, ignored;
+
+    /**
+     * Se connecte à un serveur de spectateurs.
+     *
+     * @param address adresse du serveur
+     * @throws IOException si la connexion échoue
+     */
+    public SpectatorClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Reçoit et applique le prochain message (bloquant).
+     *
+     * @return {@code true} si l'image est à jour après ce message
+     * @throws IOException  en cas d'erreur de lecture
+     * @throws EOFException si le serveur a fermé la connexion
+     */
+    public boolean receive() throws IOException {
+        header.clear();
+        readFully(header);
+        int length = header.getInt(0);
+        if (length > buffer.capacity()) {
+            buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+        }
+        buffer.clear().limit(length);
+        readFully(buffer);
+        buffer.flip();
+
+        if (buffer.get(0) == WorldFrame.DELTA && !synced) {
+            ignored++;
+            return false;
+        }
+        synced = frame.read(buffer);
+        if (synced) {
+            applied++;
+        } else {
+            ignored++;
+        }
+        return synced;
+    }
+
+    private void readFully(ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0)
+                throw new EOFException("Connexion fermée par le serveur");
+        }
+    }
+
+    /**
+     * @return image reconstruite (modifiée par chaque {@link #receive()})
+     */
+    public WorldFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * @return nombre de messages appliqués
+     */
+    public long getApplied() {
+        return applied;
+    }
+
+    /**
+     * @return nombre de messages ignorés faute d'image de référence
+     */
+    public long getIgnored() {
+        return ignored;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /* ========================= */
+    /* ======== AFFICHAGE ======= */
+    /* ========================= */
+
+    /**
+     * Dessine une image du monde.
+     *
+     * @param frame    image à dessiner
+     * @param renderer moteur de rendu
+     */
+    public static void draw(WorldFrame frame, Renderer renderer) {
+        loadSprites();
+
+        renderer.setPenColor(Color.WHITE);
+        renderer.setFont(new FontUIResource("Arial", 14, 14));
+        renderer.text(0.5, 0.95, "SCORE: " + frame.getScore());
+        renderer.text(0.9, 0.95, "SPECTATEUR");
+
+        for (int i = 0; i < frame.getMissileCount(); i++) {
+            renderer.setPenColor(frame.getMissileKind(i) == WorldFrame.PLAYER_MISSILE ? Color.GREEN : Color.RED);
+            double x = frame.getMissileX(i);
+            double y = frame.getMissileY(i);
+            renderer.line(x, y - 0.02, x, y + 0.02);
+        }
+
+        for (int i = 0; i < frame.getEnemyCount(); i++) {
+            double size = frame.getEnemyType(i) == EnemyType.BOSS.ordinal() ? 0.08 : 0.04;
+            SpriteRenderer.drawSprite(renderer, ENEMY_SPRITES[frame.getEnemyType(i)],
+                    frame.getEnemyX(i) - size / 2, frame.getEnemyY(i) - size / 2, size);
+        }
+
+        boolean blink = (frame.getPlayerFlags() & WorldFrame.PLAYER_INVINCIBLE) != 0 && (frame.getTick() / 3) % 2 == 1;
+        if ((frame.getPlayerFlags() & WorldFrame.PLAYER_VISIBLE) != 0 && !blink) {
+            SpriteRenderer.drawSprite(renderer, shipSprite, frame.getPlayerX() - 0.02, frame.getPlayerY() - 0.02, 0.04);
+        }
+        for (int i = 0; i < frame.getLives(); i++) {
+            SpriteRenderer.drawSprite(renderer, shipSprite, 0.03 + i * 0.05 - 0.015, 0.04 - 0.015, 0.03);
+        }
+    }
+
+    private static synchronized void loadSprites() {
+        if (shipSprite != null) {
+            return;
+        }
+        SpriteAtlas atlas = SpriteAtlas.shared();
+        shipSprite = atlas.getRegion("ship.spr");
+        ENEMY_SPRITES[EnemyType.BEE.ordinal()] = atlas.getRegion("bee.spr");
+        ENEMY_SPRITES[EnemyType.BUTTERFLY.ordinal()] = atlas.getRegion("butterfly.spr");
+        ENEMY_SPRITES[EnemyType.MOTH.ordinal()] = atlas.getRegion("catcher.spr");
+        ENEMY_SPRITES[EnemyType.BOSS.ordinal()] = atlas.getRegion("boss.spr");
+    }
+
+    /**
+     * Ouvre une fenêtre affichant le flux d'un serveur de spectateurs.
+     *
+     * @param host adresse du serveur
+     * @param port port du serveur
+     * @throws IOException si la connexion échoue
+     */
+    public static void watch(String host, int port) throws IOException {
+        SpectatorClient client = new SpectatorClient(new InetSocketAddress(host, port));
+        WorldFrame display = new WorldFrame();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread reader = new Thread(() -> {
+            try {
+                while (true) {
+                    if (client.receive()) {
+                        synchronized (display) {
+                            display.copyFrom(client.getFrame());
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Flux interrompu : " + e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        }, "spectator-client");
+        reader.setDaemon(true);
+        reader.start();
+
+        StdDraw.setCanvasSize(700, 700);
+        StdDraw.enableDoubleBuffering();
+        Renderer renderer = new StdDrawRenderer();
+        while (running.get()) {
+            renderer.clear(Color.BLACK);
+            synchronized (display) {
+                draw(display, renderer);
+            }
+            renderer.show();
+            StdDraw.pause(30);
+        }
+        client.close();
+    }
+}
@@ -0,0 +1,326 @@
+package game.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
+import game.Game;
+import game.server.TickListener;
+import game.sim.SimContext;
+
+/**
+ * Serveur de spectateurs : diffuse l'état d'une partie à chaque frame à
+ * autant de clients que nécessaire.
+ * <p>
+ * Un unique thread gère toutes les connexions avec un {@link Selector}
+ * (sockets non bloquantes). À chaque frame, le thread de simulation
+ * encode une image complète et une différence avec la frame précédente
+ * (voir {@link WorldFrame}), puis les publie sans jamais attendre le réseau.
+ * </p>
+ * <p>
+ * Chaque client n'a jamais plus d'un message en cours d'envoi : si un
+ * client lent n'a pas fini de recevoir le message précédent, les frames
+ * publiées entre-temps sont sautées pour lui. Comme il lui manque alors la
+ * frame de référence, il reçoit ensuite une image complète plutôt qu'une
+ * différence. Un message est précédé de sa longueur sur 4 octets.
+ * </p>
+ */
+public class SpectatorServer implements TickListener, AutoCloseable {
+
+    /**
+     * Messages d'une frame, partagés en lecture par tous les clients.
+     */
+    private static final class Broadcast {
+        final int session;
+        final long tick;
+        final long baseTick;
+        final ByteBuffer full;
+        final ByteBuffer delta;
+
+        Broadcast(int session, long tick, long baseTick, ByteBuffer full, ByteBuffer delta) {
+            this.session = session;
+            this.tick = tick;
+            this.baseTick = baseTick;
+            this.full = full;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * État d'envoi d'un client.
+     */
+    private static final class Client {
+        /** Message en cours d'envoi, ou {@code null} */
+        ByteBuffer pending;
+        /** Partie de la dernière frame envoyée, -1 si aucune */
+        int session = -1;
+        /** Dernière frame envoyée (ou en cours d'envoi), -1 si aucune */
+        long lastTick = -1;
+    }
+
+    /** Capacité initiale des tampons d'encodage */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+
+    /** Dernière frame publiée */
+    private final AtomicReference<Broadcast> latest = new AtomicReference<>();
+
+    /** Images courante et précédente (thread de simulation uniquement) */
+    private WorldFrame current = new WorldFrame();
+    private WorldFrame previous = new WorldFrame();
+    private boolean hasPrevious = false;
+
+    /** Contexte de la partie de l'image précédente (thread de simulation uniquement) */
+    private SimContext context;
+
+    /** Numéro de la partie diffusée, incrémenté à chaque nouvelle partie */
+    private int session = 0;
+
+    /** Taille d'encodage nécessaire lors de la dernière frame */
+    private int capacity = INITIAL_CAPACITY;
+
+    /** Nombre de messages envoyés et de frames sautées */
+    private volatile long sent, dropped;
+
+    /** Thread du sélecteur */
+    private Thread thread;
+
+    /**
+     * Ouvre le serveur.
+     *
+     * @param address adresse d'écoute (port 0 pour un port libre)
+     * @throws IOException si l'adresse ne peut pas être utilisée
+     */
+    public SpectatorServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Démarre le thread du serveur.
+     */
+    public void start() {
+        thread = new Thread(this::loop, "spectator-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return port d'écoute
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return nombre de messages envoyés
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return nombre de frames sautées pour des clients trop lents
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Publie l'état d'une partie. Appelé par le thread de simulation, ne
+     * bloque jamais.
+     *
+     * @param game partie après la frame
+     */
+    @Override
+    public void onTick(Game game) {
+        WorldFrame swap = previous;
+        previous = current;
+        current = swap;
+        current.capture(game);
+        if (game.getContext() != context || current.tick <= previous.tick) {
+            // nouvelle partie : l'image précédente n'est plus une référence valable
+            context = game.getContext();
+            session++;
+            hasPrevious = false;
+        }
+
+        ByteBuffer full;
+        ByteBuffer delta = null;
+        while (true) {
+            try {
+                full = encode(false);
+                if (hasPrevious) {
+                    delta = encode(true);
+                }
+                break;
+            } catch (BufferOverflowException e) {
+                capacity *= 2;
+            }
+        }
+        long baseTick = hasPrevious ? previous.tick : -1;
+        hasPrevious = true;
+
+        latest.set(new Broadcast(session, current.tick, baseTick, full, delta != null ? delta : full));
+        selector.wakeup();
+    }
+
+    /**
+     * Encode un message précédé de sa longueur.
+     */
+    private ByteBuffer encode(boolean asDelta) {
+        ByteBuffer out = ByteBuffer.allocate(capacity);
+        out.putInt(0);
+        if (asDelta) {
+            current.writeDelta(out, previous);
+        } else {
+            current.writeFull(out);
+        }
+        out.putInt(0, out.position() - 4);
+        out.flip();
+        return out.asReadOnlyBuffer();
+    }
+
+    /**
+     * Boucle du sélecteur : accepte les clients et leur envoie la dernière
+     * frame dès qu'ils peuvent la recevoir.
+     */
+    private void loop() {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                Broadcast broadcast = latest.get();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        discardInput(key);
+                    }
+                }
+
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && key.attachment() instanceof Client) {
+                        pump(key, (Client) key.attachment(), broadcast);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (selector.isOpen()) {
+                System.err.println("Erreur du serveur de spectateurs");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Client());
+    }
+
+    /**
+     * Les spectateurs n'envoient rien : la lecture ne sert qu'à détecter
+     * les déconnexions.
+     */
+    private void discardInput(SelectionKey key) {
+        ByteBuffer sink = ByteBuffer.allocate(256);
+        try {
+            if (((SocketChannel) key.channel()).read(sink) < 0) {
+                close(key);
+            }
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    /**
+     * Termine l'envoi en cours d'un client, puis lui envoie la dernière
+     * frame s'il ne l'a pas déjà.
+     */
+    private void pump(SelectionKey key, Client client, Broadcast broadcast) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (client.pending != null) {
+                channel.write(client.pending);
+                if (client.pending.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                client.pending = null;
+                sent++;
+            }
+
+            if (broadcast != null
+                    && (broadcast.session != client.session || broadcast.tick != client.lastTick)) {
+                boolean sameSession = broadcast.session == client.session;
+                if (sameSession && broadcast.tick - client.lastTick > 1) {
+                    dropped += broadcast.tick - client.lastTick - 1;
+                }
+                ByteBuffer message = sameSession && client.lastTick == broadcast.baseTick
+                        ? broadcast.delta : broadcast.full;
+                client.pending = message.duplicate();
+                client.session = broadcast.session;
+                client.lastTick = broadcast.tick;
+                channel.write(client.pending);
+                if (!client.pending.hasRemaining()) {
+                    client.pending = null;
+                    sent++;
+                }
+            }
+            key.interestOps(client.pending != null
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // déjà fermé
+        }
+    }
+
+    /**
+     * Ferme le serveur et toutes les connexions.
+     */
+    @Override
+    public void close() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture du serveur de spectateurs");
+            e.printStackTrace();
+        }
+    }
+}
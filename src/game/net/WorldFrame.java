@@ -0,0 +1,527 @@
+package game.net;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import game.Game;
+import game.actors.Enemy;
+import game.actors.EnemyMissile;
+import game.actors.Missile;
+import game.actors.Player;
+import game.level.Level;
+
+/**
+ * Image compacte du monde à une frame, telle que diffusée aux spectateurs.
+ * <p>
+ * Les positions sont quantifiées sur 16 bits (l'intervalle [-0.5, 1.5]
+ * couvre l'écran et ses abords). Une image peut être encodée en entier
+ * ({@link #FULL}) ou par différence avec l'image de la frame précédente
+ * ({@link #DELTA}) : ennemis disparus, ennemis apparus, et déplacement des
+ * autres sur un octet par axe lorsqu'il est petit. Les missiles, qui
+ * bougent tous à chaque frame, sont toujours envoyés en entier.
+ * </p>
+ * <p>
+ * Les tableaux sont réutilisés d'une frame à l'autre et ne grandissent que
+ * si nécessaire.
+ * </p>
+ */
+public class WorldFrame {
+
+    /** Message contenant une image complète */
+    public static final byte FULL = 0;
+
+    /** Message contenant une différence avec l'image précédente */
+    public static final byte DELTA = 1;
+
+    /** Indicateur : joueur visible */
+    public static final int PLAYER_VISIBLE = 1;
+
+    /** Indicateur : joueur invincible */
+    public static final int PLAYER_INVINCIBLE = 2;
+
+    /** Type de missile : missile du joueur */
+    public static final byte PLAYER_MISSILE = 0;
+
+    /** Type de missile : missile ennemi */
+    public static final byte ENEMY_MISSILE = 1;
+
+    /** Valeur d'un déplacement signalant une position complète */
+    private static final int ESCAPE = Byte.MIN_VALUE;
+
+    long tick;
+    int score;
+    int lives;
+    int playerFlags;
+    int playerX, playerY;
+
+    int enemyCount;
+    int[] enemyIds = new int[64];
+    byte[] enemyTypes = new byte[64];
+    int[] enemyX = new int[64];
+    int[] enemyY = new int[64];
+
+    int missileCount;
+    byte[] missileKinds = new byte[64];
+    int[] missileX = new int[64];
+    int[] missileY = new int[64];
+
+    /** Indice dans l'image de référence de chaque ennemi (encodage d'une différence) */
+    private int[] matches = new int[64];
+
+    /**
+     * Capture l'état d'une partie.
+     *
+     * @param game partie à capturer
+     */
+    public void capture(Game game) {
+        Player player = game.getPlayer();
+        tick = game.getContext().getTick();
+        score = game.getScore();
+        lives = player.getLives();
+        playerFlags = (player.isAlive() && !player.isRespawning() ? PLAYER_VISIBLE : 0)
+                | (player.isInvincible() ? PLAYER_INVINCIBLE : 0);
+        playerX = quantize(player.getPosition().getX());
+        playerY = quantize(player.getPosition().getY());
+
+        enemyCount = 0;
+        missileCount = 0;
+        addMissiles(player.getMissiles(), PLAYER_MISSILE);
+
+        Level level = game.getCurrentLevel();
+        if (level == null) {
+            return;
+        }
+        for (Enemy e : level.getEnemies()) {
+            ensureEnemies(enemyCount + 1);
+            enemyIds[enemyCount] = e.getId();
+            enemyTypes[enemyCount] = (byte) e.getType().ordinal();
+            enemyX[enemyCount] = quantize(e.getPosition().getX());
+            enemyY[enemyCount] = quantize(e.getPosition().getY());
+            enemyCount++;
+            addMissiles(e.getMissiles(), ENEMY_MISSILE);
+        }
+    }
+
+    private void addMissiles(List<Missile> missiles, byte kind) {
+        for (Missile m : missiles) {
+            ensureMissiles(missileCount + 1);
+            missileKinds[missileCount] = m instanceof EnemyMissile ? ENEMY_MISSILE : kind;
+            missileX[missileCount] = quantize(m.getPosition().getX());
+            missileY[missileCount] = quantize(m.getPosition().getY());
+            missileCount++;
+        }
+    }
+
+    /**
+     * Copie une autre image dans celle-ci.
+     *
+     * @param other image à copier
+     */
+    public void copyFrom(WorldFrame other) {
+        tick = other.tick;
+        score = other.score;
+        lives = other.lives;
+        playerFlags = other.playerFlags;
+        playerX = other.playerX;
+        playerY = other.playerY;
+        ensureEnemies(other.enemyCount);
+        enemyCount = other.enemyCount;
+        System.arraycopy(other.enemyIds, 0, enemyIds, 0, enemyCount);
+        System.arraycopy(other.enemyTypes, 0, enemyTypes, 0, enemyCount);
+        System.arraycopy(other.enemyX, 0, enemyX, 0, enemyCount);
+        System.arraycopy(other.enemyY, 0, enemyY, 0, enemyCount);
+        ensureMissiles(other.missileCount);
+        missileCount = other.missileCount;
+        System.arraycopy(other.missileKinds, 0, missileKinds, 0, missileCount);
+        System.arraycopy(other.missileX, 0, missileX, 0, missileCount);
+        System.arraycopy(other.missileY, 0, missileY, 0, missileCount);
+    }
+
+    /* ========================= */
+    /* ======== ENCODAGE ======== */
+    /* ========================= */
+
+    /**
+     * Écrit l'image complète.
+     *
+     * @param out tampon de destination
+     */
+    public void writeFull(ByteBuffer out) {
+        out.put(FULL).putInt((int) tick);
+        writeHeader(out);
+        out.putShort((short) enemyCount);
+        for (int i = 0; i < enemyCount; i++) {
+            out.putShort((short) enemyIds[i]).put(enemyTypes[i])
+                    .putChar((char) enemyX[i]).putChar((char) enemyY[i]);
+        }
+        writeMissiles(out);
+    }
+
+    /**
+     * Écrit la différence entre cette image et l'image précédente.
+     * <p>
+     * Les ennemis sont supposés rangés dans le même ordre dans les deux
+     * images (ordre de la liste du niveau, dont ils ne font que disparaître).
+     * Un seul parcours ordonné associe chaque ennemi à son homologue de
+     * l'image de référence : les ennemis de la référence sautés par ce
+     * parcours sont déclarés disparus, les autres sont conservés. Le
+     * destinataire, qui retire d'abord les disparus, retrouve ainsi les
+     * ennemis conservés dans le même ordre.
+     * </p>
+     *
+     * @param out  tampon de destination
+     * @param base image de référence, connue du destinataire
+     */
+    public void writeDelta(ByteBuffer out, WorldFrame base) {
+        out.put(DELTA).putInt((int) tick).putInt((int) base.tick);
+        writeHeader(out);
+
+        // association ordonnée : homologue de chaque ennemi, ou -1 s'il est nouveau
+        if (matches.length < enemyCount) {
+            matches = new int[enemyIds.length];
+        }
+        int j = 0;
+        for (int i = 0; i < enemyCount; i++) {
+            int k = j;
+            while (k < base.enemyCount && base.enemyIds[k] != enemyIds[i]) {
+                k++;
+            }
+            if (k < base.enemyCount) {
+                matches[i] = k;
+                j = k + 1;
+            } else {
+                matches[i] = -1;
+            }
+        }
+
+        // ennemis disparus : ceux de la référence sans homologue
+        int removedAt = out.position();
+        out.putShort((short) 0);
+        int removed = 0;
+        int next = 0;
+        for (int i = 0; i <= enemyCount; i++) {
+            int kept = (i < enemyCount) ? matches[i] : base.enemyCount;
+            if (kept < 0) {
+                continue;
+            }
+            for (; next < kept; next++) {
+                out.putShort((short) base.enemyIds[next]);
+                removed++;
+            }
+            next = kept + 1;
+        }
+        out.putShort(removedAt, (short) removed);
+
+        // ennemis restants, dans l'ordre : déplacement ou position complète
+        out.putShort((short) enemyCount);
+        for (int i = 0; i < enemyCount; i++) {
+            int k = matches[i];
+            if (k >= 0) {
+                int dx = enemyX[i] - base.enemyX[k];
+                int dy = enemyY[i] - base.enemyY[k];
+                if (dx > ESCAPE && dx <= Byte.MAX_VALUE && dy > ESCAPE && dy <= Byte.MAX_VALUE) {
+                    out.put((byte) dx).put((byte) dy);
+                    continue;
+                }
+            }
+            out.put((byte) ESCAPE).putShort((short) enemyIds[i]).put(enemyTypes[i])
+                    .putChar((char) enemyX[i]).putChar((char) enemyY[i]);
+        }
+        writeMissiles(out);
+    }
+
+    private void writeHeader(ByteBuffer out) {
+        out.putInt(score).put((byte) lives).put((byte) playerFlags)
+                .putChar((char) playerX).putChar((char) playerY);
+    }
+
+    private void writeMissiles(ByteBuffer out) {
+        out.putShort((short) missileCount);
+        for (int i = 0; i < missileCount; i++) {
+            out.put(missileKinds[i]).putChar((char) missileX[i]).putChar((char) missileY[i]);
+        }
+    }
+
+    /**
+     * Applique un message reçu.
+     *
+     * @param in message ({@link #FULL} ou {@link #DELTA})
+     * @return {@code false} si le message est une différence par rapport à
+     *         une image qui n'est pas celle-ci (il est alors ignoré)
+     * @throws IllegalArgumentException si le message est invalide
+     */
+    public boolean read(ByteBuffer in) {
+        byte kind = in.get();
+        if (kind == FULL) {
+            tick = in.getInt();
+            readHeader(in);
+            enemyCount = in.getShort();
+            ensureEnemies(enemyCount);
+            for (int i = 0; i < enemyCount; i++) {
+                enemyIds[i] = in.getShort();
+                enemyTypes[i] = in.get();
+                enemyX[i] = in.getChar();
+                enemyY[i] = in.getChar();
+            }
+            readMissiles(in);
+            return true;
+        }
+        if (kind != DELTA)
+            throw new IllegalArgumentException("Message inconnu : " + kind);
+
+        int newTick = in.getInt();
+        int baseTick = in.getInt();
+        if (baseTick != (int) tick) {
+            return false;
+        }
+        tick = newTick;
+        readHeader(in);
+
+        // retirer les ennemis disparus, sur place et dans l'ordre
+        int removed = in.getShort();
+        for (int r = 0; r < removed; r++) {
+            int id = in.getShort();
+            for (int i = 0; i < enemyCount; i++) {
+                if (enemyIds[i] == id) {
+                    removeEnemy(i);
+                    break;
+                }
+            }
+        }
+
+        int count = in.getShort();
+        ensureEnemies(count);
+        for (int i = 0; i < count; i++) {
+            int dx = in.get();
+            if (dx == ESCAPE) {
+                int id = in.getShort();
+                if (i >= enemyCount || enemyIds[i] != id) {
+                    insertEnemy(i);
+                }
+                enemyIds[i] = id;
+                enemyTypes[i] = in.get();
+                enemyX[i] = in.getChar();
+                enemyY[i] = in.getChar();
+            } else {
+                enemyX[i] += dx;
+                enemyY[i] += in.get();
+            }
+        }
+        enemyCount = count;
+        readMissiles(in);
+        return true;
+    }
+
+    private void readHeader(ByteBuffer in) {
+        score = in.getInt();
+        lives = in.get();
+        playerFlags = in.get();
+        playerX = in.getChar();
+        playerY = in.getChar();
+    }
+
+    private void readMissiles(ByteBuffer in) {
+        missileCount = in.getShort();
+        ensureMissiles(missileCount);
+        for (int i = 0; i < missileCount; i++) {
+            missileKinds[i] = in.get();
+            missileX[i] = in.getChar();
+            missileY[i] = in.getChar();
+        }
+    }
+
+    private void removeEnemy(int index) {
+        int tail = enemyCount - index - 1;
+        System.arraycopy(enemyIds, index + 1, enemyIds, index, tail);
+        System.arraycopy(enemyTypes, index + 1, enemyTypes, index, tail);
+        System.arraycopy(enemyX, index + 1, enemyX, index, tail);
+        System.arraycopy(enemyY, index + 1, enemyY, index, tail);
+        enemyCount--;
+    }
+
+    private void insertEnemy(int index) {
+        ensureEnemies(enemyCount + 1);
+        int tail = enemyCount - index;
+        if (tail > 0) {
+            System.arraycopy(enemyIds, index, enemyIds, index + 1, tail);
+            System.arraycopy(enemyTypes, index, enemyTypes, index + 1, tail);
+            System.arraycopy(enemyX, index, enemyX, index + 1, tail);
+            System.arraycopy(enemyY, index, enemyY, index + 1, tail);
+        }
+        enemyCount++;
+    }
+
+    private void ensureEnemies(int size) {
+        if (size > enemyIds.length) {
+            int capacity = Math.max(size, enemyIds.length * 2);
+            enemyIds = Arrays.copyOf(enemyIds, capacity);
+            enemyTypes = Arrays.copyOf(enemyTypes, capacity);
+            enemyX = Arrays.copyOf(enemyX, capacity);
+            enemyY = Arrays.copyOf(enemyY, capacity);
+        }
+    }
+
+    private void ensureMissiles(int size) {
+        if (size > missileKinds.length) {
+            int capacity = Math.max(size, missileKinds.length * 2);
+            missileKinds = Arrays.copyOf(missileKinds, capacity);
+            missileX = Arrays.copyOf(missileX, capacity);
+            missileY = Arrays.copyOf(missileY, capacity);
+        }
+    }
+
+    /* ========================= */
+    /* ======== ACCESSEURS ====== */
+    /* ========================= */
+
+    /**
+     * Quantifie une coordonnée sur 16 bits.
+     *
+     * @param value coordonnée (écran entre 0 et 1)
+     * @return valeur quantifiée
+     */
+    public static int quantize(double value) {
+        double clamped = Math.max(-0.5, Math.min(1.5, value));
+        return (int) Math.round((clamped + 0.5) / 2 * 0xFFFF);
+    }
+
+    /**
+     * @param q valeur quantifiée
+     * @return coordonnée correspondante
+     */
+    public static double dequantize(int q) {
+        return q * 2.0 / 0xFFFF - 0.5;
+    }
+
+    /**
+     * @return numéro de la frame
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return vies restantes du joueur
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * @return indicateurs du joueur ({@link #PLAYER_VISIBLE}, {@link #PLAYER_INVINCIBLE})
+     */
+    public int getPlayerFlags() {
+        return playerFlags;
+    }
+
+    /**
+     * @return position X du joueur
+     */
+    public double getPlayerX() {
+        return dequantize(playerX);
+    }
+
+    /**
+     * @return position Y du joueur
+     */
+    public double getPlayerY() {
+        return dequantize(playerY);
+    }
+
+    /**
+     * @return nombre d'ennemis
+     */
+    public int getEnemyCount() {
+        return enemyCount;
+    }
+
+    /**
+     * @param i indice de l'ennemi
+     * @return identifiant de l'ennemi
+     */
+    public int getEnemyId(int i) {
+        return enemyIds[i];
+    }
+
+    /**
+     * @param i indice de l'ennemi
+     * @return type de l'ennemi (ordinal de {@link game.actors.Enemys.EnemyType})
+     */
+    public int getEnemyType(int i) {
+        return enemyTypes[i];
+    }
+
+    /**
+     * @param i indice de l'ennemi
+     * @return position X de l'ennemi
+     */
+    public double getEnemyX(int i) {
+        return dequantize(enemyX[i]);
+    }
+
+    /**
+     * @param i indice de l'ennemi
+     * @return position Y de l'ennemi
+     */
+    public double getEnemyY(int i) {
+        return dequantize(enemyY[i]);
+    }
+
+    /**
+     * @return nombre de missiles
+     */
+    public int getMissileCount() {
+        return missileCount;
+    }
+
+    /**
+     * @param i indice du missile
+     * @return type du missile ({@link #PLAYER_MISSILE} ou {@link #ENEMY_MISSILE})
+     */
+    public int getMissileKind(int i) {
+        return missileKinds[i];
+    }
+
+    /**
+     * @param i indice du missile
+     * @return position X du missile
+     */
+    public double getMissileX(int i) {
+        return dequantize(missileX[i]);
+    }
+
+    /**
+     * @param i indice du missile
+     * @return position Y du missile
+     */
+    public double getMissileY(int i) {
+        return dequantize(missileY[i]);
+    }
+
+    /**
+     * Compare le contenu de deux images.
+     *
+     * @param other image à comparer
+     * @return {@code true} si les deux images sont identiques
+     */
+    public boolean sameAs(WorldFrame other) {
+        return tick == other.tick && score == other.score && lives == other.lives
+                && playerFlags == other.playerFlags && playerX == other.playerX && playerY == other.playerY
+                && enemyCount == other.enemyCount && missileCount == other.missileCount
+                && Arrays.equals(enemyIds, 0, enemyCount, other.enemyIds, 0, enemyCount)
+                && Arrays.equals(enemyTypes, 0, enemyCount, other.enemyTypes, 0, enemyCount)
+                && Arrays.equals(enemyX, 0, enemyCount, other.enemyX, 0, enemyCount)
+                && Arrays.equals(enemyY, 0, enemyCount, other.enemyY, 0, enemyCount)
+                && Arrays.equals(missileKinds, 0, missileCount, other.missileKinds, 0, missileCount)
+                && Arrays.equals(missileX, 0, missileCount, other.missileX, 0, missileCount)
+                && Arrays.equals(missileY, 0, missileCount, other.missileY, 0, missileCount);
+    }
+}
@@ -0,0 +1,355 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Moteur de rendu qui regroupe les dessins d'une frame avant de les
+ * transmettre à un autre moteur.
+ * <p>
+ * Les rectangles et les segments sont enregistrés dans des tableaux
+ * primitifs, puis envoyés au moteur cible lors de {@link #show()} (ou de
+ * {@link #flush()}), triés par couleur : la couleur n'est changée qu'une
+ * fois par couleur distincte au lieu d'une fois par appel. Les rectangles
+ * consécutifs de même couleur qui se touchent sur une même ligne (par
+ * exemple les pixels d'une ligne de sprite) sont fusionnés en un seul.
+ * </p>
+ * <p>
+ * Le gain vient des moteurs dont chaque appel coûte cher (StdDraw et
+ * Java2D) ; devant un {@link FramebufferRenderer}, dont les dessins ne
+ * coûtent presque rien, le tri coûte plus qu'il ne rapporte.
+ * </p>
+ * <p>
+ * L'ordre d'enregistrement n'est conservé qu'entre dessins de même couleur :
+ * deux formes de couleurs différentes qui se chevauchent peuvent apparaître
+ * dans l'ordre inverse. Les images sont envoyées en premier et les textes
+ * en dernier, chacun dans leur ordre d'origine.
+ * </p>
+ */
+public class BatchingRenderer implements Renderer {
+
+    /** Type de dessin : rectangle plein */
+    private static final byte RECTANGLE = 0;
+
+    /** Type de dessin : segment */
+    private static final byte LINE = 1;
+
+    /** Écart toléré entre deux rectangles pour les considérer jointifs */
+    private static final double EPSILON = 1e-9;
+
+    /** Moteur recevant les dessins regroupés */
+    private final Renderer target;
+
+    /** Couleurs distinctes de la frame */
+    private Color[] colors = new Color[16];
+
+    /** Nombre de couleurs distinctes */
+    private int colorCount = 0;
+
+    /** Indice de la couleur courante dans {@link #colors}, ou -1 */
+    private int currentColor = -1;
+
+    /** Couleur courante */
+    private Color penColor = Color.BLACK;
+
+    /** Type de chaque dessin */
+    private byte[] kinds = new byte[1024];
+
+    /** Couleur de chaque dessin */
+    private int[] opColors = new int[1024];
+
+    /** Coordonnées de chaque dessin (4 par dessin) */
+    private double[] coords = new double[4 * 1024];
+
+    /** Clés de tri (couleur, puis ordre d'enregistrement) */
+    private long[] keys = new long[1024];
+
+    /** Nombre de dessins enregistrés */
+    private int count = 0;
+
+    /** Images de la frame */
+    private BufferedImage[] pictures = new BufferedImage[8];
+
+    /** Position de chaque image (4 par image : centre et demi-dimensions) */
+    private double[] pictureCoords = new double[32];
+
+    /** Zone dessinée de chaque image (4 par image : gauche, haut, largeur, hauteur) */
+    private int[] pictureSources = new int[32];
+
+    /** Nombre d'images enregistrées */
+    private int pictureCount = 0;
+
+    /** Textes de la frame */
+    private String[] texts = new String[16];
+
+    /** Position de chaque texte (2 par texte) */
+    private double[] textCoords = new double[32];
+
+    /** Couleur de chaque texte */
+    private Color[] textColors = new Color[16];
+
+    /** Police de chaque texte */
+    private Font[] textFonts = new Font[16];
+
+    /** Nombre de textes enregistrés */
+    private int textCount = 0;
+
+    /** Police courante */
+    private Font font;
+
+    /** Dessins enregistrés depuis la création */
+    private long recorded = 0;
+
+    /** Dessins envoyés au moteur cible depuis la création */
+    private long emitted = 0;
+
+    /** Changements de couleur envoyés au moteur cible depuis la création */
+    private long colorChanges = 0;
+
+    /**
+     * Construit un moteur de rendu regroupant ses dessins.
+     *
+     * @param target moteur recevant les dessins regroupés
+     */
+    public BatchingRenderer(Renderer target) {
+        this.target = target;
+    }
+
+    /**
+     * Efface la surface du moteur cible ; les dessins en attente, qui
+     * seraient effacés, sont oubliés.
+     */
+    @Override
+    public void clear(Color color) {
+        reset();
+        target.clear(color);
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+        penColor = color;
+        currentColor = -1;
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        record(RECTANGLE, x - halfWidth, y - halfHeight, x + halfWidth, y + halfHeight);
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1) {
+        record(LINE, x0, y0, x1, y1);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        this.font = font;
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+        if (textCount == texts.length) {
+            int capacity = textCount * 2;
+            texts = Arrays.copyOf(texts, capacity);
+            textCoords = Arrays.copyOf(textCoords, 2 * capacity);
+            textColors = Arrays.copyOf(textColors, capacity);
+            textFonts = Arrays.copyOf(textFonts, capacity);
+        }
+        texts[textCount] = text;
+        textCoords[2 * textCount] = x;
+        textCoords[2 * textCount + 1] = y;
+        textColors[textCount] = penColor;
+        textFonts[textCount] = font;
+        textCount++;
+    }
+
+    @Override
+    public void picture(BufferedImage image, double x, double y, double halfWidth, double halfHeight) {
+        picture(image, 0, 0, image.getWidth(), image.getHeight(), x, y, halfWidth, halfHeight);
+    }
+
+    @Override
+    public void picture(BufferedImage image, int sx, int sy, int sw, int sh,
+            double x, double y, double halfWidth, double halfHeight) {
+        if (pictureCount == pictures.length) {
+            pictures = Arrays.copyOf(pictures, pictureCount * 2);
+            pictureCoords = Arrays.copyOf(pictureCoords, 4 * pictureCount * 2);
+            pictureSources = Arrays.copyOf(pictureSources, 4 * pictureCount * 2);
+        }
+        pictures[pictureCount] = image;
+        int o = 4 * pictureCount;
+        pictureCoords[o] = x;
+        pictureCoords[o + 1] = y;
+        pictureCoords[o + 2] = halfWidth;
+        pictureCoords[o + 3] = halfHeight;
+        pictureSources[o] = sx;
+        pictureSources[o + 1] = sy;
+        pictureSources[o + 2] = sw;
+        pictureSources[o + 3] = sh;
+        pictureCount++;
+        recorded++;
+    }
+
+    @Override
+    public boolean prefersImages() {
+        return target.prefersImages();
+    }
+
+    /**
+     * Envoie les dessins de la frame au moteur cible, puis termine la frame
+     * de celui-ci.
+     */
+    @Override
+    public void show() {
+        flush();
+        target.show();
+    }
+
+    /**
+     * Envoie au moteur cible les dessins en attente, regroupés par couleur.
+     */
+    public void flush() {
+        for (int p = 0; p < pictureCount; p++) {
+            int o = 4 * p;
+            target.picture(pictures[p], pictureSources[o], pictureSources[o + 1], pictureSources[o + 2],
+                    pictureSources[o + 3], pictureCoords[o], pictureCoords[o + 1], pictureCoords[o + 2],
+                    pictureCoords[o + 3]);
+            emitted++;
+        }
+
+        for (int i = 0; i < count; i++) {
+            keys[i] = (long) opColors[i] << 32 | i;
+        }
+        Arrays.sort(keys, 0, count);
+
+        int color = -1;
+        int i = 0;
+        while (i < count) {
+            int op = (int) keys[i];
+            if (opColors[op] != color) {
+                color = opColors[op];
+                target.setPenColor(colors[color]);
+                colorChanges++;
+            }
+            int o = 4 * op;
+            if (kinds[op] == LINE) {
+                target.line(coords[o], coords[o + 1], coords[o + 2], coords[o + 3]);
+                i++;
+            } else {
+                // fusion des rectangles suivants de même couleur, même ligne et jointifs
+                double right = coords[o + 2];
+                int j = i + 1;
+                while (j < count) {
+                    int next = (int) keys[j];
+                    int n = 4 * next;
+                    if (opColors[next] != color || kinds[next] != RECTANGLE
+                            || Math.abs(coords[n + 1] - coords[o + 1]) > EPSILON
+                            || Math.abs(coords[n + 3] - coords[o + 3]) > EPSILON
+                            || Math.abs(coords[n] - right) > EPSILON) {
+                        break;
+                    }
+                    right = coords[n + 2];
+                    j++;
+                }
+                target.filledRectangle((coords[o] + right) / 2, (coords[o + 1] + coords[o + 3]) / 2,
+                        (right - coords[o]) / 2, (coords[o + 3] - coords[o + 1]) / 2);
+                i = j;
+            }
+            emitted++;
+        }
+
+        for (int t = 0; t < textCount; t++) {
+            target.setPenColor(textColors[t]);
+            if (textFonts[t] != null) {
+                target.setFont(textFonts[t]);
+            }
+            target.text(textCoords[2 * t], textCoords[2 * t + 1], texts[t]);
+            emitted++;
+            colorChanges++;
+        }
+        reset();
+    }
+
+    /**
+     * @return nombre de dessins enregistrés depuis la création
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * @return nombre de dessins envoyés au moteur cible depuis la création
+     */
+    public long getEmitted() {
+        return emitted;
+    }
+
+    /**
+     * @return nombre de changements de couleur envoyés au moteur cible
+     *         depuis la création
+     */
+    public long getColorChanges() {
+        return colorChanges;
+    }
+
+    /**
+     * Enregistre un dessin de la couleur courante.
+     */
+    private void record(byte kind, double x0, double y0, double x1, double y1) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            opColors = Arrays.copyOf(opColors, capacity);
+            coords = Arrays.copyOf(coords, 4 * capacity);
+            keys = new long[capacity];
+        }
+        kinds[count] = kind;
+        opColors[count] = colorIndex();
+        int o = 4 * count;
+        coords[o] = x0;
+        coords[o + 1] = y0;
+        coords[o + 2] = x1;
+        coords[o + 3] = y1;
+        count++;
+        recorded++;
+    }
+
+    /**
+     * @return indice de la couleur courante, ajoutée aux couleurs de la frame
+     *         si besoin
+     */
+    private int colorIndex() {
+        if (currentColor >= 0) {
+            return currentColor;
+        }
+        int rgb = penColor.getRGB();
+        for (int i = 0; i < colorCount; i++) {
+            if (colors[i].getRGB() == rgb) {
+                return currentColor = i;
+            }
+        }
+        if (colorCount == colors.length) {
+            colors = Arrays.copyOf(colors, colorCount * 2);
+        }
+        colors[colorCount] = penColor;
+        return currentColor = colorCount++;
+    }
+
+    /**
+     * Oublie les dessins et les couleurs de la frame.
+     */
+    private void reset() {
+        count = 0;
+        Arrays.fill(pictures, 0, pictureCount, null);
+        pictureCount = 0;
+        Arrays.fill(texts, 0, textCount, null);
+        Arrays.fill(textColors, 0, textCount, null);
+        Arrays.fill(textFonts, 0, textCount, null);
+        textCount = 0;
+        Arrays.fill(colors, 0, colorCount, null);
+        colorCount = 0;
+        currentColor = -1;
+    }
+}
@@ -0,0 +1,256 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Moteur de rendu dessinant dans un tableau de pixels en mémoire.
+ * <p>
+ * Les pixels sont des entiers ARGB rangés ligne par ligne, de haut en bas.
+ * Rectangles et segments y sont écrits directement, sans antialiasing ;
+ * seul le texte passe par Java2D, à travers une {@link BufferedImage} qui
+ * partage le même tableau. Aucune fenêtre n'est nécessaire.
+ * </p>
+ * <p>
+ * L'image couvre par défaut le carré unité ; {@link #setView} permet de
+ * n'en couvrir qu'une partie, par exemple une bande de l'écran.
+ * </p>
+ */
+public class FramebufferRenderer implements Renderer {
+
+    /** Largeur de l'image (en pixels) */
+    private final int width;
+
+    /** Hauteur de l'image (en pixels) */
+    private final int height;
+
+    /** Pixels ARGB, ligne par ligne */
+    private final int[] pixels;
+
+    /** Image partageant {@link #pixels} */
+    private final BufferedImage image;
+
+    /** Contexte Java2D de l'image, créé au premier texte */
+    private Graphics2D graphics;
+
+    /** Couleur courante (ARGB) */
+    private int color = 0xFF000000;
+
+    /** Police courante */
+    private Font font = new Font("SansSerif", Font.PLAIN, 16);
+
+    /** Zone couverte par l'image */
+    private double xmin = 0, xmax = 1, ymin = 0, ymax = 1;
+
+    /**
+     * Construit un moteur de rendu en mémoire.
+     *
+     * @param width  largeur de l'image (en pixels)
+     * @param height hauteur de l'image (en pixels)
+     * @throws IllegalArgumentException si une dimension n'est pas positive
+     */
+    public FramebufferRenderer(int width, int height) {
+        this(width, height, false);
+    }
+
+    /**
+     * Construit un moteur de rendu en mémoire, éventuellement opaque.
+     * <p>
+     * Une image opaque ignore la transparence, mais se copie bien plus vite
+     * dans une autre image par Java2D.
+     * </p>
+     *
+     * @param width  largeur de l'image (en pixels)
+     * @param height hauteur de l'image (en pixels)
+     * @param opaque {@code true} pour une image sans transparence
+     * @throws IllegalArgumentException si une dimension n'est pas positive
+     */
+    public FramebufferRenderer(int width, int height, boolean opaque) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Dimensions invalides : " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * @return largeur de l'image (en pixels)
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return hauteur de l'image (en pixels)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return pixels ARGB de l'image, ligne par ligne (tableau partagé)
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return image partageant les pixels du moteur
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Change la zone couverte par l'image. Par défaut, le carré unité.
+     *
+     * @param xmin abscisse du bord gauche
+     * @param xmax abscisse du bord droit
+     * @param ymin ordonnée du bord bas
+     * @param ymax ordonnée du bord haut
+     * @throws IllegalArgumentException si la zone est vide
+     */
+    public void setView(double xmin, double xmax, double ymin, double ymax) {
+        if (xmax <= xmin || ymax <= ymin)
+            throw new IllegalArgumentException("Zone vide");
+        this.xmin = xmin;
+        this.xmax = xmax;
+        this.ymin = ymin;
+        this.ymax = ymax;
+    }
+
+    /**
+     * @return abscisse en pixels
+     */
+    private double px(double x) {
+        return (x - xmin) * width / (xmax - xmin);
+    }
+
+    /**
+     * @return ordonnée en pixels (de haut en bas)
+     */
+    private double py(double y) {
+        return (ymax - y) * height / (ymax - ymin);
+    }
+
+    @Override
+    public void clear(Color color) {
+        Arrays.fill(pixels, color.getRGB());
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+        this.color = color.getRGB();
+        if (graphics != null) {
+            graphics.setColor(color);
+        }
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        // pixels dont le centre est dans le rectangle (à l'arrondi près, pour
+        // que deux rectangles jointifs ne se recouvrent jamais)
+        int x0 = Math.max(0, edge(px(x - halfWidth)));
+        int x1 = Math.min(width, edge(px(x + halfWidth)));
+        int y0 = Math.max(0, edge(py(y + halfHeight)));
+        int y1 = Math.min(height, edge(py(y - halfHeight)));
+        for (int row = y0; row < y1; row++) {
+            Arrays.fill(pixels, row * width + x0, row * width + Math.max(x0, x1), color);
+        }
+    }
+
+    /**
+     * Retourne le premier pixel dont le centre est après un bord.
+     *
+     * @param position position du bord (en pixels)
+     * @return indice du pixel
+     */
+    static int edge(double position) {
+        return (int) Math.ceil(position - 0.5 - 1e-6);
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1) {
+        // Bresenham
+        int px = (int) Math.floor(px(x0));
+        int py = (int) Math.floor(py(y0));
+        int qx = (int) Math.floor(px(x1));
+        int qy = (int) Math.floor(py(y1));
+        int dx = Math.abs(qx - px);
+        int dy = -Math.abs(qy - py);
+        int sx = px < qx ? 1 : -1;
+        int sy = py < qy ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            if (px >= 0 && px < width && py >= 0 && py < height) {
+                pixels[py * width + px] = color;
+            }
+            if (px == qx && py == qy) {
+                return;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                px += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                py += sy;
+            }
+        }
+    }
+
+    @Override
+    public void setFont(Font font) {
+        this.font = font;
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+        if (graphics == null) {
+            graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(new Color(color, true));
+        }
+        graphics.setFont(font);
+        FontMetrics metrics = graphics.getFontMetrics();
+        float xs = (float) (px(x) - metrics.stringWidth(text) / 2.0);
+        float ys = (float) (py(y) + metrics.getDescent());
+        graphics.drawString(text, xs, ys);
+    }
+
+    @Override
+    public void picture(BufferedImage image, double x, double y, double halfWidth, double halfHeight) {
+        picture(image, 0, 0, image.getWidth(), image.getHeight(), x, y, halfWidth, halfHeight);
+    }
+
+    @Override
+    public void picture(BufferedImage image, int sx, int sy, int sw, int sh,
+            double x, double y, double halfWidth, double halfHeight) {
+        Pixels.blit(Pixels.argb(image), image.getWidth(), sx, sy, sw, sh,
+                pixels, width, px(x - halfWidth), py(y + halfHeight), px(x + halfWidth), py(y - halfHeight),
+                0, 0, width, height, !image.getColorModel().hasAlpha());
+    }
+
+    @Override
+    public boolean prefersImages() {
+        return false;
+    }
+
+    /**
+     * Ne fait rien : l'image est complète dès la fin des dessins et se lit
+     * avec {@link #getPixels()} ou {@link #getImage()}.
+     */
+    @Override
+    public void show() {
+    }
+}
@@ -0,0 +1,216 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Atlas des glyphes d'une police, rendus une fois par Java2D puis
+ * conservés sous forme de masques d'opacité.
+ * <p>
+ * Les glyphes sont rangés côte à côte, dans l'ordre des caractères, dans
+ * un seul tableau d'opacités : écrire un texte ou un nombre revient à
+ * recopier des morceaux de cet atlas, sans repasser par Java2D ni
+ * mesurer la police. Seuls les caractères ASCII imprimables sont
+ * conservés ; les autres sont remplacés par '?'.
+ * </p>
+ */
+class GlyphCache {
+
+    /** Premier caractère conservé */
+    private static final char FIRST = 32;
+
+    /** Dernier caractère conservé */
+    private static final char LAST = 126;
+
+    /** Marge autour de chaque glyphe (en pixels) */
+    private static final int PAD = 2;
+
+    /** Opacités (0 à 255) de tous les glyphes, ligne par ligne */
+    final byte[] atlas;
+
+    /** Largeur de l'atlas */
+    final int atlasWidth;
+
+    /** Abscisse de chaque glyphe dans l'atlas */
+    final int[] offsets = new int[LAST - FIRST + 1];
+
+    /** Largeur de chaque glyphe dans l'atlas */
+    final int[] widths = new int[LAST - FIRST + 1];
+
+    /** Avance du curseur après chaque caractère */
+    final int[] advances = new int[LAST - FIRST + 1];
+
+    /** Hauteur de l'atlas (commune à tous les glyphes) */
+    final int height;
+
+    /** Décalage du haut des glyphes par rapport à la ligne de base */
+    final int top;
+
+    /** Décalage de la gauche des glyphes par rapport au curseur */
+    final int left = -PAD;
+
+    /** Hauteur sous la ligne de base */
+    final int descent;
+
+    /**
+     * Rend tous les glyphes d'une police.
+     *
+     * @param font police à rendre
+     */
+    GlyphCache(Font font) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scratch.createGraphics();
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+        g.dispose();
+
+        this.descent = metrics.getDescent();
+        this.top = -(metrics.getAscent() + PAD);
+        this.height = metrics.getAscent() + metrics.getDescent() + 2 * PAD;
+
+        int x = 0;
+        for (char c = FIRST; c <= LAST; c++) {
+            int i = c - FIRST;
+            advances[i] = metrics.charWidth(c);
+            widths[i] = advances[i] + 2 * PAD;
+            offsets[i] = x;
+            x += widths[i];
+        }
+        this.atlasWidth = x;
+
+        BufferedImage image = new BufferedImage(atlasWidth, height, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        g.setColor(Color.WHITE);
+        for (char c = FIRST; c <= LAST; c++) {
+            int i = c - FIRST;
+            // chaque glyphe est limité à sa case pour ne pas déborder sur ses voisins
+            g.setClip(offsets[i], 0, widths[i], height);
+            g.drawString(String.valueOf(c), offsets[i] + PAD, -top);
+        }
+        g.dispose();
+
+        int[] pixels = Pixels.argb(image);
+        this.atlas = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            atlas[i] = (byte) (pixels[i] >>> 24);
+        }
+    }
+
+    /**
+     * @param c caractère
+     * @return indice du glyphe du caractère
+     */
+    int index(char c) {
+        return c >= FIRST && c <= LAST ? c - FIRST : '?' - FIRST;
+    }
+
+    /**
+     * @param text texte
+     * @return largeur du texte (en pixels)
+     */
+    int width(CharSequence text) {
+        int w = 0;
+        for (int i = 0; i < text.length(); i++) {
+            w += advances[index(text.charAt(i))];
+        }
+        return w;
+    }
+
+    /**
+     * @param value entier positif ou nul
+     * @return largeur de l'écriture décimale de l'entier (en pixels)
+     */
+    int width(long value) {
+        int w = 0;
+        do {
+            w += advances[index((char) ('0' + value % 10))];
+            value /= 10;
+        } while (value > 0);
+        return w;
+    }
+
+    /**
+     * Écrit un texte dans une image.
+     *
+     * @param text     texte
+     * @param pixels   pixels ARGB de l'image
+     * @param width    largeur de l'image
+     * @param height   hauteur de l'image
+     * @param x        position du curseur au début du texte
+     * @param baseline ordonnée de la ligne de base
+     * @param rgb      couleur du texte
+     * @return position du curseur après le texte
+     */
+    int drawText(CharSequence text, int[] pixels, int width, int height, int x, int baseline, int rgb) {
+        for (int i = 0; i < text.length(); i++) {
+            int g = index(text.charAt(i));
+            drawGlyph(g, x + left, baseline + top, pixels, width, 0, 0, width, height, rgb);
+            x += advances[g];
+        }
+        return x;
+    }
+
+    /**
+     * Écrit l'écriture décimale d'un entier dans une image, chiffre par
+     * chiffre depuis l'atlas.
+     *
+     * @param value    entier positif ou nul
+     * @param pixels   pixels ARGB de l'image
+     * @param width    largeur de l'image
+     * @param height   hauteur de l'image
+     * @param x        position du curseur au début du nombre
+     * @param baseline ordonnée de la ligne de base
+     * @param rgb      couleur du texte
+     * @return position du curseur après le nombre
+     */
+    int drawNumber(long value, int[] pixels, int width, int height, int x, int baseline, int rgb) {
+        int end = x + width(value);
+        int pen = end;
+        do {
+            int g = index((char) ('0' + value % 10));
+            pen -= advances[g];
+            drawGlyph(g, pen + left, baseline + top, pixels, width, 0, 0, width, height, rgb);
+            value /= 10;
+        } while (value > 0);
+        return end;
+    }
+
+    /**
+     * Mélange un glyphe dans une image, en se limitant à une zone de découpe.
+     *
+     * @param glyph  indice du glyphe
+     * @param gx     gauche du glyphe dans l'image
+     * @param gy     haut du glyphe dans l'image
+     * @param pixels pixels ARGB de l'image
+     * @param width  largeur de l'image
+     * @param cx0    gauche de la découpe
+     * @param cy0    haut de la découpe
+     * @param cx1    droite (exclue) de la découpe
+     * @param cy1    bas (exclu) de la découpe
+     * @param rgb    couleur du glyphe
+     */
+    void drawGlyph(int glyph, int gx, int gy, int[] pixels, int width, int cx0, int cy0, int cx1, int cy1,
+            int rgb) {
+        int x0 = Math.max(gx, cx0);
+        int y0 = Math.max(gy, cy0);
+        int x1 = Math.min(gx + widths[glyph], cx1);
+        int y1 = Math.min(gy + height, cy1);
+        int shift = offsets[glyph] - gx;
+        for (int y = y0; y < y1; y++) {
+            int m = (y - gy) * atlasWidth + shift;
+            int p = y * width;
+            for (int x = x0; x < x1; x++) {
+                int coverage = atlas[m + x] & 0xFF;
+                if (coverage != 0) {
+                    pixels[p + x] = Pixels.blend(rgb, pixels[p + x], coverage);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+
+import game.util.SpriteAtlas;
+import game.util.SpriteRenderer;
+
+/**
+ * Interface (HUD) du jeu, gardée en cache dans des images.
+ * <p>
+ * Le HUD occupe deux bandes de l'écran : en haut le score et le meilleur
+ * score, en bas les vies restantes et les niveaux complétés. Chaque bande
+ * est dessinée dans sa propre image, qui n'est redessinée que lorsqu'une
+ * des valeurs affichées change ; le reste du temps, afficher le HUD ne
+ * coûte qu'une copie d'image par bande. Les bandes sont opaques, de la
+ * couleur du fond (une image opaque se copie bien plus vite) : le HUD doit
+ * donc être dessiné avant les acteurs. Les nombres sont écrits chiffre par
+ * chiffre depuis un atlas de glyphes préparé une fois (voir
+ * {@link GlyphCache}).
+ * </p>
+ */
+public class HudLayer {
+
+    /** Zone de la bande du haut (gauche, droite, bas, haut) */
+    private static final double[] TOP_BAND = { 0.25, 0.75, 0.90, 0.97 };
+
+    /** Zone de la bande du bas (gauche, droite, bas, haut) */
+    private static final double[] BOTTOM_BAND = { 0, 1, 0.02, 0.08 };
+
+    /** Ordonnée de la ligne du score */
+    private static final double SCORE_Y = 0.95;
+
+    /** Ordonnée de la ligne du meilleur score */
+    private static final double HIGHSCORE_Y = 0.92;
+
+    /** Taille de la police (en pixels de la fenêtre) */
+    private static final int FONT_SIZE = 14;
+
+    /** Sprite des vies restantes */
+    private static final SpriteAtlas.Region SHIP = SpriteAtlas.shared().getRegion("ship.spr");
+
+    /** Sprite des niveaux complétés */
+    private static final SpriteAtlas.Region LEVEL = SpriteAtlas.shared().getRegion("level.spr");
+
+    /** Bande du haut */
+    private final FramebufferRenderer top;
+
+    /** Bande du bas */
+    private final FramebufferRenderer bottom;
+
+    /** Glyphes du texte */
+    private final GlyphCache glyphs;
+
+    /** Couleur du fond des bandes */
+    private final Color background;
+
+    /** Zones des bandes, alignées sur les pixels de la fenêtre */
+    private final double[] topZone, bottomZone;
+
+    /** Valeurs affichées (-1 avant le premier dessin) */
+    private int score = -1, highScore = -1, lives = -1, levels = -1;
+
+    /** Nombre de fois où une bande a été redessinée */
+    private long rebuilds = 0;
+
+    /**
+     * Construit le HUD.
+     *
+     * @param canvasSize taille de la fenêtre (en pixels)
+     * @param scale      pixels des images par pixel de la fenêtre (2 pour
+     *                   la fenêtre de StdDraw)
+     * @param background couleur du fond de l'écran
+     */
+    public HudLayer(int canvasSize, int scale, Color background) {
+        int size = canvasSize * scale;
+        this.background = background;
+        this.topZone = snap(TOP_BAND, canvasSize);
+        this.bottomZone = snap(BOTTOM_BAND, canvasSize);
+        this.top = band(topZone, size);
+        this.bottom = band(bottomZone, size);
+        this.glyphs = new GlyphCache(new Font("Arial", Font.PLAIN, FONT_SIZE * scale));
+    }
+
+    /**
+     * Met à jour les valeurs affichées, en ne redessinant que les bandes
+     * qui changent.
+     *
+     * @param score     score
+     * @param highScore meilleur score
+     * @param lives     vies restantes
+     * @param levels    niveaux complétés
+     */
+    public void update(int score, int highScore, int lives, int levels) {
+        if (score != this.score || highScore != this.highScore) {
+            this.score = score;
+            this.highScore = highScore;
+            drawTop();
+        }
+        if (lives != this.lives || levels != this.levels) {
+            this.lives = lives;
+            this.levels = levels;
+            drawBottom();
+        }
+    }
+
+    /**
+     * Dessine le HUD tel qu'il a été mis à jour en dernier.
+     *
+     * @param renderer moteur de rendu
+     */
+    public void draw(Renderer renderer) {
+        draw(renderer, top, topZone);
+        draw(renderer, bottom, bottomZone);
+    }
+
+    /**
+     * Aligne une zone sur les pixels de la fenêtre, pour que la copie des
+     * bandes se fasse sans rééchantillonnage.
+     *
+     * @param zone       zone (gauche, droite, bas, haut)
+     * @param canvasSize taille de la fenêtre (en pixels)
+     * @return zone alignée
+     */
+    private static double[] snap(double[] zone, int canvasSize) {
+        double[] snapped = new double[zone.length];
+        for (int i = 0; i < zone.length; i++) {
+            snapped[i] = Math.round(zone[i] * canvasSize) / (double) canvasSize;
+        }
+        return snapped;
+    }
+
+    /**
+     * Crée l'image d'une bande.
+     *
+     * @param zone zone de la bande (gauche, droite, bas, haut)
+     * @param size taille de l'écran (en pixels des images)
+     */
+    private static FramebufferRenderer band(double[] zone, int size) {
+        FramebufferRenderer band = new FramebufferRenderer((int) Math.round((zone[1] - zone[0]) * size),
+                (int) Math.round((zone[3] - zone[2]) * size), true);
+        band.setView(zone[0], zone[1], zone[2], zone[3]);
+        return band;
+    }
+
+    /**
+     * Copie l'image d'une bande à sa place.
+     */
+    private static void draw(Renderer renderer, FramebufferRenderer band, double[] zone) {
+        renderer.picture(band.getImage(), (zone[0] + zone[1]) / 2, (zone[2] + zone[3]) / 2,
+                (zone[1] - zone[0]) / 2, (zone[3] - zone[2]) / 2);
+    }
+
+    /**
+     * @return nombre de fois où une bande a été redessinée
+     */
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Redessine le score et le meilleur score.
+     */
+    private void drawTop() {
+        top.clear(background);
+        drawLine("SCORE: ", score, SCORE_Y);
+        drawLine("HIGHSCORE: ", highScore, HIGHSCORE_Y);
+        rebuilds++;
+    }
+
+    /**
+     * Écrit une ligne « libellé valeur » centrée, comme StdDraw.text.
+     */
+    private void drawLine(String label, int value, double y) {
+        int width = top.getWidth();
+        int height = top.getHeight();
+        int x = (int) Math.round((width - glyphs.width(label) - glyphs.width(Math.max(0, value))) / 2.0);
+        int baseline = (int) Math.round((topZone[3] - y) / (topZone[3] - topZone[2]) * height)
+                + glyphs.descent;
+        int rgb = Color.WHITE.getRGB();
+        x = glyphs.drawText(label, top.getPixels(), width, height, x, baseline, rgb);
+        glyphs.drawNumber(Math.max(0, value), top.getPixels(), width, height, x, baseline, rgb);
+    }
+
+    /**
+     * Redessine les vies restantes et les niveaux complétés.
+     */
+    private void drawBottom() {
+        bottom.clear(background);
+        for (int i = 0; i < lives; i++) {
+            SpriteRenderer.drawSprite(bottom, SHIP, 0.03 + i * 0.05 - 0.015, 0.04 - 0.015, 0.03);
+        }
+        for (int i = 0; i < levels; i++) {
+            SpriteRenderer.drawSprite(bottom, LEVEL, 0.95 - i * 0.05 - 0.02, 0.03, 0.04);
+        }
+        rebuilds++;
+    }
+}
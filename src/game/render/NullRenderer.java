@@ -0,0 +1,57 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+
+/**
+ * Moteur de rendu qui ne dessine rien.
+ * <p>
+ * Permet de parcourir tout le code de dessin sans fenêtre, par exemple pour
+ * mesurer son coût propre indépendamment de tout moteur d'affichage.
+ * </p>
+ */
+public class NullRenderer implements Renderer {
+
+    @Override
+    public void clear(Color color) {
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1) {
+    }
+
+    @Override
+    public void setFont(Font font) {
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+    }
+
+    @Override
+    public void picture(BufferedImage image, double x, double y, double halfWidth, double halfHeight) {
+    }
+
+    @Override
+    public void picture(BufferedImage image, int sx, int sy, int sw, int sh,
+            double x, double y, double halfWidth, double halfHeight) {
+    }
+
+    @Override
+    public boolean prefersImages() {
+        return false;
+    }
+
+    @Override
+    public void show() {
+    }
+}
@@ -0,0 +1,151 @@
+package game.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Opérations sur des tableaux de pixels ARGB communes aux moteurs de rendu
+ * en mémoire.
+ */
+final class Pixels {
+
+    private Pixels() {
+    }
+
+    /**
+     * Retourne les pixels ARGB d'une image, sans copie quand l'image est
+     * déjà stockée ainsi.
+     *
+     * Pour une image opaque ({@code TYPE_INT_RGB}), l'octet d'alpha des
+     * pixels retournés n'a pas de sens (voir le paramètre {@code opaque} de
+     * {@link #blit}).
+     *
+     * @param image image
+     * @return pixels ARGB, ligne par ligne, de largeur celle de l'image
+     */
+    static int[] argb(BufferedImage image) {
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                && image.getRaster().getParent() == null) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Mélange une couleur, avec une couverture donnée, par-dessus un pixel
+     * (opaque ou non).
+     *
+     * @param rgb      couleur (l'alpha est ignoré)
+     * @param dst      pixel (ARGB)
+     * @param coverage couverture (0 à 255)
+     * @return pixel mélangé
+     */
+    static int blend(int rgb, int dst, int coverage) {
+        if (coverage == 255) {
+            return 0xFF000000 | rgb;
+        }
+        int dstAlpha = dst >>> 24;
+        if (dstAlpha == 0) {
+            return coverage << 24 | (rgb & 0xFFFFFF);
+        }
+        int inv = (255 - coverage) * dstAlpha / 255;
+        int alpha = coverage + inv;
+        int r = (((rgb >> 16) & 0xFF) * coverage + ((dst >> 16) & 0xFF) * inv) / alpha;
+        int g = (((rgb >> 8) & 0xFF) * coverage + ((dst >> 8) & 0xFF) * inv) / alpha;
+        int b = ((rgb & 0xFF) * coverage + (dst & 0xFF) * inv) / alpha;
+        return alpha << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Ramène une position au 1/1024 de pixel : deux calculs d'un même bord
+     * qui ne diffèrent que par l'arrondi donnent alors la même position.
+     *
+     * @param position position (en pixels)
+     * @return position arrondie
+     */
+    static double snap(double position) {
+        return Math.rint(position * 1024) / 1024;
+    }
+
+    /**
+     * Copie une zone d'une image dans une autre en l'étirant (au plus proche
+     * voisin), par-dessus les pixels existants et en se limitant à une zone
+     * de découpe.
+     * <p>
+     * La destination est donnée en pixels non arrondis : un pixel est
+     * couvert si son centre est dans la destination, et prend la couleur du
+     * pixel source sous son centre. Le résultat est ainsi le même que si
+     * chaque pixel source était dessiné comme un rectangle plein.
+     * </p>
+     *
+     * @param src      pixels source
+     * @param srcWidth largeur de la source
+     * @param sx       gauche de la zone source
+     * @param sy       haut de la zone source
+     * @param sw       largeur de la zone source
+     * @param sh       hauteur de la zone source
+     * @param dst      pixels destination
+     * @param dstWidth largeur de la destination
+     * @param left     bord gauche de la destination (en pixels)
+     * @param top      bord haut de la destination (en pixels)
+     * @param right    bord droit de la destination (en pixels)
+     * @param bottom   bord bas de la destination (en pixels)
+     * @param cx0      gauche de la découpe
+     * @param cy0      haut de la découpe
+     * @param cx1      droite (exclue) de la découpe
+     * @param cy1      bas (exclu) de la découpe
+     * @param opaque   {@code true} si la source est opaque (son alpha est
+     *                 alors ignoré)
+     */
+    static void blit(int[] src, int srcWidth, int sx, int sy, int sw, int sh,
+            int[] dst, int dstWidth, double left, double top, double right, double bottom,
+            int cx0, int cy0, int cx1, int cy1, boolean opaque) {
+        left = snap(left);
+        top = snap(top);
+        right = snap(right);
+        bottom = snap(bottom);
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        int x0 = FramebufferRenderer.edge(left);
+        int fromX = Math.max(x0, cx0);
+        int toX = Math.min(FramebufferRenderer.edge(right), cx1);
+        int fromY = Math.max(FramebufferRenderer.edge(top), cy0);
+        int toY = Math.min(FramebufferRenderer.edge(bottom), cy1);
+        if (fromX >= toX) {
+            return;
+        }
+        // pas d'un pixel destination dans la source, en virgule fixe 16.16,
+        // compté depuis le bord gauche même quand il est découpé (une image à
+        // cheval sur deux tuiles échantillonne pareil des deux côtés) ; les
+        // indices sont bornés car un centre peut tomber sur un bord (à
+        // l'arrondi de FramebufferRenderer.edge près)
+        double scaleX = sw / (right - left);
+        double scaleY = sh / (bottom - top);
+        long stepX = (long) (scaleX * 65536);
+        long startX = (long) ((x0 + 0.5 - left) * scaleX * 65536) + (fromX - x0) * stepX;
+        int lastX = sw - 1;
+        for (int y = fromY; y < toY; y++) {
+            int v = Math.min(sh - 1, Math.max(0, (int) ((y + 0.5 - top) * scaleY)));
+            int row = (sy + v) * srcWidth + sx;
+            int p = y * dstWidth;
+            long u = startX;
+            if (opaque) {
+                for (int x = fromX; x < toX; x++, u += stepX) {
+                    dst[p + x] = 0xFF000000 | src[row + Math.min(lastX, Math.max(0, (int) (u >> 16)))];
+                }
+                continue;
+            }
+            for (int x = fromX; x < toX; x++, u += stepX) {
+                int s = src[row + Math.min(lastX, Math.max(0, (int) (u >> 16)))];
+                int alpha = s >>> 24;
+                if (alpha == 255) {
+                    dst[p + x] = s;
+                } else if (alpha != 0) {
+                    dst[p + x] = blend(s, dst[p + x], alpha);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package game.render;
+
+import java.awt.Color;
+import java.util.concurrent.ForkJoinPool;
+
+import game.Game;
+import game.input.BotController;
+
+/**
+ * Mesure le coût de dessin d'une partie avec différents moteurs de rendu.
+ * <p>
+ * Une partie du pilote automatique est simulée sans affichage ; chaque
+ * frame est dessinée successivement par chaque moteur, ce qui permet de
+ * comparer les moteurs sur exactement les mêmes scènes, indépendamment du
+ * coût de la simulation.
+ * </p>
+ */
+public class RenderBenchmark {
+
+    /** Taille de l'image des moteurs en mémoire (en pixels) */
+    private static final int SIZE = 700;
+
+    private RenderBenchmark() {
+    }
+
+    /**
+     * Dessine une partie avec chaque moteur de rendu et affiche le temps
+     * moyen par frame.
+     *
+     * @param frames nombre de frames à dessiner
+     * @param seed   graine de la partie
+     */
+    public static void run(int frames, long seed) {
+        BatchingRenderer batching = new BatchingRenderer(new FramebufferRenderer(SIZE, SIZE));
+        Renderer[] renderers = {
+                new NullRenderer(),
+                new FramebufferRenderer(SIZE, SIZE),
+                batching,
+                new SoftwareRenderer(SIZE, SIZE, new ForkJoinPool(1), false),
+                new SoftwareRenderer(SIZE, SIZE, ForkJoinPool.commonPool(), false),
+        };
+        String[] names = { "aucun", "image", "image groupée", "logiciel (1)",
+                "logiciel (" + ForkJoinPool.commonPool().getParallelism() + ")" };
+        long[] nanos = new long[renderers.length];
+
+        Game game = Game.headless();
+        BotController bot = new BotController();
+        game.startSession(seed, 1);
+        int drawn = 0;
+        for (; drawn < frames; drawn++) {
+            if (!game.isSessionRunning()) {
+                game.startSession(++seed, 1);
+            }
+            game.step(bot.nextFrame(game));
+            for (int r = 0; r < renderers.length; r++) {
+                long start = System.nanoTime();
+                renderers[r].clear(Color.BLACK);
+                game.draw(renderers[r]);
+                renderers[r].show();
+                nanos[r] += System.nanoTime() - start;
+            }
+        }
+
+        for (int r = 0; r < renderers.length; r++) {
+            System.out.printf("%-14s %8.1f µs/frame%n", names[r], nanos[r] / 1e3 / Math.max(1, drawn));
+        }
+        System.out.printf("regroupement : %.0f dessins/frame -> %.0f envois, %.0f changements de couleur%n",
+                batching.getRecorded() / (double) drawn, batching.getEmitted() / (double) drawn,
+                batching.getColorChanges() / (double) drawn);
+    }
+}
@@ -0,0 +1,118 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+
+/**
+ * Surface de dessin du jeu.
+ * <p>
+ * Les méthodes {@code draw} des acteurs, des niveaux et du jeu dessinent
+ * uniquement à travers cette interface, jamais directement dans
+ * {@link game.util.StdDraw} : on peut ainsi changer de moteur de rendu
+ * (fenêtre, image en mémoire, aucun affichage) sans toucher à la logique
+ * du jeu, et mesurer chaque moteur séparément.
+ * </p>
+ * <p>
+ * Les coordonnées sont celles de StdDraw : le carré unité, avec l'origine
+ * en bas à gauche.
+ * </p>
+ */
+public interface Renderer {
+
+    /**
+     * Efface toute la surface.
+     *
+     * @param color couleur de fond
+     */
+    void clear(Color color);
+
+    /**
+     * Change la couleur des dessins suivants.
+     *
+     * @param color nouvelle couleur
+     */
+    void setPenColor(Color color);
+
+    /**
+     * Dessine un rectangle plein.
+     *
+     * @param x          abscisse du centre
+     * @param y          ordonnée du centre
+     * @param halfWidth  demi-largeur
+     * @param halfHeight demi-hauteur
+     */
+    void filledRectangle(double x, double y, double halfWidth, double halfHeight);
+
+    /**
+     * Dessine un segment.
+     *
+     * @param x0 abscisse du premier point
+     * @param y0 ordonnée du premier point
+     * @param x1 abscisse du second point
+     * @param y1 ordonnée du second point
+     */
+    void line(double x0, double y0, double x1, double y1);
+
+    /**
+     * Change la police des textes suivants.
+     *
+     * @param font nouvelle police
+     */
+    void setFont(Font font);
+
+    /**
+     * Écrit un texte centré sur un point.
+     *
+     * @param x    abscisse du centre
+     * @param y    ordonnée du centre
+     * @param text texte à écrire
+     */
+    void text(double x, double y, String text);
+
+    /**
+     * Dessine une image étirée sur un rectangle, au plus proche voisin, en
+     * respectant sa transparence.
+     *
+     * @param image      image à dessiner
+     * @param x          abscisse du centre
+     * @param y          ordonnée du centre
+     * @param halfWidth  demi-largeur
+     * @param halfHeight demi-hauteur
+     */
+    void picture(BufferedImage image, double x, double y, double halfWidth, double halfHeight);
+
+    /**
+     * Dessine une zone d'une image (par exemple un sprite d'un atlas)
+     * étirée sur un rectangle, au plus proche voisin, en respectant sa
+     * transparence.
+     *
+     * @param image      image contenant la zone
+     * @param sx         gauche de la zone (en pixels de l'image)
+     * @param sy         haut de la zone (en pixels de l'image)
+     * @param sw         largeur de la zone (en pixels de l'image)
+     * @param sh         hauteur de la zone (en pixels de l'image)
+     * @param x          abscisse du centre
+     * @param y          ordonnée du centre
+     * @param halfWidth  demi-largeur
+     * @param halfHeight demi-hauteur
+     */
+    void picture(BufferedImage image, int sx, int sy, int sw, int sh,
+            double x, double y, double halfWidth, double halfHeight);
+
+    /**
+     * Indique si ce moteur gagne à recevoir une image préparée à l'avance
+     * plutôt que les nombreux petits rectangles qu'elle contient. C'est le
+     * cas de Java2D, où chaque dessin a un coût fixe élevé ; un moteur en
+     * mémoire remplit au contraire un petit rectangle plus vite qu'il ne
+     * copie une grande image.
+     *
+     * @return {@code true} si les images en cache sont avantageuses
+     */
+    boolean prefersImages();
+
+    /**
+     * Termine la frame en cours (affichage à l'écran pour un moteur fenêtré).
+     */
+    void show();
+}
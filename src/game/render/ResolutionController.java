@@ -0,0 +1,113 @@
+package game.render;
+
+/**
+ * Ajuste la résolution de rendu pour tenir un budget de temps par frame.
+ * <p>
+ * Le contrôleur reçoit la durée mesurée de chaque frame et en suit la
+ * moyenne glissante. Quand elle dépasse le budget, il passe à la
+ * résolution inférieure de sa liste ; quand elle reste nettement en
+ * dessous pendant assez longtemps, il remonte d'un cran. Après chaque
+ * changement, il attend quelques frames avant de juger la nouvelle
+ * résolution, ce qui évite d'osciller entre deux niveaux.
+ * </p>
+ */
+public class ResolutionController {
+
+    /** Résolutions par défaut, de la meilleure à la plus faible */
+    public static final double[] DEFAULT_SCALES = { 2.0, 1.5, 1.0, 0.75, 0.5 };
+
+    /** Frames mesurées après un changement avant de pouvoir baisser la résolution */
+    private static final int SETTLE_FRAMES = 15;
+
+    /** Frames mesurées après un changement avant de pouvoir remonter la résolution */
+    private static final int RAISE_FRAMES = 120;
+
+    /** Fraction du budget sous laquelle la moyenne doit rester pour remonter */
+    private static final double RAISE_RATIO = 0.6;
+
+    /** Poids d'une nouvelle mesure dans la moyenne glissante */
+    private static final double SMOOTHING = 0.125;
+
+    /** Résolutions possibles, de la meilleure à la plus faible */
+    private final double[] scales;
+
+    /** Budget de temps par frame (en nanosecondes) */
+    private final long budgetNanos;
+
+    /** Indice de la résolution courante */
+    private int level = 0;
+
+    /** Moyenne glissante de la durée des frames (en nanosecondes) */
+    private double average = 0;
+
+    /** Frames mesurées depuis le dernier changement */
+    private int frames = 0;
+
+    /**
+     * Construit un contrôleur avec les résolutions par défaut.
+     *
+     * @param budgetNanos budget de temps par frame (en nanosecondes)
+     */
+    public ResolutionController(long budgetNanos) {
+        this(budgetNanos, DEFAULT_SCALES);
+    }
+
+    /**
+     * Construit un contrôleur.
+     *
+     * @param budgetNanos budget de temps par frame (en nanosecondes)
+     * @param scales      résolutions possibles, de la meilleure à la plus
+     *                    faible
+     * @throws IllegalArgumentException si le budget n'est pas positif ou
+     *                                  s'il n'y a aucune résolution
+     */
+    public ResolutionController(long budgetNanos, double[] scales) {
+        if (budgetNanos <= 0)
+            throw new IllegalArgumentException("Budget invalide : " + budgetNanos);
+        if (scales.length == 0)
+            throw new IllegalArgumentException("Aucune résolution");
+        this.budgetNanos = budgetNanos;
+        this.scales = scales.clone();
+    }
+
+    /**
+     * Prend en compte la durée d'une frame.
+     *
+     * @param frameNanos durée mesurée de la frame (en nanosecondes)
+     * @return {@code true} si la résolution a changé
+     */
+    public boolean update(long frameNanos) {
+        average = frames == 0 ? frameNanos : average + (frameNanos - average) * SMOOTHING;
+        frames++;
+        if (frames >= SETTLE_FRAMES && average > budgetNanos && level < scales.length - 1) {
+            return change(level + 1);
+        }
+        if (frames >= RAISE_FRAMES && average < budgetNanos * RAISE_RATIO && level > 0) {
+            return change(level - 1);
+        }
+        return false;
+    }
+
+    /**
+     * @return résolution courante
+     */
+    public double getScale() {
+        return scales[level];
+    }
+
+    /**
+     * @return moyenne glissante de la durée des frames (en nanosecondes)
+     */
+    public double getAverageNanos() {
+        return average;
+    }
+
+    /**
+     * Passe à une autre résolution et recommence les mesures.
+     */
+    private boolean change(int newLevel) {
+        level = newLevel;
+        frames = 0;
+        return true;
+    }
+}
@@ -0,0 +1,459 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import game.util.StdDraw;
+
+/**
+ * Moteur de rendu logiciel, parallèle par tuiles.
+ * <p>
+ * Les dessins d'une frame sont enregistrés en coordonnées de pixels, puis
+ * répartis entre des tuiles carrées de {@link #TILE} pixels selon la zone
+ * qu'ils couvrent. Lors de {@link #show()}, les tuiles sont rastérisées en
+ * parallèle sur un {@link ForkJoinPool} directement dans un tableau de
+ * pixels ARGB : chaque tuile n'écrit que ses propres pixels, en rejouant
+ * dans l'ordre d'origine les dessins qui la touchent. Les textes sont
+ * rendus à partir de glyphes préparés une fois par police (voir
+ * {@link GlyphCache}) et les images sont étirées au plus proche voisin.
+ * </p>
+ * <p>
+ * L'image obtenue peut ensuite être affichée dans la fenêtre de StdDraw
+ * en un seul appel ({@link StdDraw#fullscreenImage(java.awt.Image)}).
+ * </p>
+ */
+public class SoftwareRenderer implements Renderer {
+
+    /** Côté d'une tuile (en pixels) */
+    public static final int TILE = 64;
+
+    /** Type de dessin : rectangle plein (a, b, c, d : x0, y0, x1, y1 exclus) */
+    private static final int RECTANGLE = 0;
+
+    /** Type de dessin : segment (a, b, c, d : x0, y0, x1, y1 inclus) */
+    private static final int LINE = 1;
+
+    /** Type de dessin : glyphe (a, b : coin haut gauche, c : glyphe, d : police) */
+    private static final int GLYPH = 2;
+
+    /**
+     * Type de dessin : image (a, b, c, d : x0, y0, x1, y1 exclus ; à la
+     * place de la couleur, indice de la copie d'image dans la frame)
+     */
+    private static final int IMAGE = 3;
+
+    /** Nombre d'entiers par dessin */
+    private static final int STRIDE = 6;
+
+    /** Nombre maximal de tuiles rastérisées par une même tâche */
+    private static final int TILES_PER_TASK = 2;
+
+    /** Largeur de l'image (en pixels) */
+    private final int width;
+
+    /** Hauteur de l'image (en pixels) */
+    private final int height;
+
+    /** Pixels ARGB, ligne par ligne */
+    private final int[] pixels;
+
+    /** Image partageant {@link #pixels} */
+    private final BufferedImage image;
+
+    /** Pool exécutant la rastérisation des tuiles */
+    private final ForkJoinPool pool;
+
+    /** Affiche l'image dans la fenêtre de StdDraw à chaque frame */
+    private final boolean display;
+
+    /** Nombre de tuiles par ligne */
+    private final int tilesX;
+
+    /** Nombre de lignes de tuiles */
+    private final int tilesY;
+
+    /** Dessins de chaque tuile, dans l'ordre d'enregistrement */
+    private final int[][] bins;
+
+    /** Nombre de dessins de chaque tuile */
+    private final int[] binCounts;
+
+    /** Dessins enregistrés ({@link #STRIDE} entiers par dessin) */
+    private int[] commands = new int[STRIDE * 1024];
+
+    /** Nombre de dessins enregistrés */
+    private int count = 0;
+
+    /** Couleur d'effacement de la frame (ARGB) */
+    private int clearColor;
+
+    /** Indique si la frame commence par un effacement */
+    private boolean cleared = false;
+
+    /** Couleur courante (ARGB) */
+    private int color = 0xFF000000;
+
+    /** Images distinctes dessinées pendant la frame */
+    private BufferedImage[] images = new BufferedImage[8];
+
+    /** Pixels ARGB des images dessinées pendant la frame */
+    private int[][] imagePixels = new int[8][];
+
+    /** Nombre d'images distinctes dessinées pendant la frame */
+    private int imageCount = 0;
+
+    /** Copies d'images de la frame (5 par copie : image, gauche, haut, largeur, hauteur de la zone) */
+    private int[] pictures = new int[5 * 64];
+
+    /** Destination non arrondie de chaque copie (4 par copie : gauche, haut, droite, bas, en pixels) */
+    private double[] pictureBounds = new double[4 * 64];
+
+    /** Nombre de copies d'images de la frame */
+    private int pictureCount = 0;
+
+    /** Glyphes de chaque police déjà rencontrée */
+    private final Map<Font, Integer> fontIndex = new HashMap<>();
+
+    /** Glyphes des polices, par indice */
+    private final List<GlyphCache> glyphs = new ArrayList<>();
+
+    /** Glyphes de la police courante */
+    private GlyphCache font;
+
+    /** Indice de la police courante */
+    private int fontId;
+
+    /**
+     * Construit un moteur de rendu logiciel.
+     *
+     * @param width   largeur de l'image (en pixels)
+     * @param height  hauteur de l'image (en pixels)
+     * @param pool    pool exécutant la rastérisation des tuiles
+     * @param display {@code true} pour afficher chaque frame dans la fenêtre
+     *                de StdDraw
+     * @throws IllegalArgumentException si une dimension n'est pas positive
+     */
+    public SoftwareRenderer(int width, int height, ForkJoinPool pool, boolean display) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Dimensions invalides : " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.pool = pool;
+        this.display = display;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.tilesX = (width + TILE - 1) / TILE;
+        this.tilesY = (height + TILE - 1) / TILE;
+        this.bins = new int[tilesX * tilesY][64];
+        this.binCounts = new int[tilesX * tilesY];
+        setFont(new Font("SansSerif", Font.PLAIN, 16));
+    }
+
+    /**
+     * @return pixels ARGB de l'image, ligne par ligne (tableau partagé)
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return image partageant les pixels du moteur
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Commence une nouvelle frame : les dessins en attente sont oubliés.
+     */
+    @Override
+    public void clear(Color color) {
+        count = 0;
+        Arrays.fill(binCounts, 0);
+        Arrays.fill(images, 0, imageCount, null);
+        Arrays.fill(imagePixels, 0, imageCount, null);
+        pictureCount = 0;
+        imageCount = 0;
+        clearColor = color.getRGB();
+        cleared = true;
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+        this.color = color.getRGB();
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        int x0 = Math.max(0, FramebufferRenderer.edge((x - halfWidth) * width));
+        int x1 = Math.min(width, FramebufferRenderer.edge((x + halfWidth) * width));
+        int y0 = Math.max(0, FramebufferRenderer.edge((1 - y - halfHeight) * height));
+        int y1 = Math.min(height, FramebufferRenderer.edge((1 - y + halfHeight) * height));
+        if (x0 < x1 && y0 < y1) {
+            record(RECTANGLE, x0, y0, x1, y1, x0, y0, x1 - 1, y1 - 1);
+        }
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1) {
+        int px = (int) Math.floor(x0 * width);
+        int py = (int) Math.floor((1 - y0) * height);
+        int qx = (int) Math.floor(x1 * width);
+        int qy = (int) Math.floor((1 - y1) * height);
+        record(LINE, px, py, qx, qy, Math.min(px, qx), Math.min(py, qy), Math.max(px, qx), Math.max(py, qy));
+    }
+
+    @Override
+    public void setFont(Font font) {
+        Integer id = fontIndex.get(font);
+        if (id == null) {
+            id = glyphs.size();
+            glyphs.add(new GlyphCache(font));
+            fontIndex.put(font, id);
+        }
+        this.fontId = id;
+        this.font = glyphs.get(id);
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+        // même placement que StdDraw : centré horizontalement, ligne de base
+        // sous le point de la hauteur des jambages
+        int penX = (int) Math.round(x * width - font.width(text) / 2.0);
+        int baseline = (int) Math.round((1 - y) * height + font.descent);
+        for (int i = 0; i < text.length(); i++) {
+            int g = font.index(text.charAt(i));
+            int gx = penX + font.left;
+            int gy = baseline + font.top;
+            record(GLYPH, gx, gy, g, fontId, gx, gy, gx + font.widths[g] - 1, gy + font.height - 1);
+            penX += font.advances[g];
+        }
+    }
+
+    @Override
+    public void picture(BufferedImage image, double x, double y, double halfWidth, double halfHeight) {
+        picture(image, 0, 0, image.getWidth(), image.getHeight(), x, y, halfWidth, halfHeight);
+    }
+
+    @Override
+    public void picture(BufferedImage image, int sx, int sy, int sw, int sh,
+            double x, double y, double halfWidth, double halfHeight) {
+        double left = Pixels.snap((x - halfWidth) * width);
+        double right = Pixels.snap((x + halfWidth) * width);
+        double top = Pixels.snap((1 - y - halfHeight) * height);
+        double bottom = Pixels.snap((1 - y + halfHeight) * height);
+        int x0 = FramebufferRenderer.edge(left);
+        int x1 = FramebufferRenderer.edge(right);
+        int y0 = FramebufferRenderer.edge(top);
+        int y1 = FramebufferRenderer.edge(bottom);
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        // les sprites d'un atlas partagent tous la même image
+        int id = 0;
+        while (id < imageCount && images[id] != image) {
+            id++;
+        }
+        if (id == imageCount) {
+            if (imageCount == images.length) {
+                images = Arrays.copyOf(images, imageCount * 2);
+                imagePixels = Arrays.copyOf(imagePixels, imageCount * 2);
+            }
+            images[id] = image;
+            imagePixels[id] = Pixels.argb(image);
+            imageCount++;
+        }
+        if (5 * (pictureCount + 1) > pictures.length) {
+            pictures = Arrays.copyOf(pictures, pictures.length * 2);
+            pictureBounds = Arrays.copyOf(pictureBounds, pictureBounds.length * 2);
+        }
+        int o = 5 * pictureCount;
+        pictures[o] = id;
+        pictures[o + 1] = sx;
+        pictures[o + 2] = sy;
+        pictures[o + 3] = sw;
+        pictures[o + 4] = sh;
+        pictureBounds[4 * pictureCount] = left;
+        pictureBounds[4 * pictureCount + 1] = top;
+        pictureBounds[4 * pictureCount + 2] = right;
+        pictureBounds[4 * pictureCount + 3] = bottom;
+        int penColor = color;
+        color = pictureCount++;
+        record(IMAGE, x0, y0, x1, y1, x0, y0, x1 - 1, y1 - 1);
+        color = penColor;
+    }
+
+    @Override
+    public boolean prefersImages() {
+        return false;
+    }
+
+    /**
+     * Rastérise les tuiles en parallèle puis, si le moteur affiche ses
+     * frames, copie l'image dans la fenêtre de StdDraw et l'affiche.
+     */
+    @Override
+    public void show() {
+        pool.invoke(new TileTask(0, binCounts.length));
+        if (display) {
+            StdDraw.fullscreenImage(image);
+            StdDraw.show();
+        }
+    }
+
+    /**
+     * Enregistre un dessin et l'ajoute aux tuiles que couvre sa zone.
+     */
+    private void record(int kind, int a, int b, int c, int d, int minX, int minY, int maxX, int maxY) {
+        if (maxX < 0 || maxY < 0 || minX >= width || minY >= height) {
+            return;
+        }
+        if (STRIDE * (count + 1) > commands.length) {
+            commands = Arrays.copyOf(commands, commands.length * 2);
+        }
+        int o = STRIDE * count;
+        commands[o] = kind;
+        commands[o + 1] = color;
+        commands[o + 2] = a;
+        commands[o + 3] = b;
+        commands[o + 4] = c;
+        commands[o + 5] = d;
+
+        int tx0 = Math.max(0, minX) / TILE;
+        int ty0 = Math.max(0, minY) / TILE;
+        int tx1 = Math.min(width - 1, maxX) / TILE;
+        int ty1 = Math.min(height - 1, maxY) / TILE;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                int tile = ty * tilesX + tx;
+                if (binCounts[tile] == bins[tile].length) {
+                    bins[tile] = Arrays.copyOf(bins[tile], bins[tile].length * 2);
+                }
+                bins[tile][binCounts[tile]++] = count;
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Rastérise une tuile.
+     *
+     * @param tile indice de la tuile
+     */
+    private void renderTile(int tile) {
+        int cx0 = (tile % tilesX) * TILE;
+        int cy0 = (tile / tilesX) * TILE;
+        int cx1 = Math.min(width, cx0 + TILE);
+        int cy1 = Math.min(height, cy0 + TILE);
+
+        if (cleared) {
+            for (int y = cy0; y < cy1; y++) {
+                Arrays.fill(pixels, y * width + cx0, y * width + cx1, clearColor);
+            }
+        }
+
+        int[] bin = bins[tile];
+        for (int i = 0; i < binCounts[tile]; i++) {
+            int o = STRIDE * bin[i];
+            int argb = commands[o + 1];
+            int a = commands[o + 2];
+            int b = commands[o + 3];
+            int c = commands[o + 4];
+            int d = commands[o + 5];
+            switch (commands[o]) {
+                case RECTANGLE -> fillRect(argb, Math.max(a, cx0), Math.max(b, cy0), Math.min(c, cx1),
+                        Math.min(d, cy1));
+                case LINE -> drawLine(argb, a, b, c, d, cx0, cy0, cx1, cy1);
+                case GLYPH -> glyphs.get(d).drawGlyph(c, a, b, pixels, width, cx0, cy0, cx1, cy1, argb);
+                default -> {
+                    int p = 5 * argb;
+                    int q = 4 * argb;
+                    BufferedImage source = images[pictures[p]];
+                    Pixels.blit(imagePixels[pictures[p]], source.getWidth(), pictures[p + 1], pictures[p + 2],
+                            pictures[p + 3], pictures[p + 4], pixels, width, pictureBounds[q],
+                            pictureBounds[q + 1], pictureBounds[q + 2], pictureBounds[q + 3], cx0, cy0, cx1, cy1,
+                            !source.getColorModel().hasAlpha());
+                }
+            }
+        }
+    }
+
+    /**
+     * Remplit un rectangle déjà limité à la tuile.
+     */
+    private void fillRect(int argb, int x0, int y0, int x1, int y1) {
+        if (x0 >= x1) {
+            return;
+        }
+        for (int y = y0; y < y1; y++) {
+            Arrays.fill(pixels, y * width + x0, y * width + x1, argb);
+        }
+    }
+
+    /**
+     * Trace un segment (Bresenham), en n'écrivant que les pixels de la
+     * tuile.
+     */
+    private void drawLine(int argb, int px, int py, int qx, int qy, int cx0, int cy0, int cx1, int cy1) {
+        int dx = Math.abs(qx - px);
+        int dy = -Math.abs(qy - py);
+        int sx = px < qx ? 1 : -1;
+        int sy = py < qy ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            if (px >= cx0 && px < cx1 && py >= cy0 && py < cy1) {
+                pixels[py * width + px] = argb;
+            }
+            if (px == qx && py == qy) {
+                return;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                px += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                py += sy;
+            }
+        }
+    }
+
+    /**
+     * Rastérise une plage de tuiles, en la coupant en deux tant qu'elle est
+     * trop grande.
+     */
+    private class TileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        TileTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                for (int tile = from; tile < to; tile++) {
+                    renderTile(tile);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(from, mid), new TileTask(mid, to));
+        }
+    }
+}
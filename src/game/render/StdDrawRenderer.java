@@ -0,0 +1,68 @@
+package game.render;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+
+import game.util.StdDraw;
+
+/**
+ * Moteur de rendu dessinant dans la fenêtre de {@link StdDraw}.
+ * <p>
+ * Chaque appel est transmis tel quel à StdDraw : le rendu est identique à
+ * celui obtenu en appelant StdDraw directement.
+ * </p>
+ */
+public class StdDrawRenderer implements Renderer {
+
+    @Override
+    public void clear(Color color) {
+        StdDraw.clear(color);
+    }
+
+    @Override
+    public void setPenColor(Color color) {
+        StdDraw.setPenColor(color);
+    }
+
+    @Override
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        StdDraw.filledRectangle(x, y, halfWidth, halfHeight);
+    }
+
+    @Override
+    public void line(double x0, double y0, double x1, double y1) {
+        StdDraw.line(x0, y0, x1, y1);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        StdDraw.setFont(font);
+    }
+
+    @Override
+    public void text(double x, double y, String text) {
+        StdDraw.text(x, y, text);
+    }
+
+    @Override
+    public void picture(BufferedImage image, double x, double y, double halfWidth, double halfHeight) {
+        StdDraw.picture(x, y, image, 2 * halfWidth, 2 * halfHeight);
+    }
+
+    @Override
+    public void picture(BufferedImage image, int sx, int sy, int sw, int sh,
+            double x, double y, double halfWidth, double halfHeight) {
+        StdDraw.picture(x, y, image, sx, sy, sw, sh, 2 * halfWidth, 2 * halfHeight);
+    }
+
+    @Override
+    public boolean prefersImages() {
+        return true;
+    }
+
+    @Override
+    public void show() {
+        StdDraw.show();
+    }
+}
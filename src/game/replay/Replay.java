@@ -0,0 +1,312 @@
+package game.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Enregistrement des commandes d'une partie.
+ * <p>
+ * Un replay contient la graine du générateur aléatoire, le niveau de départ,
+ * la durée d'une frame et la frame de commandes (voir
+ * {@link game.input.InputFrame}) de chaque tour de simulation. Rejoué dans
+ * un {@link game.Game} sans affichage, il reproduit exactement la partie.
+ * Il contient aussi l'empreinte de l'état du monde (voir {@link StateHasher})
+ * toutes les {@link #getHashInterval()} frames, ce qui permet de détecter
+ * la première frame où une autre exécution diverge.
+ * </p>
+ * <p>
+ * Format du fichier :
+ *
+ * <pre>
+ * "GRPL" version
+ * graine(8 octets) niveau(varint) dureeFrame(varint) nbFrames(varint)
+ * { difference(varint) repetitions(varint) }*
+ * intervalleEmpreintes(varint) nbEmpreintes(varint) { empreinte(8 octets) }*
+ * </pre>
+ *
+ * Les frames sont regroupées en séquences identiques ; chaque séquence
+ * est codée par le XOR avec la séquence précédente et sa longueur.
+ * Les fichiers de version 1 ne contiennent pas d'empreintes.
+ * </p>
+ */
+public class Replay {
+
+    /** Signature du format ("GRPL") */
+    private static final int MAGIC = 0x4752504C;
+
+    /** Version du format */
+    private static final int VERSION = 2;
+
+    /** Nombre maximal de frames d'un replay (environ 140 heures à 30 ms par frame) */
+    private static final int MAX_FRAMES = 1 << 24;
+
+    /** Nombre de frames par défaut entre deux empreintes d'état */
+    public static final int DEFAULT_HASH_INTERVAL = 30;
+
+    /** Graine du générateur aléatoire */
+    private final long seed;
+
+    /** Numéro du niveau de départ */
+    private final int levelNumber;
+
+    /** Durée d'une frame (en millisecondes) */
+    private final long tickMillis;
+
+    /** Frames de commandes enregistrées */
+    private int[] frames = new int[1024];
+
+    /** Nombre de frames enregistrées */
+    private int size = 0;
+
+    /** Nombre de frames entre deux empreintes d'état */
+    private int hashInterval = DEFAULT_HASH_INTERVAL;
+
+    /** Empreintes d'état, la i-ème étant prise à la frame (i + 1) * hashInterval */
+    private long[] hashes = new long[64];
+
+    /** Nombre d'empreintes enregistrées */
+    private int hashCount = 0;
+
+    /**
+     * Construit un replay vide.
+     *
+     * @param seed        graine du générateur aléatoire
+     * @param levelNumber numéro du niveau de départ
+     * @param tickMillis  durée d'une frame (en millisecondes)
+     */
+    public Replay(long seed, int levelNumber, long tickMillis) {
+        this.seed = seed;
+        this.levelNumber = levelNumber;
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * @return graine du générateur aléatoire
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return numéro du niveau de départ
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * @return durée d'une frame (en millisecondes)
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @return nombre de frames enregistrées
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index numéro de la frame
+     * @return frame de commandes correspondante
+     */
+    public int getFrame(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("frame " + index);
+        return frames[index];
+    }
+
+    /**
+     * @return nombre de frames entre deux empreintes d'état
+     */
+    public int getHashInterval() {
+        return hashInterval;
+    }
+
+    /**
+     * @return nombre d'empreintes d'état enregistrées
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @param index numéro de l'empreinte
+     * @return empreinte prise à la frame {@code (index + 1) * getHashInterval()}
+     */
+    public long getHash(int index) {
+        if (index < 0 || index >= hashCount)
+            throw new IndexOutOfBoundsException("empreinte " + index);
+        return hashes[index];
+    }
+
+    /**
+     * Ajoute l'empreinte d'état de la frame {@code (getHashCount() + 1) *
+     * getHashInterval()}.
+     *
+     * @param hash empreinte de l'état
+     */
+    public void addHash(long hash) {
+        if (hashCount == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashCount * 2);
+        }
+        hashes[hashCount++] = hash;
+    }
+
+    /**
+     * Ajoute une frame en fin de replay.
+     *
+     * @param frame frame de commandes
+     */
+    public void add(int frame) {
+        if (size == frames.length) {
+            frames = Arrays.copyOf(frames, size * 2);
+        }
+        frames[size++] = frame;
+    }
+
+    /**
+     * Oublie les frames (et les empreintes) postérieures à une frame donnée,
+     * par exemple après un retour en arrière dans la partie.
+     *
+     * @param frameCount nombre de frames à conserver
+     */
+    public void truncate(int frameCount) {
+        size = Math.max(0, Math.min(size, frameCount));
+        hashCount = Math.min(hashCount, size / hashInterval);
+    }
+
+    /**
+     * Encode le replay.
+     *
+     * @return contenu binaire du replay
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + size / 4);
+        ByteBuffer header = ByteBuffer.allocate(17);
+        header.putInt(MAGIC).put((byte) VERSION).putLong(seed);
+        out.write(header.array(), 0, header.position());
+        VarInts.write(out, levelNumber);
+        VarInts.write(out, tickMillis);
+        VarInts.write(out, size);
+
+        int previous = 0;
+        int i = 0;
+        while (i < size) {
+            int frame = frames[i];
+            int run = 1;
+            while (i + run < size && frames[i + run] == frame) {
+                run++;
+            }
+            VarInts.write(out, (frame ^ previous) & 0xFFFFFFFFL);
+            VarInts.write(out, run);
+            previous = frame;
+            i += run;
+        }
+
+        VarInts.write(out, hashInterval);
+        VarInts.write(out, hashCount);
+        ByteBuffer hashBytes = ByteBuffer.allocate(hashCount * Long.BYTES);
+        for (int h = 0; h < hashCount; h++) {
+            hashBytes.putLong(hashes[h]);
+        }
+        out.write(hashBytes.array(), 0, hashBytes.position());
+        return out.toByteArray();
+    }
+
+    /**
+     * Décode un replay.
+     *
+     * @param data contenu binaire du replay
+     * @return replay décodé
+     * @throws IllegalArgumentException si le contenu est invalide
+     */
+    public static Replay decode(byte[] data) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            if (in.getInt() != MAGIC)
+                throw new IllegalArgumentException("Fichier de replay invalide");
+            int version = in.get();
+            if (version != 1 && version != VERSION)
+                throw new IllegalArgumentException("Version de replay non supportée : " + version);
+
+            long seed = in.getLong();
+            int levelNumber = (int) VarInts.read(in);
+            long tickMillis = VarInts.read(in);
+            int count = (int) VarInts.read(in);
+
+            if (count < 0 || count > MAX_FRAMES)
+                throw new IllegalArgumentException("Nombre de frames invalide : " + count);
+
+            Replay replay = new Replay(seed, levelNumber, tickMillis);
+            // le nombre annoncé n'est pas cru sur parole : le tableau grandit
+            // au fil des séquences effectivement lues
+            replay.frames = new int[Math.max(1, Math.min(count, in.remaining()))];
+            int previous = 0;
+            while (replay.size < count) {
+                int frame = previous ^ (int) VarInts.read(in);
+                int run = (int) VarInts.read(in);
+                if (run <= 0 || run > count - replay.size)
+                    throw new IllegalArgumentException("Séquence de frames invalide");
+                if (replay.size + run > replay.frames.length) {
+                    replay.frames = Arrays.copyOf(replay.frames,
+                            Math.min(count, Math.max(replay.size + run, replay.frames.length * 2)));
+                }
+                Arrays.fill(replay.frames, replay.size, replay.size + run, frame);
+                replay.size += run;
+                previous = frame;
+            }
+
+            if (version >= 2) {
+                replay.hashInterval = (int) VarInts.read(in);
+                int hashCount = (int) VarInts.read(in);
+                if (replay.hashInterval <= 0 || hashCount < 0 || hashCount > in.remaining() / Long.BYTES)
+                    throw new IllegalArgumentException("Empreintes invalides");
+                replay.hashes = new long[Math.max(1, hashCount)];
+                for (int h = 0; h < hashCount; h++) {
+                    replay.hashes[h] = in.getLong();
+                }
+                replay.hashCount = hashCount;
+            }
+            return replay;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Fichier de replay tronqué", e);
+        }
+    }
+
+    /**
+     * Sauvegarde le replay dans un fichier.
+     * <p>
+     * Crée les répertoires nécessaires si ils n'existent pas.
+     * </p>
+     *
+     * @param path chemin du fichier
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void save(String path) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Files.write(file.toPath(), encode());
+    }
+
+    /**
+     * Charge un replay depuis un fichier.
+     *
+     * @param path chemin du fichier
+     * @return replay chargé
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si le fichier est invalide
+     */
+    public static Replay load(String path) throws IOException {
+        return decode(Files.readAllBytes(new File(path).toPath()));
+    }
+}
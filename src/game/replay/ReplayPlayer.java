@@ -0,0 +1,73 @@
+package game.replay;
+
+import game.Game;
+import game.sim.SimContext;
+
+/**
+ * Rejoue un {@link Replay} dans un jeu sans affichage.
+ * <p>
+ * La simulation étant déterministe, rejouer plusieurs fois le même replay
+ * donne toujours le même résultat : un replay sert donc aussi de charge de
+ * travail reproductible pour mesurer les performances de la simulation.
+ * </p>
+ */
+public class ReplayPlayer {
+
+    /** Replay à rejouer */
+    private final Replay replay;
+
+    /**
+     * Construit un lecteur de replay.
+     *
+     * @param replay replay à rejouer
+     * @throws IllegalArgumentException si la durée de frame du replay n'est
+     *                                  pas celle du jeu
+     */
+    public ReplayPlayer(Replay replay) {
+        if (replay.getTickMillis() != SimContext.DEFAULT_TICK_MILLIS)
+            throw new IllegalArgumentException("Durée de frame non supportée : " + replay.getTickMillis());
+        this.replay = replay;
+    }
+
+    /**
+     * Rejoue intégralement le replay.
+     *
+     * @return jeu dans son état final
+     */
+    public Game play() {
+        Game game = Game.headless();
+        game.startSession(replay.getSeed(), replay.getLevelNumber());
+        for (int i = 0; i < replay.size() && game.isSessionRunning(); i++) {
+            game.step(replay.getFrame(i));
+        }
+        return game;
+    }
+
+    /**
+     * Rejoue un fichier de replay plusieurs fois et affiche le résultat
+     * et la durée de chaque exécution.
+     *
+     * @param path chemin du fichier de replay
+     * @param runs nombre d'exécutions
+     * @throws Exception en cas d'erreur de lecture du fichier
+     */
+    public static void benchmark(String path, int runs) throws Exception {
+        ReplayPlayer player = new ReplayPlayer(Replay.load(path));
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            Game game = player.play();
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("run %d : %d frames, score %d, niveaux %d, vies %d, empreinte %016x, "
+                    + "%.2f ms (%.0f frames/s)%n",
+                    run,
+                    game.getContext().getTick(),
+                    game.getScore(),
+                    game.getLevelsCompleted(),
+                    game.getPlayer().getLives(),
+                    StateHasher.hash(game),
+                    elapsed / 1e6,
+                    game.getContext().getTick() * 1e9 / Math.max(1, elapsed));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package game.replay;
+
+import java.io.IOException;
+
+import game.Game;
+
+/**
+ * Enregistre les commandes d'une partie en cours.
+ * <p>
+ * La boucle de jeu démarre l'enregistrement au début de chaque partie,
+ * lui transmet chaque frame de commandes appliquée et l'état obtenu après
+ * chaque frame, puis sauvegarde le replay une fois la partie terminée.
+ * </p>
+ */
+public class ReplayRecorder {
+
+    /** Replay en cours d'enregistrement */
+    private Replay replay;
+
+    /**
+     * Démarre l'enregistrement d'une nouvelle partie.
+     *
+     * @param seed        graine du générateur aléatoire de la partie
+     * @param levelNumber numéro du niveau de départ
+     * @param tickMillis  durée d'une frame (en millisecondes)
+     */
+    public void start(long seed, int levelNumber, long tickMillis) {
+        replay = new Replay(seed, levelNumber, tickMillis);
+    }
+
+    /**
+     * Enregistre la frame de commandes appliquée à la frame courante.
+     *
+     * @param frame frame de commandes
+     */
+    public void record(int frame) {
+        if (replay != null) {
+            replay.add(frame);
+        }
+    }
+
+    /**
+     * Enregistre l'empreinte de l'état après une frame, si la frame
+     * courante est un point de contrôle.
+     *
+     * @param game partie après la mise à jour de la frame
+     */
+    public void checkpoint(Game game) {
+        if (replay != null && game.getContext().getTick() % replay.getHashInterval() == 0) {
+            replay.addHash(StateHasher.hash(game));
+        }
+    }
+
+    /**
+     * Reprend l'enregistrement à une frame antérieure (retour en arrière).
+     *
+     * @param tick frame atteinte ; les frames suivantes sont oubliées
+     */
+    public void rewindTo(long tick) {
+        if (replay != null) {
+            replay.truncate((int) tick);
+        }
+    }
+
+    /**
+     * @return replay en cours d'enregistrement, ou {@code null}
+     */
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Sauvegarde le replay enregistré.
+     * <p>
+     * Une erreur d'écriture est signalée sans interrompre le jeu.
+     * </p>
+     *
+     * @param path chemin du fichier de replay
+     */
+    public void save(String path) {
+        if (replay == null) {
+            return;
+        }
+        try {
+            replay.save(path);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la sauvegarde du replay : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package game.replay;
+
+import game.Game;
+
+/**
+ * Vérifie qu'une exécution reproduit exactement un replay.
+ * <p>
+ * Le replay est rejoué sans affichage et l'empreinte de l'état est
+ * comparée à celles enregistrées à chaque point de contrôle. La première
+ * frame divergente permet de valider une optimisation de la simulation
+ * (par exemple dans {@link game.level.Level} ou
+ * {@link game.level.Formation}) sans avoir à regarder la partie.
+ * </p>
+ */
+public class ReplayVerifier {
+
+    /** Valeur retournée lorsqu'aucune divergence n'est trouvée */
+    public static final long NO_DIVERGENCE = -1;
+
+    /**
+     * Rejoue un replay et cherche la première frame divergente.
+     *
+     * @param replay replay contenant des empreintes d'état
+     * @return frame du premier point de contrôle divergent, ou
+     *         {@link #NO_DIVERGENCE}
+     */
+    public static long firstDivergence(Replay replay) {
+        Game game = Game.headless();
+        game.startSession(replay.getSeed(), replay.getLevelNumber());
+
+        int interval = replay.getHashInterval();
+        int checked = 0;
+        for (int i = 0; i < replay.size() && checked < replay.getHashCount(); i++) {
+            if (!game.isSessionRunning()) {
+                return (long) (checked + 1) * interval;
+            }
+            game.step(replay.getFrame(i));
+            long tick = game.getContext().getTick();
+            if (tick % interval == 0) {
+                if (StateHasher.hash(game) != replay.getHash(checked)) {
+                    return tick;
+                }
+                checked++;
+            }
+        }
+        return checked < replay.getHashCount() ? (long) (checked + 1) * interval : NO_DIVERGENCE;
+    }
+
+    /**
+     * Rejoue un replay et enregistre les empreintes produites par le code
+     * actuel.
+     * <p>
+     * Sert à créer une référence à partir d'un replay (par exemple un
+     * ancien fichier sans empreintes) avant de modifier la simulation.
+     * </p>
+     *
+     * @param replay replay à rejouer
+     * @return copie du replay avec les empreintes du code actuel
+     */
+    public static Replay rehash(Replay replay) {
+        Replay copy = new Replay(replay.getSeed(), replay.getLevelNumber(), replay.getTickMillis());
+        Game game = Game.headless();
+        game.startSession(replay.getSeed(), replay.getLevelNumber());
+
+        for (int i = 0; i < replay.size(); i++) {
+            copy.add(replay.getFrame(i));
+            if (game.isSessionRunning()) {
+                game.step(replay.getFrame(i));
+                if (game.getContext().getTick() % copy.getHashInterval() == 0) {
+                    copy.addHash(StateHasher.hash(game));
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Vérifie un fichier de replay et affiche le résultat.
+     *
+     * @param path chemin du fichier de replay
+     * @return {@code true} si aucune divergence n'a été trouvée
+     * @throws Exception en cas d'erreur de lecture du fichier
+     */
+    public static boolean verify(String path) throws Exception {
+        Replay replay = Replay.load(path);
+        if (replay.getHashCount() == 0) {
+            System.out.println("Aucune empreinte dans " + path);
+            return true;
+        }
+
+        long divergence = firstDivergence(replay);
+        if (divergence == NO_DIVERGENCE) {
+            System.out.println("OK : " + replay.getHashCount() + " points de contrôle identiques");
+            return true;
+        }
+        System.out.println("Divergence à la frame " + divergence
+                + " (dernier point identique : frame " + (divergence - replay.getHashInterval()) + ")");
+        return false;
+    }
+}
@@ -0,0 +1,116 @@
+package game.replay;
+
+import java.util.List;
+
+import game.Game;
+import game.actors.Enemy;
+import game.actors.Missile;
+import game.actors.Player;
+import game.level.Level;
+
+/**
+ * Empreinte rapide (non cryptographique) de l'état du monde.
+ * <p>
+ * Les valeurs sont mélangées une à une dans un accumulateur 64 bits
+ * (tours inspirés de xxHash64), sans allocation. Deux simulations dont
+ * les empreintes sont égales à la même frame ont, sauf collision
+ * improbable, exactement le même état : position, santé et indicateurs
+ * du joueur, des ennemis et de tous les missiles.
+ * </p>
+ */
+public final class StateHasher {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+
+    /** Accumulateur courant */
+    private long acc = PRIME3;
+
+    /**
+     * Ajoute un entier à l'empreinte.
+     *
+     * @param value valeur à ajouter
+     * @return ce hasher
+     */
+    public StateHasher add(long value) {
+        acc ^= Long.rotateLeft(value * PRIME2, 31) * PRIME1;
+        acc = Long.rotateLeft(acc, 27) * PRIME1 + PRIME3;
+        return this;
+    }
+
+    /**
+     * Ajoute un réel à l'empreinte (représentation binaire exacte).
+     *
+     * @param value valeur à ajouter
+     * @return ce hasher
+     */
+    public StateHasher add(double value) {
+        return add(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Ajoute un booléen à l'empreinte.
+     *
+     * @param value valeur à ajouter
+     * @return ce hasher
+     */
+    public StateHasher add(boolean value) {
+        return add(value ? 1L : 0L);
+    }
+
+    /**
+     * @return empreinte finale
+     */
+    public long finish() {
+        long h = acc;
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Calcule l'empreinte de l'état complet d'une partie.
+     *
+     * @param game partie à hacher
+     * @return empreinte de l'état
+     */
+    public static long hash(Game game) {
+        StateHasher hasher = new StateHasher();
+        hasher.add(game.getContext().getTick()).add(game.getScore()).add(game.getLevelsCompleted());
+
+        // les joueurs de coopération suivent le joueur principal, dont
+        // l'empreinte reste celle d'une partie à un joueur
+        for (Player player : game.getPlayers()) {
+            hasher.add(player.getPosition().getX()).add(player.getPosition().getY())
+                    .add(player.getLives()).add(player.getHealth())
+                    .add(player.isAlive()).add(player.isRespawning()).add(player.isInvincible());
+            addMissiles(hasher, player.getMissiles());
+        }
+
+        Level level = game.getCurrentLevel();
+        if (level != null) {
+            hasher.add(level.getEnemies().size());
+            for (Enemy e : level.getEnemies()) {
+                hasher.add(e.getPosition().getX()).add(e.getPosition().getY())
+                        .add(e.getHealth()).add(e.isAlive())
+                        .add(e.isAttacking).add(e.isReturning).add(e.isCapturingLife());
+                addMissiles(hasher, e.getMissiles());
+            }
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Ajoute une liste de missiles à l'empreinte.
+     */
+    private static void addMissiles(StateHasher hasher, List<Missile> missiles) {
+        hasher.add(missiles.size());
+        for (Missile m : missiles) {
+            hasher.add(m.getPosition().getX()).add(m.getPosition().getY());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package game.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodage des entiers en longueur variable (varint, 7 bits par octet).
+ * <p>
+ * Les petites valeurs, très fréquentes dans les replays (durées de
+ * répétition, différences entre frames), n'occupent qu'un seul octet.
+ * Les valeurs signées sont d'abord converties en zigzag.
+ * </p>
+ */
+public final class VarInts {
+
+    private VarInts() {
+    }
+
+    /**
+     * Écrit un entier non signé.
+     *
+     * @param out   flux de sortie
+     * @param value valeur (interprétée comme non signée)
+     */
+    public static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Écrit un entier signé (zigzag).
+     *
+     * @param out   flux de sortie
+     * @param value valeur signée
+     */
+    public static void writeSigned(ByteArrayOutputStream out, long value) {
+        write(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Lit un entier non signé.
+     *
+     * @param in tampon de lecture
+     * @return valeur lue
+     * @throws IllegalArgumentException si l'encodage est invalide
+     */
+    public static long read(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint trop long");
+    }
+
+    /**
+     * Lit un entier signé (zigzag).
+     *
+     * @param in tampon de lecture
+     * @return valeur lue
+     */
+    public static long readSigned(ByteBuffer in) {
+        long raw = read(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
@@ -0,0 +1,181 @@
+package game.server;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import game.Game;
+import game.input.PlayerController;
+
+/**
+ * Session de jeu hébergée par un {@link SessionManager}.
+ * <p>
+ * Une session possède sa propre partie sans affichage (donc sa propre
+ * horloge et son propre générateur aléatoire) et sa propre source de
+ * commandes. Elle s'exécute sur son propre thread, qui ne partage aucun
+ * état de simulation avec les autres sessions.
+ * </p>
+ */
+public class GameSession implements Runnable {
+
+    /** États possibles d'une session */
+    public enum State {
+        /** En attente de démarrage */
+        PENDING,
+        /** En cours */
+        RUNNING,
+        /** Terminée normalement */
+        COMPLETED,
+        /** Arrêtée pour dépassement répété du budget par frame */
+        EVICTED,
+        /** Annulée ou arrêtée par une erreur */
+        FAILED
+    }
+
+    /** Identifiant de la session */
+    private final long id;
+
+    /** Gestionnaire de la session */
+    private final SessionManager manager;
+
+    /** Partie de la session */
+    private final Game game;
+
+    /** Source des commandes */
+    private final PlayerController controller;
+
+    /** Nombre maximal de frames */
+    private final long maxTicks;
+
+    /** Indique si la session avance au rythme réel du jeu */
+    private final boolean paced;
+
+    /** État courant */
+    private volatile State state = State.PENDING;
+
+    /** Demande d'arrêt */
+    private volatile boolean cancelled = false;
+
+    /** Frames consécutives ayant dépassé le budget */
+    private int consecutiveOverruns = 0;
+
+    /** Observateurs des frames */
+    private final List<TickListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Signalé à la fin de la session */
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * Construit une session (voir {@link SessionManager#open}).
+     */
+    GameSession(long id, SessionManager manager, long seed, PlayerController controller, long maxTicks,
+            boolean paced) {
+        this.id = id;
+        this.manager = manager;
+        this.controller = controller;
+        this.maxTicks = maxTicks;
+        this.paced = paced;
+        this.game = Game.headless();
+        this.game.startSession(seed, 1);
+    }
+
+    @Override
+    public void run() {
+        SessionMetrics metrics = manager.getMetrics();
+        state = State.RUNNING;
+        try {
+            controller.resync();
+            long tickNanos = game.getContext().getTickMillis() * 1_000_000L;
+            long deadline = System.nanoTime();
+
+            while (!cancelled && game.isSessionRunning() && game.getContext().getTick() < maxTicks) {
+                if (paced) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    } else if (wait < -tickNanos) {
+                        metrics.lateTicks.increment();
+                        // trop de retard : repartir de maintenant plutôt que d'enchaîner les frames
+                        deadline = System.nanoTime();
+                    }
+                    deadline += tickNanos;
+                }
+
+                long start = System.nanoTime();
+                game.step(controller.nextFrame(game));
+                long elapsed = System.nanoTime() - start;
+                for (TickListener listener : listeners) {
+                    listener.onTick(game);
+                }
+
+                metrics.ticks.increment();
+                metrics.tickNanos.add(elapsed);
+                metrics.maxTickNanos.accumulate(elapsed);
+                if (elapsed > manager.getTickBudgetNanos()) {
+                    metrics.overruns.increment();
+                    if (++consecutiveOverruns >= manager.getMaxConsecutiveOverruns()) {
+                        state = State.EVICTED;
+                        return;
+                    }
+                } else {
+                    consecutiveOverruns = 0;
+                }
+            }
+            state = cancelled ? State.FAILED : State.COMPLETED;
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            System.err.println("Erreur dans la session " + id);
+            e.printStackTrace();
+        } finally {
+            manager.release(this);
+            done.countDown();
+        }
+    }
+
+    /**
+     * Ajoute un observateur des frames, appelé sur le thread de la session.
+     *
+     * @param listener observateur à ajouter
+     */
+    public void addTickListener(TickListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Demande l'arrêt de la session à la fin de la frame en cours.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Attend la fin de la session.
+     *
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    /**
+     * @return identifiant de la session
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return état courant de la session
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return partie de la session (à ne lire qu'une fois la session terminée)
+     */
+    public Game getGame() {
+        return game;
+    }
+}
@@ -0,0 +1,175 @@
+package game.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import game.input.BotController;
+import game.input.PlayerController;
+import game.sim.BalanceSimulator;
+
+/**
+ * Héberge de nombreuses sessions de jeu sans affichage dans le même
+ * processus (tournois de bots, tests de charge).
+ * <p>
+ * Chaque session tourne sur son propre thread : un thread virtuel lorsque
+ * la JVM en propose, sinon un thread démon classique. Le gestionnaire
+ * applique :
+ * <ul>
+ * <li>un contrôle d'admission : au-delà de {@code maxSessions} sessions
+ * simultanées, les nouvelles sessions sont refusées ;</li>
+ * <li>un budget par frame : une session dont les frames dépassent ce budget
+ * trop de fois d'affilée est évincée ;</li>
+ * <li>des métriques agrégées (voir {@link SessionMetrics}).</li>
+ * </ul>
+ * </p>
+ */
+public class SessionManager {
+
+    /** Exécuteur des sessions (un thread par session) */
+    private final ExecutorService executor = newSessionExecutor();
+
+    /** Places disponibles */
+    private final Semaphore slots;
+
+    /** Budget de calcul d'une frame (en nanosecondes) */
+    private final long tickBudgetNanos;
+
+    /** Nombre de dépassements consécutifs entraînant l'éviction */
+    private final int maxConsecutiveOverruns;
+
+    /** Sessions en cours, par identifiant */
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /** Prochain identifiant de session */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /** Métriques agrégées */
+    private final SessionMetrics metrics = new SessionMetrics();
+
+    /**
+     * Construit un gestionnaire.
+     *
+     * @param maxSessions            nombre maximal de sessions simultanées
+     * @param tickBudgetNanos        budget de calcul d'une frame (en nanosecondes)
+     * @param maxConsecutiveOverruns dépassements consécutifs entraînant l'éviction
+     */
+    public SessionManager(int maxSessions, long tickBudgetNanos, int maxConsecutiveOverruns) {
+        this.slots = new Semaphore(maxSessions);
+        this.tickBudgetNanos = tickBudgetNanos;
+        this.maxConsecutiveOverruns = maxConsecutiveOverruns;
+    }
+
+    /**
+     * Ouvre une session et la démarre sur son propre thread.
+     *
+     * @param seed       graine de la partie
+     * @param controller source des commandes, propre à la session
+     * @param maxTicks   nombre maximal de frames
+     * @param paced      {@code true} pour avancer au rythme réel du jeu,
+     *                   {@code false} pour simuler aussi vite que possible
+     * @return session démarrée, ou {@code null} si le serveur est plein
+     */
+    public GameSession open(long seed, PlayerController controller, long maxTicks, boolean paced) {
+        if (!slots.tryAcquire()) {
+            metrics.rejected.increment();
+            return null;
+        }
+        GameSession session = new GameSession(nextId.getAndIncrement(), this, seed, controller, maxTicks, paced);
+        sessions.put(session.getId(), session);
+        metrics.admitted.increment();
+        metrics.active.incrementAndGet();
+        executor.execute(session);
+        return session;
+    }
+
+    /**
+     * Libère la place d'une session terminée.
+     */
+    void release(GameSession session) {
+        sessions.remove(session.getId());
+        switch (session.getState()) {
+            case COMPLETED -> metrics.completed.increment();
+            case EVICTED -> metrics.evicted.increment();
+            default -> metrics.failed.increment();
+        }
+        metrics.active.decrementAndGet();
+        slots.release();
+    }
+
+    /**
+     * Arrête toutes les sessions et attend leur fin.
+     *
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public void shutdown() throws InterruptedException {
+        for (GameSession session : sessions.values()) {
+            session.cancel();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return métriques agrégées
+     */
+    public SessionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return budget de calcul d'une frame (en nanosecondes)
+     */
+    public long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    /**
+     * @return nombre de dépassements consécutifs entraînant l'éviction
+     */
+    public int getMaxConsecutiveOverruns() {
+        return maxConsecutiveOverruns;
+    }
+
+    /**
+     * Crée l'exécuteur des sessions : un thread virtuel par session si la
+     * JVM le permet (Java 21+), sinon un thread démon par session.
+     */
+    private static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "game-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Test de charge : ouvre des sessions jouées par le pilote automatique
+     * et affiche les métriques chaque seconde jusqu'à leur fin.
+     *
+     * @param count    nombre de sessions
+     * @param maxTicks nombre maximal de frames par session
+     * @param paced    {@code true} pour avancer au rythme réel du jeu
+     * @throws InterruptedException si le thread appelant est interrompu
+     */
+    public static void loadTest(int count, long maxTicks, boolean paced) throws InterruptedException {
+        SessionManager manager = new SessionManager(count, 5_000_000L, 10);
+        long seed = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            manager.open(BalanceSimulator.seedOf(seed, i), new BotController(), maxTicks, paced);
+        }
+        while (manager.getMetrics().getActive() > 0) {
+            Thread.sleep(1000);
+            System.out.println(manager.getMetrics());
+        }
+        manager.shutdown();
+    }
+}
@@ -0,0 +1,134 @@
+package game.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métriques agrégées de toutes les sessions d'un {@link SessionManager}.
+ * <p>
+ * Les compteurs sont des {@link LongAdder} : chaque session les incrémente
+ * sans contention, même avec des milliers de sessions simultanées.
+ * </p>
+ */
+public class SessionMetrics {
+
+    /** Sessions en cours */
+    final AtomicInteger active = new AtomicInteger();
+
+    /** Sessions acceptées */
+    final LongAdder admitted = new LongAdder();
+
+    /** Sessions refusées (serveur plein) */
+    final LongAdder rejected = new LongAdder();
+
+    /** Sessions terminées normalement (fin de partie ou limite de frames) */
+    final LongAdder completed = new LongAdder();
+
+    /** Sessions arrêtées pour dépassement répété du budget par frame */
+    final LongAdder evicted = new LongAdder();
+
+    /** Sessions annulées ou en erreur */
+    final LongAdder failed = new LongAdder();
+
+    /** Frames simulées */
+    final LongAdder ticks = new LongAdder();
+
+    /** Temps de calcul cumulé des frames (en nanosecondes) */
+    final LongAdder tickNanos = new LongAdder();
+
+    /** Frames ayant dépassé leur budget */
+    final LongAdder overruns = new LongAdder();
+
+    /** Frames cadencées démarrées en retard sur l'horloge réelle */
+    final LongAdder lateTicks = new LongAdder();
+
+    /** Frame la plus longue (en nanosecondes) */
+    final LongAccumulator maxTickNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @return nombre de sessions en cours
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return nombre de sessions acceptées
+     */
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    /**
+     * @return nombre de sessions refusées
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return nombre de sessions terminées normalement
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * @return nombre de sessions arrêtées pour dépassement de budget
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * @return nombre de sessions annulées ou en erreur
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return nombre de frames simulées
+     */
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * @return nombre de frames ayant dépassé leur budget
+     */
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    /**
+     * @return nombre de frames cadencées démarrées en retard
+     */
+    public long getLateTicks() {
+        return lateTicks.sum();
+    }
+
+    /**
+     * @return durée moyenne de calcul d'une frame (en nanosecondes)
+     */
+    public double getMeanTickNanos() {
+        long count = ticks.sum();
+        return count == 0 ? 0 : (double) tickNanos.sum() / count;
+    }
+
+    /**
+     * @return durée de calcul de la frame la plus longue (en nanosecondes)
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sessions %d actives, %d acceptées, %d refusées, %d terminées, %d évincées, "
+                + "%d en erreur ; %d frames (moyenne %.1f µs, max %.1f µs), %d hors budget, %d en retard",
+                getActive(), getAdmitted(), getRejected(), getCompleted(), getEvicted(), getFailed(),
+                getTicks(), getMeanTickNanos() / 1e3, getMaxTickNanos() / 1e3, getOverruns(), getLateTicks());
+    }
+}
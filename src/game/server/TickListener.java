@@ -0,0 +1,19 @@
+package game.server;
+
+import game.Game;
+
+/**
+ * Observateur des frames d'une session (diffusion aux spectateurs, export...).
+ */
+public interface TickListener {
+
+    /**
+     * Appelé par le thread de la session après chaque frame simulée.
+     * <p>
+     * L'implémentation ne doit pas bloquer : elle ralentirait la session.
+     * </p>
+     *
+     * @param game partie après la frame
+     */
+    void onTick(Game game);
+}
@@ -0,0 +1,195 @@
+package game.sim;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import game.Game;
+import game.actors.Enemy;
+import game.actors.Enemys.EnemyType;
+import game.input.BotController;
+import game.level.HitCause;
+import game.level.Level;
+import game.level.LevelData;
+import game.level.LevelLoader;
+
+/**
+ * Simulateur d'équilibrage : fait jouer le pilote automatique sur un niveau
+ * des milliers de fois, sans affichage et en parallèle.
+ * <p>
+ * Chaque simulation est une partie indépendante limitée à un niveau, avec
+ * sa propre graine et sa propre horloge (son {@link SimContext} est lié au
+ * thread qui l'exécute). Les simulations sont découpées en lots sur un
+ * {@link ForkJoinPool} ; chaque lot accumule ses résultats dans son propre
+ * {@link BalanceStats}, fusionnés à la fin. Aucun état n'est partagé
+ * pendant les simulations, ce qui permet d'exploiter tous les cœurs.
+ * </p>
+ * <p>
+ * La graine de chaque simulation ne dépend que de la graine de base et de
+ * son numéro : les résultats sont identiques quel que soit le nombre de
+ * threads.
+ * </p>
+ */
+public class BalanceSimulator {
+
+    /** Durée maximale par défaut d'une simulation (environ 5 minutes de jeu) */
+    public static final long DEFAULT_MAX_TICKS = 10_000;
+
+    /** Largeur d'une case de l'histogramme de survie (une seconde de jeu) */
+    private static final int BUCKET_TICKS = (int) (1000 / SimContext.DEFAULT_TICK_MILLIS);
+
+    /** Nombre de simulations en dessous duquel un lot n'est plus découpé */
+    private static final int BATCH_SIZE = 8;
+
+    /** Pool d'exécution des simulations */
+    private final ForkJoinPool pool;
+
+    /** Graine de base des simulations */
+    private final long baseSeed;
+
+    /** Durée maximale d'une simulation (en frames) */
+    private final long maxTicks;
+
+    /**
+     * Construit un simulateur.
+     *
+     * @param pool     pool d'exécution des simulations
+     * @param baseSeed graine de base
+     * @param maxTicks durée maximale d'une simulation (en frames)
+     */
+    public BalanceSimulator(ForkJoinPool pool, long baseSeed, long maxTicks) {
+        this.pool = pool;
+        this.baseSeed = baseSeed;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Simule un niveau plusieurs fois.
+     *
+     * @param level       contenu du niveau
+     * @param simulations nombre de simulations
+     * @return résultats agrégés
+     */
+    public BalanceStats simulate(LevelData level, int simulations) {
+        return pool.invoke(new Batch(level, 0, simulations));
+    }
+
+    /**
+     * Calcule la graine d'une simulation.
+     *
+     * @param baseSeed graine de base
+     * @param index    numéro de la simulation
+     * @return graine de la simulation
+     */
+    public static long seedOf(long baseSeed, int index) {
+        long z = baseSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Lot de simulations, découpé en deux tant qu'il est trop gros.
+     */
+    private class Batch extends RecursiveTask<BalanceStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LevelData level;
+        private final int from;
+        private final int to;
+
+        Batch(LevelData level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BalanceStats compute() {
+            if (to - from > BATCH_SIZE) {
+                int middle = (from + to) >>> 1;
+                Batch left = new Batch(level, from, middle);
+                left.fork();
+                BalanceStats stats = new Batch(level, middle, to).compute();
+                stats.merge(left.join());
+                return stats;
+            }
+
+            BalanceStats stats = new BalanceStats(maxTicks, BUCKET_TICKS);
+            BotController bot = new BotController();
+            for (int i = from; i < to; i++) {
+                runOne(level, seedOf(baseSeed, i), bot, stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Joue une simulation et ajoute son résultat.
+     */
+    private void runOne(LevelData data, long seed, BotController bot, BalanceStats stats) {
+        Game game = Game.headless();
+        game.startSession(seed, data);
+        Level level = game.getCurrentLevel();
+
+        HitCause[] lastCause = { null };
+        EnemyType[] lastType = { null };
+        level.setHitListener((HitCause cause, Enemy enemy) -> {
+            stats.addHit(cause, enemy.getType());
+            lastCause[0] = cause;
+            lastType[0] = enemy.getType();
+        });
+
+        bot.resync();
+        while (game.isSessionRunning() && !level.getEnemies().isEmpty()
+                && game.getContext().getTick() < maxTicks) {
+            game.step(bot.nextFrame(game));
+        }
+
+        int outcome = level.getEnemies().isEmpty() ? 1 : game.isSessionRunning() ? 0 : -1;
+        stats.add(game.getContext().getTick(), game.getScore(), outcome, lastCause[0], lastType[0]);
+    }
+
+    /**
+     * Simule chaque fichier de niveau et affiche un rapport.
+     *
+     * @param levelFiles  noms des fichiers de niveau (ex: "level1.lvl")
+     * @param simulations nombre de simulations par niveau
+     * @throws IOException si un fichier de niveau est illisible
+     */
+    public static void run(List<String> levelFiles, int simulations) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        BalanceSimulator simulator = new BalanceSimulator(pool, System.nanoTime(), DEFAULT_MAX_TICKS);
+        double secondsPerTick = SimContext.DEFAULT_TICK_MILLIS / 1000.0;
+
+        for (String file : levelFiles) {
+            LevelData level = LevelLoader.readLevelData(file);
+            long start = System.nanoTime();
+            BalanceStats stats = simulator.simulate(level, simulations);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%s : %d simulations en %.2f s (%.0f frames/s sur %d threads)%n",
+                    file, stats.getSimulations(), elapsed / 1e9,
+                    stats.getMeanTicks() * stats.getSimulations() * 1e9 / Math.max(1, elapsed),
+                    pool.getParallelism());
+            System.out.printf("  terminé %.1f %%, mort %.1f %%, temps écoulé %.1f %%%n",
+                    stats.getClearRate() * 100, stats.getDeathRate() * 100, stats.getTimeoutRate() * 100);
+            System.out.printf("  survie : médiane %.0f s (p10 %.0f s, p90 %.0f s), fin du niveau en %.0f s%n",
+                    stats.survivalQuantile(0.5) * secondsPerTick,
+                    stats.survivalQuantile(0.1) * secondsPerTick,
+                    stats.survivalQuantile(0.9) * secondsPerTick,
+                    stats.getMeanClearTicks() * secondsPerTick);
+            System.out.printf("  score moyen %.0f%n", stats.getMeanScore());
+            for (HitCause cause : HitCause.values()) {
+                for (EnemyType type : EnemyType.values()) {
+                    if (stats.getHits(cause, type) > 0) {
+                        System.out.printf("  vies perdues %s par %s : %d (dont %d fins de partie)%n",
+                                cause, type, stats.getHits(cause, type), stats.getDeaths(cause, type));
+                    }
+                }
+            }
+        }
+    }
+}
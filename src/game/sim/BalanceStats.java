@@ -0,0 +1,192 @@
+package game.sim;
+
+import game.actors.Enemys.EnemyType;
+import game.level.HitCause;
+
+/**
+ * Résultats agrégés des simulations d'un niveau.
+ * <p>
+ * Les durées de survie sont rangées dans un histogramme à cases d'une
+ * seconde de jeu, ce qui permet de fusionner les résultats de plusieurs
+ * threads par simple addition et d'en extraire médiane et quantiles.
+ * </p>
+ */
+public class BalanceStats {
+
+    /** Largeur d'une case de l'histogramme de survie (en frames) */
+    private final int bucketTicks;
+
+    /** Nombre de simulations par case de durée de survie */
+    private final int[] survival;
+
+    /** Pertes de vie par cause et type d'ennemi */
+    private final int[][] hits = new int[HitCause.values().length][EnemyType.values().length];
+
+    /** Fins de partie par cause et type d'ennemi (dernière vie perdue) */
+    private final int[][] deaths = new int[HitCause.values().length][EnemyType.values().length];
+
+    private int simulations;
+    private int cleared;
+    private int died;
+    private int timedOut;
+    private long totalScore;
+    private long totalTicks;
+    private long clearTicks;
+
+    /**
+     * Construit des résultats vides.
+     *
+     * @param maxTicks    durée maximale d'une simulation (en frames)
+     * @param bucketTicks largeur d'une case de l'histogramme (en frames)
+     */
+    public BalanceStats(long maxTicks, int bucketTicks) {
+        this.bucketTicks = bucketTicks;
+        this.survival = new int[(int) (maxTicks / bucketTicks) + 1];
+    }
+
+    /**
+     * Ajoute le résultat d'une simulation.
+     *
+     * @param ticks     durée de la simulation (en frames)
+     * @param score     score obtenu
+     * @param outcome   issue : 1 niveau terminé, -1 joueur mort, 0 temps écoulé
+     * @param lastCause cause de la dernière vie perdue, ou {@code null}
+     * @param lastType  ennemi responsable de la dernière vie perdue, ou {@code null}
+     */
+    public void add(long ticks, int score, int outcome, HitCause lastCause, EnemyType lastType) {
+        simulations++;
+        totalScore += score;
+        totalTicks += ticks;
+        survival[(int) Math.min(survival.length - 1, ticks / bucketTicks)]++;
+        if (outcome > 0) {
+            cleared++;
+            clearTicks += ticks;
+        } else if (outcome < 0) {
+            died++;
+            if (lastCause != null) {
+                deaths[lastCause.ordinal()][lastType.ordinal()]++;
+            }
+        } else {
+            timedOut++;
+        }
+    }
+
+    /**
+     * Compte une perte de vie.
+     *
+     * @param cause cause de la perte de vie
+     * @param type  type de l'ennemi responsable
+     */
+    public void addHit(HitCause cause, EnemyType type) {
+        hits[cause.ordinal()][type.ordinal()]++;
+    }
+
+    /**
+     * Ajoute les résultats d'un autre ensemble de simulations du même niveau.
+     *
+     * @param other résultats à ajouter
+     */
+    public void merge(BalanceStats other) {
+        simulations += other.simulations;
+        cleared += other.cleared;
+        died += other.died;
+        timedOut += other.timedOut;
+        totalScore += other.totalScore;
+        totalTicks += other.totalTicks;
+        clearTicks += other.clearTicks;
+        for (int i = 0; i < survival.length; i++) {
+            survival[i] += other.survival[i];
+        }
+        for (int c = 0; c < hits.length; c++) {
+            for (int t = 0; t < hits[c].length; t++) {
+                hits[c][t] += other.hits[c][t];
+                deaths[c][t] += other.deaths[c][t];
+            }
+        }
+    }
+
+    /**
+     * Retourne un quantile de la durée de survie.
+     *
+     * @param q quantile, entre 0 et 1 (0.5 pour la médiane)
+     * @return durée de survie (en frames, arrondie à la case supérieure)
+     */
+    public long survivalQuantile(double q) {
+        long rank = (long) Math.ceil(q * simulations);
+        long seen = 0;
+        for (int i = 0; i < survival.length; i++) {
+            seen += survival[i];
+            if (seen >= Math.max(1, rank)) {
+                return (long) (i + 1) * bucketTicks;
+            }
+        }
+        return (long) survival.length * bucketTicks;
+    }
+
+    /**
+     * @return nombre de simulations
+     */
+    public int getSimulations() {
+        return simulations;
+    }
+
+    /**
+     * @return proportion de simulations où le niveau a été terminé
+     */
+    public double getClearRate() {
+        return simulations == 0 ? 0 : (double) cleared / simulations;
+    }
+
+    /**
+     * @return proportion de simulations terminées par la mort du joueur
+     */
+    public double getDeathRate() {
+        return simulations == 0 ? 0 : (double) died / simulations;
+    }
+
+    /**
+     * @return proportion de simulations arrêtées par la limite de durée
+     */
+    public double getTimeoutRate() {
+        return simulations == 0 ? 0 : (double) timedOut / simulations;
+    }
+
+    /**
+     * @return score moyen
+     */
+    public double getMeanScore() {
+        return simulations == 0 ? 0 : (double) totalScore / simulations;
+    }
+
+    /**
+     * @return durée moyenne d'une simulation (en frames)
+     */
+    public double getMeanTicks() {
+        return simulations == 0 ? 0 : (double) totalTicks / simulations;
+    }
+
+    /**
+     * @return durée moyenne pour terminer le niveau (en frames), ou 0
+     */
+    public double getMeanClearTicks() {
+        return cleared == 0 ? 0 : (double) clearTicks / cleared;
+    }
+
+    /**
+     * @param cause cause de la perte de vie
+     * @param type  type de l'ennemi responsable
+     * @return nombre de pertes de vie
+     */
+    public int getHits(HitCause cause, EnemyType type) {
+        return hits[cause.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * @param cause cause de la dernière vie perdue
+     * @param type  type de l'ennemi responsable
+     * @return nombre de fins de partie
+     */
+    public int getDeaths(HitCause cause, EnemyType type) {
+        return deaths[cause.ordinal()][type.ordinal()];
+    }
+}
@@ -0,0 +1,371 @@
+package game.sim;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import game.actors.Enemys.EnemyType;
+import game.level.EnemyData;
+import game.level.LevelData;
+import game.level.LevelLoader;
+import game.replay.StateHasher;
+
+/**
+ * Réglage automatique des paramètres d'un niveau par algorithme génétique.
+ * <p>
+ * Un candidat est un vecteur de gènes dans [0, 1] : vitesse de la
+ * formation, cooldown d'attaque, cooldown de tir, puis un facteur de
+ * vitesse et un facteur de taille par type d'ennemi présent dans le niveau.
+ * Chaque gène correspond à une plage de valeurs parcourue en échelle
+ * logarithmique. Si le niveau d'origine désactive les attaques de la
+ * formation, le gène du cooldown d'attaque est exclu de la recherche et
+ * les attaques restent désactivées. Un candidat est évalué par le {@link BalanceSimulator} ;
+ * son erreur mesure l'écart entre la durée de survie médiane (et, si
+ * demandé, le taux de mort) obtenue et la cible.
+ * </p>
+ * <p>
+ * Tous les candidats d'une génération sont évalués en même temps sur le
+ * pool, avec les mêmes graines de simulation : deux candidats donnant les
+ * mêmes paramètres donnent donc le même résultat, et les évaluations sont
+ * mises en cache selon l'empreinte des paramètres arrondis. Un candidat
+ * déjà vu n'est jamais resimulé.
+ * </p>
+ */
+public class LevelTuner {
+
+    /** Bornes de la vitesse de la formation */
+    private static final double MIN_FORMATION_SPEED = 0.0003, MAX_FORMATION_SPEED = 0.006;
+
+    /** Bornes du cooldown d'attaque (ms) */
+    private static final double MIN_ATTACK_COOLDOWN = 300, MAX_ATTACK_COOLDOWN = 15000;
+
+    /** Bornes du cooldown de tir (ms) */
+    private static final double MIN_SHOOT_COOLDOWN = 200, MAX_SHOOT_COOLDOWN = 8000;
+
+    /** Bornes des facteurs de vitesse des ennemis */
+    private static final double MIN_SPEED_SCALE = 0.25, MAX_SPEED_SCALE = 4;
+
+    /** Bornes des facteurs de taille des ennemis */
+    private static final double MIN_SIZE_SCALE = 0.6, MAX_SIZE_SCALE = 1.6;
+
+    /** Nombre de gènes communs à tous les niveaux */
+    private static final int HEADER_GENES = 3;
+
+    /** Taille de la population */
+    private static final int POPULATION = 16;
+
+    /** Nombre de meilleurs candidats conservés tels quels */
+    private static final int ELITES = 2;
+
+    /** Nombre de candidats comparés lors d'une sélection par tournoi */
+    private static final int TOURNAMENT = 3;
+
+    /** Écart type des mutations */
+    private static final double MUTATION_SIGMA = 0.08;
+
+    /** Niveau d'origine */
+    private final LevelData base;
+
+    /** Types d'ennemis présents dans le niveau */
+    private final EnemyType[] types;
+
+    /** Attaques de la formation désactivées dans le niveau d'origine */
+    private final boolean attacksDisabled;
+
+    /** Simulateur utilisé pour évaluer les candidats */
+    private final BalanceSimulator simulator;
+
+    /** Pool d'exécution */
+    private final ForkJoinPool pool;
+
+    /** Nombre de simulations par candidat */
+    private final int simulations;
+
+    /** Durée de survie médiane visée (en frames) */
+    private final double targetTicks;
+
+    /** Taux de mort visé, ou négatif pour l'ignorer */
+    private final double targetDeathRate;
+
+    /** Évaluations déjà effectuées, par empreinte des paramètres */
+    private final Map<Long, BalanceStats> cache = new HashMap<>();
+
+    /** Générateur de la recherche */
+    private final SplittableRandom random;
+
+    /**
+     * Construit un tuner.
+     *
+     * @param base            niveau d'origine
+     * @param pool            pool d'exécution des simulations
+     * @param seed            graine de la recherche et des simulations
+     * @param simulations     nombre de simulations par candidat
+     * @param targetTicks     durée de survie médiane visée (en frames)
+     * @param targetDeathRate taux de mort visé (0 à 1), ou négatif pour l'ignorer
+     */
+    public LevelTuner(LevelData base, ForkJoinPool pool, long seed, int simulations, double targetTicks,
+            double targetDeathRate) {
+        this.base = base;
+        this.types = base.getEnemies().stream().map(EnemyData::getType).distinct().sorted()
+                .toArray(EnemyType[]::new);
+        this.attacksDisabled = base.getAttackCooldown() == Long.MAX_VALUE;
+        this.pool = pool;
+        this.simulator = new BalanceSimulator(pool, seed, Math.max(BalanceSimulator.DEFAULT_MAX_TICKS,
+                (long) (targetTicks * 3)));
+        this.simulations = simulations;
+        this.targetTicks = targetTicks;
+        this.targetDeathRate = targetDeathRate;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Lance la recherche.
+     *
+     * @param generations nombre de générations
+     * @return meilleur niveau trouvé
+     */
+    public LevelData tune(int generations) {
+        double[][] population = new double[POPULATION][];
+        population[0] = encode(base);
+        for (int i = 1; i < POPULATION; i++) {
+            population[i] = mutate(population[0], 0.25);
+        }
+
+        double[] best = population[0];
+        double bestError = Double.MAX_VALUE;
+        for (int generation = 1; generation <= generations; generation++) {
+            double[] errors = evaluate(population);
+
+            Integer[] order = new Integer[POPULATION];
+            for (int i = 0; i < POPULATION; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(errors[a], errors[b]));
+            if (errors[order[0]] < bestError) {
+                bestError = errors[order[0]];
+                best = population[order[0]];
+            }
+
+            BalanceStats stats = cache.get(keyOf(decode(best)));
+            System.out.printf("génération %d : erreur %.4f, survie médiane %.0f s, mort %.1f %%, "
+                    + "%d évaluations en cache%n",
+                    generation, bestError,
+                    stats.survivalQuantile(0.5) * SimContext.DEFAULT_TICK_MILLIS / 1000.0,
+                    stats.getDeathRate() * 100, cache.size());
+
+            double[][] next = new double[POPULATION][];
+            for (int i = 0; i < ELITES; i++) {
+                next[i] = population[order[i]];
+            }
+            for (int i = ELITES; i < POPULATION; i++) {
+                double[] a = population[select(errors)];
+                double[] b = population[select(errors)];
+                next[i] = mutate(crossover(a, b), MUTATION_SIGMA);
+            }
+            population = next;
+        }
+        return decode(best);
+    }
+
+    /**
+     * Évalue en parallèle les candidats d'une génération.
+     *
+     * @return erreur de chaque candidat
+     */
+    private double[] evaluate(double[][] population) {
+        long[] keys = new long[population.length];
+        Map<Long, ForkJoinTask<BalanceStats>> pending = new HashMap<>();
+        for (int i = 0; i < population.length; i++) {
+            LevelData level = decode(population[i]);
+            keys[i] = keyOf(level);
+            if (!cache.containsKey(keys[i]) && !pending.containsKey(keys[i])) {
+                pending.put(keys[i], pool.submit(() -> simulator.simulate(level, simulations)));
+            }
+        }
+        for (Map.Entry<Long, ForkJoinTask<BalanceStats>> entry : pending.entrySet()) {
+            cache.put(entry.getKey(), entry.getValue().join());
+        }
+
+        double[] errors = new double[population.length];
+        for (int i = 0; i < population.length; i++) {
+            errors[i] = errorOf(cache.get(keys[i]));
+        }
+        return errors;
+    }
+
+    /**
+     * @return écart normalisé entre les résultats et la cible
+     */
+    private double errorOf(BalanceStats stats) {
+        double survival = (stats.survivalQuantile(0.5) - targetTicks) / targetTicks;
+        double error = survival * survival;
+        if (targetDeathRate >= 0) {
+            double death = stats.getDeathRate() - targetDeathRate;
+            error += death * death;
+        }
+        return error;
+    }
+
+    /**
+     * Sélection par tournoi.
+     *
+     * @return indice du candidat retenu
+     */
+    private int select(double[] errors) {
+        int best = random.nextInt(errors.length);
+        for (int i = 1; i < TOURNAMENT; i++) {
+            int other = random.nextInt(errors.length);
+            if (errors[other] < errors[best]) {
+                best = other;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Croisement par mélange : chaque gène est tiré entre ceux des parents.
+     */
+    private double[] crossover(double[] a, double[] b) {
+        double[] child = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            double t = random.nextDouble() * 1.5 - 0.25;
+            child[i] = isSearched(i) ? clamp(a[i] + (b[i] - a[i]) * t) : a[i];
+        }
+        return child;
+    }
+
+    /**
+     * Mutation gaussienne de chaque gène.
+     */
+    private double[] mutate(double[] genes, double sigma) {
+        double[] mutated = new double[genes.length];
+        for (int i = 0; i < genes.length; i++) {
+            mutated[i] = isSearched(i) ? clamp(genes[i] + gaussian() * sigma) : genes[i];
+        }
+        return mutated;
+    }
+
+    /**
+     * @return {@code false} si le gène est fixé (cooldown d'attaque d'un
+     *         niveau sans attaques)
+     */
+    private boolean isSearched(int gene) {
+        return gene != 1 || !attacksDisabled;
+    }
+
+    private double gaussian() {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    /* ========================= */
+    /* ==== GÈNES / NIVEAUX ===== */
+    /* ========================= */
+
+    /**
+     * Convertit un niveau en gènes (facteurs d'ennemis à 1).
+     */
+    private double[] encode(LevelData level) {
+        double[] genes = new double[HEADER_GENES + 2 * types.length];
+        genes[0] = toGene(level.getFormationSpeed(), MIN_FORMATION_SPEED, MAX_FORMATION_SPEED);
+        if (!attacksDisabled) {
+            genes[1] = toGene(level.getAttackCooldown(), MIN_ATTACK_COOLDOWN, MAX_ATTACK_COOLDOWN);
+        }
+        genes[2] = toGene(level.getEnemyShootCooldown(), MIN_SHOOT_COOLDOWN, MAX_SHOOT_COOLDOWN);
+        for (int t = 0; t < types.length; t++) {
+            genes[HEADER_GENES + 2 * t] = toGene(1, MIN_SPEED_SCALE, MAX_SPEED_SCALE);
+            genes[HEADER_GENES + 2 * t + 1] = toGene(1, MIN_SIZE_SCALE, MAX_SIZE_SCALE);
+        }
+        return genes;
+    }
+
+    /**
+     * Construit le niveau correspondant à des gènes, avec des valeurs
+     * arrondies (celles qui seront écrites dans le fichier).
+     */
+    private LevelData decode(double[] genes) {
+        double formationSpeed = round(fromGene(genes[0], MIN_FORMATION_SPEED, MAX_FORMATION_SPEED), 1e-5);
+        long attackCooldown = attacksDisabled ? Long.MAX_VALUE
+                : Math.round(fromGene(genes[1], MIN_ATTACK_COOLDOWN, MAX_ATTACK_COOLDOWN) / 10) * 10;
+        long shootCooldown = Math.round(fromGene(genes[2], MIN_SHOOT_COOLDOWN, MAX_SHOOT_COOLDOWN) / 10) * 10;
+
+        Map<EnemyType, double[]> scales = new EnumMap<>(EnemyType.class);
+        for (int t = 0; t < types.length; t++) {
+            scales.put(types[t], new double[] {
+                    round(fromGene(genes[HEADER_GENES + 2 * t], MIN_SPEED_SCALE, MAX_SPEED_SCALE), 0.01),
+                    round(fromGene(genes[HEADER_GENES + 2 * t + 1], MIN_SIZE_SCALE, MAX_SIZE_SCALE), 0.01) });
+        }
+
+        List<EnemyData> enemies = new ArrayList<>();
+        for (EnemyData e : base.getEnemies()) {
+            double[] scale = scales.get(e.getType());
+            enemies.add(new EnemyData(e.getType(), e.getPosition(),
+                    round(e.getLength() * scale[1], 1e-4),
+                    round(e.getSpeed() * scale[0], 1e-6),
+                    e.getValue()));
+        }
+        return new LevelData(base.getName(), formationSpeed, attackCooldown, shootCooldown, enemies);
+    }
+
+    /**
+     * @return empreinte des paramètres d'un niveau
+     */
+    private static long keyOf(LevelData level) {
+        StateHasher hasher = new StateHasher()
+                .add(level.getFormationSpeed())
+                .add(level.getAttackCooldown())
+                .add(level.getEnemyShootCooldown());
+        for (EnemyData e : level.getEnemies()) {
+            hasher.add(e.getLength()).add(e.getSpeed());
+        }
+        return hasher.finish();
+    }
+
+    private static double toGene(double value, double min, double max) {
+        return clamp(Math.log(value / min) / Math.log(max / min));
+    }
+
+    private static double fromGene(double gene, double min, double max) {
+        return min * Math.pow(max / min, gene);
+    }
+
+    private static double round(double value, double step) {
+        return Math.round(value / step) * step;
+    }
+
+    private static double clamp(double gene) {
+        return Math.max(0, Math.min(1, gene));
+    }
+
+    /**
+     * Règle un fichier de niveau et écrit le résultat.
+     *
+     * @param levelFile       nom du fichier de niveau (ex: "level1.lvl")
+     * @param targetSeconds   durée de survie médiane visée (en secondes)
+     * @param targetDeathRate taux de mort visé (0 à 1), ou négatif pour l'ignorer
+     * @param generations     nombre de générations
+     * @param simulations     nombre de simulations par candidat
+     * @param outputPath      fichier .lvl à écrire
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static void run(String levelFile, double targetSeconds, double targetDeathRate, int generations,
+            int simulations, String outputPath) throws IOException {
+        LevelData base = LevelLoader.readLevelData(levelFile);
+        double targetTicks = targetSeconds * 1000 / SimContext.DEFAULT_TICK_MILLIS;
+        LevelTuner tuner = new LevelTuner(base, ForkJoinPool.commonPool(), System.nanoTime(), simulations,
+                targetTicks, targetDeathRate);
+
+        long start = System.nanoTime();
+        LevelData tuned = tuner.tune(generations);
+        LevelLoader.writeLevelData(tuned, outputPath);
+        System.out.printf("niveau réglé écrit dans %s (%.1f s)%n", outputPath, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,159 @@
+package game.sim;
+
+/**
+ * Contexte de simulation : horloge de jeu et générateur aléatoire.
+ * <p>
+ * Toute la logique du jeu (acteurs, formation) lit le temps et tire ses
+ * nombres aléatoires ici plutôt que dans {@link System#currentTimeMillis()}
+ * ou {@link java.util.Random}. Le temps avance d'une durée fixe à chaque
+ * frame et le générateur est entièrement déterminé par sa graine : deux
+ * simulations partant du même contexte et recevant les mêmes commandes
+ * produisent exactement le même résultat.
+ * </p>
+ * <p>
+ * Le contexte courant est propre à chaque thread, ce qui permet de faire
+ * tourner plusieurs simulations indépendantes en parallèle.
+ * </p>
+ */
+public final class SimContext {
+
+    /** Durée par défaut d'une frame (en millisecondes) */
+    public static final long DEFAULT_TICK_MILLIS = 30;
+
+    /** Instant de la frame 0 (loin de 0 pour que les cooldowns initiaux soient écoulés) */
+    public static final long START_MILLIS = 1_000_000;
+
+    /** Contexte courant de chaque thread */
+    private static final ThreadLocal<SimContext> CURRENT = ThreadLocal
+            .withInitial(() -> new SimContext(System.nanoTime(), DEFAULT_TICK_MILLIS));
+
+    /** Durée d'une frame (en millisecondes) */
+    private final long tickMillis;
+
+    /** Graine initiale du générateur */
+    private final long seed;
+
+    /** Numéro de la frame courante */
+    private long tick;
+
+    /** État interne du générateur (SplitMix64) */
+    private long rngState;
+
+    /**
+     * Construit un contexte.
+     *
+     * @param seed       graine du générateur aléatoire
+     * @param tickMillis durée d'une frame (en millisecondes)
+     */
+    public SimContext(long seed, long tickMillis) {
+        this.seed = seed;
+        this.tickMillis = tickMillis;
+        this.rngState = seed;
+    }
+
+    /**
+     * @return contexte courant du thread appelant
+     */
+    public static SimContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Définit le contexte courant du thread appelant.
+     *
+     * @param context contexte à utiliser
+     */
+    public static void bind(SimContext context) {
+        CURRENT.set(context);
+    }
+
+    /**
+     * @return temps de jeu courant du thread appelant (en millisecondes)
+     */
+    public static long now() {
+        return CURRENT.get().millis();
+    }
+
+    /**
+     * @return temps de jeu de ce contexte (en millisecondes)
+     */
+    public long millis() {
+        return START_MILLIS + tick * tickMillis;
+    }
+
+    /**
+     * Passe à la frame suivante.
+     */
+    public void advance() {
+        tick++;
+    }
+
+    /**
+     * @return numéro de la frame courante
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return durée d'une frame (en millisecondes)
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @return état interne du générateur aléatoire
+     */
+    public long getRngState() {
+        return rngState;
+    }
+
+    /**
+     * Replace le contexte à une frame et un état de générateur donnés
+     * (restauration d'une sauvegarde).
+     *
+     * @param tick     numéro de frame
+     * @param rngState état interne du générateur
+     */
+    public void restore(long tick, long rngState) {
+        this.tick = tick;
+        this.rngState = rngState;
+    }
+
+    /**
+     * @return graine initiale du générateur
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Retourne un entier aléatoire dans [0, bound).
+     *
+     * @param bound borne exclusive, strictement positive
+     * @return entier aléatoire
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("bound must be positive");
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * @return réel aléatoire dans [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * @return entier long aléatoire (SplitMix64)
+     */
+    public long nextLong() {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
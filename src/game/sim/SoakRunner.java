@@ -0,0 +1,68 @@
+package game.sim;
+
+import game.Game;
+import game.input.BotController;
+import game.input.PlayerController;
+
+/**
+ * Fait jouer le pilote automatique sans affichage, partie après partie.
+ * <p>
+ * Fournit une charge de jeu réaliste et illimitée pour les tests
+ * d'endurance : chaque partie part d'une graine différente et s'arrête à
+ * la fin de la partie ou après un nombre maximal de frames.
+ * </p>
+ */
+public class SoakRunner {
+
+    /** Nombre maximal de frames par partie (environ 10 minutes de jeu) */
+    public static final long DEFAULT_MAX_TICKS = 20_000;
+
+    private SoakRunner() {
+    }
+
+    /**
+     * Joue une partie sans affichage avec un contrôleur donné.
+     *
+     * @param controller source des commandes
+     * @param seed       graine de la partie
+     * @param maxTicks   nombre maximal de frames
+     * @return jeu dans son état final
+     */
+    public static Game play(PlayerController controller, long seed, long maxTicks) {
+        Game game = Game.headless();
+        game.startSession(seed, 1);
+        controller.resync();
+        while (game.isSessionRunning() && game.getContext().getTick() < maxTicks) {
+            game.step(controller.nextFrame(game));
+        }
+        return game;
+    }
+
+    /**
+     * Enchaîne des parties du pilote automatique et affiche le résultat de
+     * chacune.
+     *
+     * @param games    nombre de parties (0 ou moins : sans fin)
+     * @param maxTicks nombre maximal de frames par partie
+     */
+    public static void run(int games, long maxTicks) {
+        BotController bot = new BotController();
+        long seed = System.nanoTime();
+        for (int i = 1; games <= 0 || i <= games; i++) {
+            long start = System.nanoTime();
+            Game game = play(bot, seed + i, maxTicks);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("partie %d (graine %d) : %d frames, score %d, niveaux %d, vies %d, "
+                    + "%.2f ms (%.0f frames/s)%n",
+                    i,
+                    seed + i,
+                    game.getContext().getTick(),
+                    game.getScore(),
+                    game.getLevelsCompleted(),
+                    game.getPlayer().getLives(),
+                    elapsed / 1e6,
+                    game.getContext().getTick() * 1e9 / Math.max(1, elapsed));
+        }
+    }
+}
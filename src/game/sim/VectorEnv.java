@@ -0,0 +1,376 @@
+package game.sim;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import game.Game;
+import game.actors.Enemy;
+import game.actors.Missile;
+import game.actors.Player;
+import game.input.InputFrame;
+import game.level.Level;
+
+/**
+ * Environnements de jeu vectorisés, pour l'entraînement d'agents
+ * (interface inspirée de Gym).
+ * <p>
+ * {@code N} parties sans affichage indépendantes avancent ensemble : à
+ * chaque appel de {@link #step(int[])}, chaque partie reçoit son action et
+ * simule une frame. Les observations de toutes les parties sont écrites
+ * dans un unique {@link FloatBuffer} hors tas (direct, ordre natif), à
+ * raison de {@link #getObservationSize()} flottants par partie ; les
+ * récompenses et les fins de partie dans des tableaux primitifs. Tous ces
+ * tampons, ainsi que les tâches parallèles, sont alloués une fois pour
+ * toutes : l'API n'alloue rien à chaque pas.
+ * </p>
+ * <p>
+ * Une partie terminée (perdue, gagnée ou trop longue) est redémarrée
+ * automatiquement avec une nouvelle graine : son indicateur de fin vaut
+ * {@code true} pour ce pas, et son observation est déjà celle de la
+ * nouvelle partie.
+ * </p>
+ * <p>
+ * Disposition d'une observation : joueur (x, y, vivant, invincible, vies),
+ * puis pour chaque ennemi (x, y, présent, en attaque), puis pour chaque
+ * missile ennemi (x, y, vx, vy), puis pour chaque missile du joueur (x, y).
+ * Les emplacements inutilisés valent 0.
+ * </p>
+ */
+public class VectorEnv {
+
+    /** Aucune action */
+    public static final int NOOP = 0;
+    /** Aller à gauche */
+    public static final int LEFT = 1;
+    /** Aller à droite */
+    public static final int RIGHT = 2;
+    /** Tirer */
+    public static final int FIRE = 3;
+    /** Aller à gauche en tirant */
+    public static final int LEFT_FIRE = 4;
+    /** Aller à droite en tirant */
+    public static final int RIGHT_FIRE = 5;
+
+    /** Nombre d'actions possibles */
+    public static final int ACTION_COUNT = 6;
+
+    /** Frame de commandes de chaque action */
+    private static final int[] ACTION_FRAMES = {
+            InputFrame.NONE,
+            InputFrame.held(true, false, false),
+            InputFrame.held(false, true, false),
+            InputFrame.held(false, false, true),
+            InputFrame.held(true, false, true),
+            InputFrame.held(false, true, true) };
+
+    /** Récompense par point de score gagné */
+    private static final float SCORE_REWARD = 0.01f;
+
+    /** Récompense (négative) par vie perdue */
+    private static final float LIFE_REWARD = -5f;
+
+    /** Nombre de flottants décrivant le joueur */
+    private static final int PLAYER_FLOATS = 5;
+
+    /** Nombre de flottants par ennemi */
+    private static final int ENEMY_FLOATS = 4;
+
+    /** Nombre de flottants par missile ennemi */
+    private static final int ENEMY_MISSILE_FLOATS = 4;
+
+    /** Nombre de flottants par missile du joueur */
+    private static final int PLAYER_MISSILE_FLOATS = 2;
+
+    /** Parties simulées */
+    private final Game[] games;
+
+    /** Nombre de parties démarrées par environnement (pour les graines) */
+    private final long[] episodes;
+
+    /** Score de chaque partie au pas précédent */
+    private final int[] lastScores;
+
+    /** Vies de chaque partie au pas précédent */
+    private final int[] lastLives;
+
+    /** Observations de toutes les parties */
+    private final FloatBuffer observations;
+
+    /** Récompense de chaque partie au dernier pas */
+    private final float[] rewards;
+
+    /** Fin de partie au dernier pas */
+    private final boolean[] dones;
+
+    /** Nombre maximal d'ennemis, de missiles ennemis et de missiles du joueur observés */
+    private final int maxEnemies, maxEnemyMissiles, maxPlayerMissiles;
+
+    /** Taille d'une observation (en flottants) */
+    private final int observationSize;
+
+    /** Durée maximale d'une partie (en frames) */
+    private final long maxTicks;
+
+    /** Pool d'exécution */
+    private final ForkJoinPool pool;
+
+    /** Tâches réutilisées, une par tranche d'environnements */
+    private final Shard[] shards;
+
+    /** Tâche réutilisée lançant toutes les tranches */
+    private final Fan fan = new Fan();
+
+    /** Actions du pas en cours */
+    private int[] actions;
+
+    /** Graine de base */
+    private long seed;
+
+    /**
+     * Construit des environnements.
+     *
+     * @param count             nombre de parties
+     * @param maxEnemies        nombre maximal d'ennemis observés
+     * @param maxEnemyMissiles  nombre maximal de missiles ennemis observés
+     * @param maxPlayerMissiles nombre maximal de missiles du joueur observés
+     * @param maxTicks          durée maximale d'une partie (en frames)
+     * @param pool              pool d'exécution des pas
+     */
+    public VectorEnv(int count, int maxEnemies, int maxEnemyMissiles, int maxPlayerMissiles, long maxTicks,
+            ForkJoinPool pool) {
+        this.games = new Game[count];
+        this.episodes = new long[count];
+        this.lastScores = new int[count];
+        this.lastLives = new int[count];
+        this.rewards = new float[count];
+        this.dones = new boolean[count];
+        this.maxEnemies = maxEnemies;
+        this.maxEnemyMissiles = maxEnemyMissiles;
+        this.maxPlayerMissiles = maxPlayerMissiles;
+        this.maxTicks = maxTicks;
+        this.pool = pool;
+        this.observationSize = PLAYER_FLOATS + maxEnemies * ENEMY_FLOATS
+                + maxEnemyMissiles * ENEMY_MISSILE_FLOATS + maxPlayerMissiles * PLAYER_MISSILE_FLOATS;
+        this.observations = ByteBuffer.allocateDirect(count * observationSize * Float.BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+        int shardCount = Math.min(count, pool.getParallelism() * 4);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i * count / shardCount, (i + 1) * count / shardCount);
+        }
+        for (int i = 0; i < count; i++) {
+            games[i] = Game.headless();
+        }
+    }
+
+    /**
+     * Redémarre toutes les parties.
+     *
+     * @param seed graine de base ; chaque partie reçoit sa propre graine
+     * @return observations de toutes les parties
+     */
+    public FloatBuffer reset(long seed) {
+        this.seed = seed;
+        for (int i = 0; i < games.length; i++) {
+            episodes[i] = 0;
+            restart(i);
+            rewards[i] = 0;
+            dones[i] = false;
+        }
+        return observations;
+    }
+
+    /**
+     * Avance toutes les parties d'une frame, en parallèle.
+     *
+     * @param actions action de chaque partie ({@link #NOOP} à {@link #RIGHT_FIRE})
+     * @return observations de toutes les parties
+     */
+    public FloatBuffer step(int[] actions) {
+        if (actions.length != games.length)
+            throw new IllegalArgumentException("Nombre d'actions incorrect : " + actions.length);
+        this.actions = actions;
+        for (Shard shard : shards) {
+            shard.reinitialize();
+        }
+        fan.reinitialize();
+        pool.invoke(fan);
+        return observations;
+    }
+
+    /**
+     * Lance toutes les tranches.
+     */
+    private class Fan extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            invokeAll(shards);
+        }
+    }
+
+    /**
+     * Tranche d'environnements avancés par une même tâche.
+     */
+    private class Shard extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Shard(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = from; i < to; i++) {
+                stepOne(i);
+            }
+        }
+    }
+
+    /**
+     * Avance une partie et met à jour ses sorties.
+     */
+    private void stepOne(int i) {
+        Game game = games[i];
+        int action = actions[i];
+        game.step(action >= 0 && action < ACTION_COUNT ? ACTION_FRAMES[action] : InputFrame.NONE);
+
+        int score = game.getScore();
+        int lives = game.getPlayer().getLives();
+        rewards[i] = (score - lastScores[i]) * SCORE_REWARD + (lastLives[i] - lives) * LIFE_REWARD;
+        lastScores[i] = score;
+        lastLives[i] = lives;
+
+        dones[i] = !game.isSessionRunning() || game.getContext().getTick() >= maxTicks;
+        if (dones[i]) {
+            episodes[i]++;
+            restart(i);
+        } else {
+            observe(i);
+        }
+    }
+
+    /**
+     * Démarre une nouvelle partie dans un environnement.
+     */
+    private void restart(int i) {
+        Game game = games[i];
+        game.startSession(BalanceSimulator.seedOf(seed, (int) (i + episodes[i] * games.length)), 1);
+        lastScores[i] = game.getScore();
+        lastLives[i] = game.getPlayer().getLives();
+        observe(i);
+    }
+
+    /**
+     * Écrit l'observation d'une partie.
+     */
+    private void observe(int i) {
+        Game game = games[i];
+        Player player = game.getPlayer();
+        Level level = game.getCurrentLevel();
+        int base = i * observationSize;
+
+        FloatBuffer obs = observations;
+        obs.put(base, (float) player.getPosition().getX());
+        obs.put(base + 1, (float) player.getPosition().getY());
+        obs.put(base + 2, player.isAlive() && !player.isRespawning() ? 1f : 0f);
+        obs.put(base + 3, player.isInvincible() ? 1f : 0f);
+        obs.put(base + 4, player.getLives());
+
+        int enemyBase = base + PLAYER_FLOATS;
+        int missileBase = enemyBase + maxEnemies * ENEMY_FLOATS;
+        int shotBase = missileBase + maxEnemyMissiles * ENEMY_MISSILE_FLOATS;
+        int enemyCount = 0;
+        int missileCount = 0;
+
+        if (level != null) {
+            List<Enemy> enemies = level.getEnemies();
+            for (int e = 0; e < enemies.size(); e++) {
+                Enemy enemy = enemies.get(e);
+                if (enemyCount < maxEnemies) {
+                    int at = enemyBase + enemyCount++ * ENEMY_FLOATS;
+                    obs.put(at, (float) enemy.getPosition().getX());
+                    obs.put(at + 1, (float) enemy.getPosition().getY());
+                    obs.put(at + 2, 1f);
+                    obs.put(at + 3, enemy.isAttacking ? 1f : 0f);
+                }
+                List<Missile> missiles = enemy.getMissiles();
+                for (int m = 0; m < missiles.size() && missileCount < maxEnemyMissiles; m++) {
+                    Missile missile = missiles.get(m);
+                    int at = missileBase + missileCount++ * ENEMY_MISSILE_FLOATS;
+                    obs.put(at, (float) missile.getPosition().getX());
+                    obs.put(at + 1, (float) missile.getPosition().getY());
+                    obs.put(at + 2, (float) missile.getVelocity().getX());
+                    obs.put(at + 3, (float) missile.getVelocity().getY());
+                }
+            }
+        }
+        clear(enemyBase + enemyCount * ENEMY_FLOATS, missileBase);
+        clear(missileBase + missileCount * ENEMY_MISSILE_FLOATS, shotBase);
+
+        List<Missile> shots = player.getMissiles();
+        int shotCount = Math.min(shots.size(), maxPlayerMissiles);
+        for (int m = 0; m < shotCount; m++) {
+            int at = shotBase + m * PLAYER_MISSILE_FLOATS;
+            obs.put(at, (float) shots.get(m).getPosition().getX());
+            obs.put(at + 1, (float) shots.get(m).getPosition().getY());
+        }
+        clear(shotBase + shotCount * PLAYER_MISSILE_FLOATS, base + observationSize);
+    }
+
+    /**
+     * Met à zéro les flottants {@code [from, to)} des observations.
+     */
+    private void clear(int from, int to) {
+        for (int k = from; k < to; k++) {
+            observations.put(k, 0f);
+        }
+    }
+
+    /**
+     * @return observations de toutes les parties (tampon hors tas partagé)
+     */
+    public FloatBuffer getObservations() {
+        return observations;
+    }
+
+    /**
+     * @return récompense de chaque partie au dernier pas
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * @return fin de partie au dernier pas, pour chaque partie
+     */
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    /**
+     * @return nombre de parties
+     */
+    public int getCount() {
+        return games.length;
+    }
+
+    /**
+     * @return taille d'une observation (en flottants)
+     */
+    public int getObservationSize() {
+        return observationSize;
+    }
+}
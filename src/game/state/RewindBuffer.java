@@ -0,0 +1,253 @@
+package game.state;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import game.Game;
+
+/**
+ * Historique borné des dernières secondes de jeu, pour revenir en arrière.
+ * <p>
+ * Toutes les {@code snapshotInterval} frames, l'état complet est
+ * sauvegardé par le {@link SnapshotCodec} dans un anneau d'emplacements
+ * préalloués. Une sauvegarde sur {@code keyframeInterval} est conservée
+ * telle quelle (image clé) ; les autres ne stockent que leur différence
+ * avec la dernière image clé (voir {@link StateDelta}). Les commandes de chaque frame sont aussi
+ * conservées, ce qui permet de revenir à n'importe quelle frame de
+ * l'historique : on restaure la sauvegarde précédente, puis on resimule
+ * les frames suivantes.
+ * </p>
+ * <p>
+ * La mémoire utilisée est fixée à la construction et ne change plus.
+ * </p>
+ */
+public class RewindBuffer {
+
+    /** Emplacement vide */
+    private static final long EMPTY = -1;
+
+    /** Codec réutilisé pour chaque sauvegarde */
+    private final SnapshotCodec codec = new SnapshotCodec();
+
+    /** Nombre de frames entre deux sauvegardes */
+    private final int snapshotInterval;
+
+    /** Nombre de sauvegardes entre deux images clés */
+    private final int keyframeInterval;
+
+    /** Contenu des emplacements (image clé brute ou différence compressée) */
+    private final byte[][] slots;
+
+    /** Frame de chaque emplacement, ou {@link #EMPTY} */
+    private final long[] slotTicks;
+
+    /** Longueur utile de chaque emplacement */
+    private final int[] slotLengths;
+
+    /** Emplacement de l'image clé de chaque emplacement (lui-même pour une image clé) */
+    private final int[] slotKeyframes;
+
+    /** Commandes des dernières frames, indexées par frame modulo la capacité */
+    private final int[] frames;
+
+    /** Tampon de reconstruction d'une sauvegarde */
+    private final byte[] scratch;
+
+    /** Prochain emplacement à écrire */
+    private int nextSlot = 0;
+
+    /** Emplacement de l'image clé courante, ou -1 */
+    private int keyframeSlot = -1;
+
+    /** Sauvegardes écrites depuis la dernière image clé */
+    private int sinceKeyframe = 0;
+
+    /** Dernière frame enregistrée */
+    private long newestTick = EMPTY;
+
+    /**
+     * Construit un historique.
+     *
+     * @param historyTicks     nombre de frames conservées
+     * @param snapshotInterval nombre de frames entre deux sauvegardes
+     * @param keyframeInterval nombre de sauvegardes entre deux images clés
+     * @param slotBytes        taille maximale d'une sauvegarde (en octets)
+     */
+    public RewindBuffer(int historyTicks, int snapshotInterval, int keyframeInterval, int slotBytes) {
+        this.snapshotInterval = snapshotInterval;
+        this.keyframeInterval = keyframeInterval;
+
+        int slotCount = historyTicks / snapshotInterval + 2;
+        this.slots = new byte[slotCount][slotBytes];
+        this.slotTicks = new long[slotCount];
+        this.slotLengths = new int[slotCount];
+        this.slotKeyframes = new int[slotCount];
+        this.frames = new int[(slotCount + 1) * snapshotInterval];
+        this.scratch = new byte[slotBytes];
+        clear();
+    }
+
+    /**
+     * Vide l'historique.
+     */
+    public void clear() {
+        Arrays.fill(slotTicks, EMPTY);
+        nextSlot = 0;
+        keyframeSlot = -1;
+        sinceKeyframe = 0;
+        newestTick = EMPTY;
+    }
+
+    /**
+     * Démarre l'historique d'une nouvelle partie en sauvegardant son état
+     * initial.
+     *
+     * @param game partie qui vient de commencer
+     */
+    public void start(Game game) {
+        clear();
+        newestTick = game.getContext().getTick();
+        snapshot(game, newestTick);
+    }
+
+    /**
+     * Enregistre une frame qui vient d'être simulée.
+     *
+     * @param game  partie après la frame
+     * @param frame commandes appliquées pendant la frame
+     */
+    public void record(Game game, int frame) {
+        long tick = game.getContext().getTick();
+        frames[(int) (tick % frames.length)] = frame;
+        newestTick = tick;
+        if (tick % snapshotInterval == 0) {
+            snapshot(game, tick);
+        }
+    }
+
+    /**
+     * @return frame la plus ancienne vers laquelle on peut revenir, ou -1
+     */
+    public long getOldestTick() {
+        long oldest = EMPTY;
+        for (int i = 0; i < slots.length; i++) {
+            if (isRestorable(i) && (oldest == EMPTY || slotTicks[i] < oldest)) {
+                oldest = slotTicks[i];
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * @return dernière frame enregistrée, ou -1
+     */
+    public long getNewestTick() {
+        return newestTick;
+    }
+
+    /**
+     * Ramène la partie à une frame de l'historique.
+     * <p>
+     * L'historique postérieur à cette frame est oublié.
+     * </p>
+     *
+     * @param game partie à modifier
+     * @param tick frame à atteindre
+     * @return {@code false} si la frame n'est plus (ou pas encore) dans
+     *         l'historique
+     */
+    public boolean rewindTo(Game game, long tick) {
+        if (tick > newestTick) {
+            return false;
+        }
+        int best = -1;
+        for (int i = 0; i < slots.length; i++) {
+            if (isRestorable(i) && slotTicks[i] <= tick && (best < 0 || slotTicks[i] > slotTicks[best])) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+
+        SnapshotCodec.decode(ByteBuffer.wrap(scratch, 0, reconstruct(best)), game);
+        for (long t = slotTicks[best] + 1; t <= tick && game.isSessionRunning(); t++) {
+            game.step(frames[(int) (t % frames.length)]);
+        }
+        forgetAfter(game.getContext().getTick());
+        return true;
+    }
+
+    /**
+     * Sauvegarde l'état courant dans le prochain emplacement.
+     */
+    private void snapshot(Game game, long tick) {
+        ByteBuffer state = codec.encode(game);
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % slots.length;
+        slotTicks[slot] = EMPTY;
+
+        boolean key = keyframeSlot < 0 || keyframeSlot == slot || sinceKeyframe >= keyframeInterval;
+        int length = -1;
+        if (!key) {
+            length = StateDelta.encode(state.array(), state.limit(),
+                    slots[keyframeSlot], slotLengths[keyframeSlot], slots[slot]);
+        }
+        if (length < 0) {
+            if (state.limit() > slots[slot].length) {
+                // trop gros pour l'emplacement : la sauvegarde est abandonnée
+                keyframeSlot = -1;
+                return;
+            }
+            state.get(slots[slot], 0, state.limit());
+            length = state.limit();
+            keyframeSlot = slot;
+            sinceKeyframe = 0;
+        }
+
+        slotTicks[slot] = tick;
+        slotLengths[slot] = length;
+        slotKeyframes[slot] = keyframeSlot;
+        sinceKeyframe++;
+    }
+
+    /**
+     * Indique si un emplacement peut être restauré (son image clé est encore
+     * présente).
+     */
+    private boolean isRestorable(int slot) {
+        if (slotTicks[slot] == EMPTY) {
+            return false;
+        }
+        int key = slotKeyframes[slot];
+        return slotTicks[key] != EMPTY && slotTicks[key] <= slotTicks[slot];
+    }
+
+    /**
+     * Reconstruit dans {@link #scratch} la sauvegarde d'un emplacement.
+     *
+     * @return longueur de la sauvegarde
+     */
+    private int reconstruct(int slot) {
+        int key = slotKeyframes[slot];
+        if (key == slot) {
+            System.arraycopy(slots[slot], 0, scratch, 0, slotLengths[slot]);
+            return slotLengths[slot];
+        }
+        return StateDelta.decode(slots[slot], slotLengths[slot], slots[key], slotLengths[key], scratch);
+    }
+
+    /**
+     * Oublie les sauvegardes postérieures à une frame.
+     */
+    private void forgetAfter(long tick) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slotTicks[i] > tick) {
+                slotTicks[i] = EMPTY;
+            }
+        }
+        newestTick = tick;
+        // repartir d'une image clé à la prochaine sauvegarde
+        keyframeSlot = -1;
+    }
+}
@@ -0,0 +1,131 @@
+package game.state;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import game.Game;
+
+/**
+ * Sauvegarde et restauration binaires de l'état complet d'une partie.
+ * <p>
+ * Chaque classe du jeu écrit elle-même ses champs dans un
+ * {@link ByteBuffer} ({@code writeState} / {@code readState}), sans
+ * réflexion ni sérialisation Java : contexte de simulation, score, joueurs
+ * (vies, minuteries de respawn et d'invincibilité), ennemis restants (état
+ * d'attaque, rafales du Boss), formation et tous les missiles.
+ * </p>
+ * <p>
+ * Le codec réutilise le même tampon d'une sauvegarde à l'autre ; il ne
+ * l'agrandit que si l'état ne tient plus dedans.
+ * </p>
+ */
+public class SnapshotCodec {
+
+    /** Signature du format ("GSNP") */
+    private static final int MAGIC = 0x47534E50;
+
+    /** Version du format */
+    private static final int VERSION = 2;
+
+    /** Capacité initiale du tampon (en octets) */
+    private static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    /** Tampon réutilisé pour les sauvegardes */
+    private ByteBuffer buffer;
+
+    /**
+     * Construit un codec avec un tampon de capacité par défaut.
+     */
+    public SnapshotCodec() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construit un codec avec un tampon de capacité donnée.
+     *
+     * @param capacity capacité initiale du tampon (en octets)
+     */
+    public SnapshotCodec(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Sauvegarde l'état d'une partie.
+     * <p>
+     * Le tampon retourné appartient au codec et sera écrasé par la
+     * sauvegarde suivante : il faut le copier pour le conserver.
+     * </p>
+     *
+     * @param game partie à sauvegarder
+     * @return tampon prêt à être lu, de la position 0 à sa limite
+     */
+    public ByteBuffer encode(Game game) {
+        while (true) {
+            buffer.clear();
+            try {
+                buffer.putInt(MAGIC).put((byte) VERSION);
+                game.writeState(buffer);
+                buffer.flip();
+                return buffer;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Restaure une partie à partir d'une sauvegarde.
+     *
+     * @param in   sauvegarde, lue depuis sa position courante
+     * @param game partie à restaurer
+     * @throws IllegalArgumentException si la sauvegarde est invalide
+     */
+    public static void decode(ByteBuffer in, Game game) {
+        try {
+            if (in.getInt() != MAGIC)
+                throw new IllegalArgumentException("Sauvegarde invalide");
+            int version = in.get();
+            if (version != VERSION)
+                throw new IllegalArgumentException("Version de sauvegarde non supportée : " + version);
+            game.readState(in);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Sauvegarde tronquée", e);
+        }
+    }
+
+    /**
+     * Sauvegarde l'état d'une partie dans un fichier.
+     * <p>
+     * Crée les répertoires nécessaires si ils n'existent pas.
+     * </p>
+     *
+     * @param game partie à sauvegarder
+     * @param path chemin du fichier
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void save(Game game, String path) throws IOException {
+        ByteBuffer state = encode(game);
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Files.write(file.toPath(), Arrays.copyOf(state.array(), state.limit()));
+    }
+
+    /**
+     * Restaure une partie à partir d'un fichier de sauvegarde.
+     *
+     * @param path chemin du fichier
+     * @param game partie à restaurer
+     * @throws IOException              en cas d'erreur de lecture
+     * @throws IllegalArgumentException si la sauvegarde est invalide
+     */
+    public static void load(String path, Game game) throws IOException {
+        decode(ByteBuffer.wrap(Files.readAllBytes(new File(path).toPath())), game);
+    }
+}
@@ -0,0 +1,123 @@
+package game.state;
+
+/**
+ * Codage différentiel d'une sauvegarde par rapport à une sauvegarde de
+ * référence.
+ * <p>
+ * La différence est un XOR octet à octet avec la référence dont les
+ * longues suites d'octets identiques sont compressées. Deux états de jeu
+ * proches ne diffèrent que sur quelques champs : leur différence est bien
+ * plus petite que la sauvegarde complète.
+ * </p>
+ * <p>
+ * Format : longueur(varint) puis des paires
+ * {@code identiques(varint) differents(varint) octetsXor...}.
+ * </p>
+ */
+public final class StateDelta {
+
+    private StateDelta() {
+    }
+
+    /**
+     * Encode la différence entre une sauvegarde et une référence.
+     *
+     * @param src       sauvegarde à encoder
+     * @param length    longueur de la sauvegarde
+     * @param key       sauvegarde de référence
+     * @param keyLength longueur de la référence
+     * @param out       tampon de destination
+     * @return longueur écrite, ou -1 si le tampon est trop petit
+     */
+    public static int encode(byte[] src, int length, byte[] key, int keyLength, byte[] out) {
+        int pos = writeVarInt(out, 0, length);
+        int i = 0;
+        while (i < length && pos >= 0) {
+            int same = i;
+            while (same < length && src[same] == keyByte(key, keyLength, same)) {
+                same++;
+            }
+            int diff = same;
+            while (diff < length && src[diff] != keyByte(key, keyLength, diff)) {
+                diff++;
+            }
+            pos = writeVarInt(out, pos, same - i);
+            pos = pos < 0 ? pos : writeVarInt(out, pos, diff - same);
+            if (pos < 0 || pos + diff - same > out.length) {
+                return -1;
+            }
+            for (int k = same; k < diff; k++) {
+                out[pos++] = (byte) (src[k] ^ keyByte(key, keyLength, k));
+            }
+            i = diff;
+        }
+        return pos;
+    }
+
+    /**
+     * Reconstruit une sauvegarde à partir de sa différence et de sa
+     * référence.
+     *
+     * @param delta       différence encodée
+     * @param deltaLength longueur de la différence
+     * @param key         sauvegarde de référence
+     * @param keyLength   longueur de la référence
+     * @param out         tampon de destination
+     * @return longueur de la sauvegarde
+     */
+    public static int decode(byte[] delta, int deltaLength, byte[] key, int keyLength, byte[] out) {
+        int[] pos = { 0 };
+        int length = readVarInt(delta, pos);
+        int i = 0;
+        while (pos[0] < deltaLength) {
+            int same = readVarInt(delta, pos);
+            for (int k = 0; k < same; k++, i++) {
+                out[i] = keyByte(key, keyLength, i);
+            }
+            int diff = readVarInt(delta, pos);
+            for (int k = 0; k < diff; k++, i++) {
+                out[i] = (byte) (delta[pos[0]++] ^ keyByte(key, keyLength, i));
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Lit la longueur de la sauvegarde décrite par une différence, pour
+     * dimensionner le tampon de destination.
+     *
+     * @param delta différence encodée
+     * @return longueur de la sauvegarde reconstruite
+     */
+    public static int decodedLength(byte[] delta) {
+        return readVarInt(delta, new int[] { 0 });
+    }
+
+    private static byte keyByte(byte[] key, int keyLength, int index) {
+        return index < keyLength ? key[index] : 0;
+    }
+
+    private static int writeVarInt(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            if (pos >= out.length)
+                return -1;
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        if (pos >= out.length)
+            return -1;
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarInt(byte[] in, int[] pos) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package game.telemetry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import game.replay.VarInts;
+
+/**
+ * Flux de télémétrie des parties : événements de jeu (tirs, touches,
+ * ennemis détruits, vies perdues, niveaux) écrits en continu sur disque.
+ * <p>
+ * Le thread de jeu ne fait qu'ajouter l'événement à un
+ * {@link TelemetryBuffer} sans verrou ni allocation. Un thread d'écriture
+ * vide l'anneau par lots, encode chaque lot en entiers de longueur
+ * variable (les frames en différence avec l'événement précédent) et
+ * l'écrit dans un fichier compressé (gzip). Lorsqu'un fichier dépasse la
+ * taille maximale, il est fermé et un nouveau fichier est ouvert.
+ * </p>
+ * <p>
+ * Fichiers {@code telemetry-<début>-<numéro>.tlg} : signature "GTLM"
+ * (int), version (octet), puis des lots {@code nombre} suivis, pour chaque
+ * événement, de {@code type arg valeur session différenceDeFrame}
+ * (varints, la différence en zigzag). Voir {@link TelemetryReport} pour
+ * la lecture.
+ * </p>
+ */
+public class Telemetry implements AutoCloseable {
+
+    /** Répertoire de télémétrie du jeu */
+    public static final String DEFAULT_DIRECTORY = "ressources/telemetry";
+
+    /** Signature du format ("GTLM") */
+    static final int MAGIC = 0x47544C4D;
+
+    /** Version du format */
+    static final int VERSION = 1;
+
+    /** Extension des fichiers */
+    static final String EXTENSION = ".tlg";
+
+    /** Nombre maximal d'événements par lot */
+    private static final int BATCH = 4096;
+
+    /** Attente du thread d'écriture lorsque l'anneau est vide (en nanosecondes) */
+    private static final long IDLE_NANOS = 20_000_000L;
+
+    private final TelemetryBuffer buffer;
+    private final File directory;
+    private final long maxFileBytes;
+    private final long startMillis = System.currentTimeMillis();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean closing = false;
+
+    /** Fichier courant (thread d'écriture uniquement) */
+    private CountingStream file;
+    private OutputStream out;
+    private int fileIndex = 0;
+    private long lastTick = 0;
+
+    /** Statistiques */
+    private volatile long written, files;
+
+    /**
+     * Compte les octets écrits dans le fichier (après compression).
+     */
+    private static final class CountingStream extends FilterOutputStream {
+        long count;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Ouvre la télémétrie du jeu ; elle est fermée à l'arrêt de la JVM.
+     *
+     * @return télémétrie
+     */
+    public static Telemetry open() {
+        Telemetry telemetry = new Telemetry(DEFAULT_DIRECTORY, 1 << 16, 1 << 20);
+        Runtime.getRuntime().addShutdownHook(new Thread(telemetry::close, "telemetry-close"));
+        return telemetry;
+    }
+
+    /**
+     * Démarre un flux de télémétrie.
+     *
+     * @param directory    répertoire des fichiers
+     * @param capacity     capacité de l'anneau (puissance de 2)
+     * @param maxFileBytes taille maximale d'un fichier (compressé)
+     */
+    public Telemetry(String directory, int capacity, long maxFileBytes) {
+        this.buffer = new TelemetryBuffer(capacity);
+        this.directory = new File(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.thread = new Thread(this::run, "telemetry-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return nouvel identifiant de session (une par partie)
+     */
+    public int newSession() {
+        return sessions.getAndIncrement();
+    }
+
+    /**
+     * Émet un événement. Ne bloque jamais et n'alloue rien.
+     *
+     * @param session session de la partie
+     * @param tick    frame courante
+     * @param type    type d'événement (voir {@link TelemetryEvent})
+     * @param arg     argument
+     * @param value   valeur
+     */
+    public void emit(int session, long tick, int type, int arg, int value) {
+        buffer.offer(TelemetryEvent.pack(type, arg, value), TelemetryEvent.stamp(session, tick));
+    }
+
+    /**
+     * @return nombre d'événements écrits
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return nombre d'événements abandonnés (anneau plein)
+     */
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    /**
+     * @return nombre de fichiers ouverts
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * Boucle du thread d'écriture.
+     */
+    private void run() {
+        long[] batch = new long[2 * BATCH];
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(BATCH * 8);
+        try {
+            while (true) {
+                boolean last = closing;
+                int n = buffer.drain(batch, BATCH);
+                if (n > 0) {
+                    write(batch, n, encoded);
+                } else if (last) {
+                    break;
+                } else {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture de la télémétrie : " + e.getMessage());
+        } finally {
+            try {
+                closeFile();
+            } catch (IOException e) {
+                System.err.println("Erreur de fermeture de la télémétrie : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Encode et écrit un lot, en changeant de fichier si nécessaire.
+     */
+    private void write(long[] batch, int n, ByteArrayOutputStream encoded) throws IOException {
+        if (out == null) {
+            openFile();
+        }
+        encoded.reset();
+        VarInts.write(encoded, n);
+        for (int i = 0; i < n; i++) {
+            long event = batch[2 * i];
+            long stamp = batch[2 * i + 1];
+            long tick = TelemetryEvent.tick(stamp);
+            VarInts.write(encoded, TelemetryEvent.type(event));
+            VarInts.write(encoded, TelemetryEvent.arg(event));
+            VarInts.write(encoded, TelemetryEvent.value(event) & 0xFFFFFFFFL);
+            VarInts.write(encoded, TelemetryEvent.session(stamp));
+            VarInts.writeSigned(encoded, tick - lastTick);
+            lastTick = tick;
+        }
+        encoded.writeTo(out);
+        // vidage synchronisé : le lot est lisible même après un arrêt brutal,
+        // et la taille du fichier est à jour pour la rotation
+        out.flush();
+        written += n;
+        if (file.count >= maxFileBytes) {
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        directory.mkdirs();
+        File f = new File(directory, "telemetry-" + startMillis + "-" + (fileIndex++) + EXTENSION);
+        file = new CountingStream(new FileOutputStream(f));
+        out = new GZIPOutputStream(file, 8 * 1024, true);
+        out.write(new byte[] { (byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC,
+                (byte) VERSION });
+        lastTick = 0;
+        files++;
+    }
+
+    private void closeFile() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            file = null;
+        }
+    }
+
+    /**
+     * Écrit les événements restants et ferme le fichier courant.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package game.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Anneau borné d'événements, sans verrou, à plusieurs producteurs et un
+ * seul consommateur.
+ * <p>
+ * Chaque case porte un numéro de séquence : un producteur réserve la
+ * prochaine case par un CAS sur la position d'écriture, y écrit
+ * l'événement puis publie la case en avançant son numéro ; le
+ * consommateur ne lit que les cases publiées. Un producteur n'attend
+ * jamais : si l'anneau est plein, l'événement est abandonné et compté.
+ * </p>
+ */
+public class TelemetryBuffer {
+
+    private final int mask;
+
+    /** Numéro de séquence de chaque case */
+    private final AtomicLongArray sequences;
+
+    /** Contenu des cases (deux {@code long} par événement) */
+    private final long[] events;
+
+    /** Prochaine position d'écriture */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Prochaine position de lecture (consommateur uniquement) */
+    private long head = 0;
+
+    /** Nombre d'événements abandonnés */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Construit un anneau.
+     *
+     * @param capacity nombre d'événements (puissance de 2)
+     */
+    public TelemetryBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacité invalide : " + capacity);
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        this.events = new long[capacity * 2];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Ajoute un événement (tout thread).
+     *
+     * @param event événement (voir {@link TelemetryEvent#pack})
+     * @param stamp session et frame (voir {@link TelemetryEvent#stamp})
+     * @return {@code false} si l'anneau est plein (événement abandonné)
+     */
+    public boolean offer(long event, long stamp) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long seq = sequences.get(index);
+            if (seq == pos) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    events[2 * index] = event;
+                    events[2 * index + 1] = stamp;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+            } else if (seq < pos) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            // sinon, un autre producteur vient de prendre la case : réessayer
+        }
+    }
+
+    /**
+     * Retire les événements publiés (consommateur uniquement).
+     *
+     * @param out tableau de destination (deux {@code long} par événement)
+     * @param max nombre maximal d'événements
+     * @return nombre d'événements retirés
+     */
+    public int drain(long[] out, int max) {
+        int count = 0;
+        while (count < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            out[2 * count] = events[2 * index];
+            out[2 * count + 1] = events[2 * index + 1];
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return nombre d'événements abandonnés car l'anneau était plein
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,103 @@
+package game.telemetry;
+
+/**
+ * Événements de télémétrie et leur encodage compact.
+ * <p>
+ * Un événement tient dans deux {@code long} : le premier contient son
+ * type, un argument (type d'ennemi, cause...) et une valeur ; le second la
+ * session et la frame à laquelle il a eu lieu. Aucun objet n'est alloué
+ * pour émettre un événement.
+ * </p>
+ */
+public final class TelemetryEvent {
+
+    /** Début d'un niveau (valeur : numéro du niveau) */
+    public static final int LEVEL_START = 1;
+
+    /** Fin d'un niveau, tous les ennemis détruits (valeur : numéro du niveau) */
+    public static final int LEVEL_END = 2;
+
+    /** Tirs d'un joueur (argument : indice du joueur, valeur : nombre de tirs) */
+    public static final int SHOTS = 3;
+
+    /** Missile d'un joueur sur un ennemi (argument : type d'ennemi, valeur : dégâts) */
+    public static final int HIT = 4;
+
+    /** Ennemi détruit (argument : type d'ennemi, valeur : points) */
+    public static final int KILL = 5;
+
+    /**
+     * Vie perdue par un joueur (argument : cause, voir
+     * {@link game.level.HitCause}, valeur : type de l'ennemi responsable)
+     */
+    public static final int DEATH = 6;
+
+    /** Nombre de types d'événements (types de 1 à COUNT - 1) */
+    public static final int COUNT = 7;
+
+    private TelemetryEvent() {
+    }
+
+    /**
+     * Encode la partie descriptive d'un événement.
+     *
+     * @param type  type d'événement
+     * @param arg   argument (0 à 1023)
+     * @param value valeur (entier positif sur 32 bits)
+     * @return événement encodé
+     */
+    public static long pack(int type, int arg, int value) {
+        return ((long) type << 58) | ((long) (arg & 0x3FF) << 48) | (value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Encode la session et la frame d'un événement.
+     *
+     * @param session identifiant de session
+     * @param tick    frame
+     * @return position encodée
+     */
+    public static long stamp(int session, long tick) {
+        return ((long) session << 32) | (tick & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param event événement encodé
+     * @return type
+     */
+    public static int type(long event) {
+        return (int) (event >>> 58);
+    }
+
+    /**
+     * @param event événement encodé
+     * @return argument
+     */
+    public static int arg(long event) {
+        return (int) (event >>> 48) & 0x3FF;
+    }
+
+    /**
+     * @param event événement encodé
+     * @return valeur
+     */
+    public static int value(long event) {
+        return (int) event;
+    }
+
+    /**
+     * @param stamp position encodée
+     * @return session
+     */
+    public static int session(long stamp) {
+        return (int) (stamp >>> 32);
+    }
+
+    /**
+     * @param stamp position encodée
+     * @return frame
+     */
+    public static long tick(long stamp) {
+        return stamp & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,220 @@
+package game.telemetry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import game.actors.Enemys.EnemyType;
+import game.level.HitCause;
+import game.replay.VarInts;
+
+/**
+ * Lecture des fichiers de télémétrie et synthèse des événements : tirs,
+ * touches et ennemis détruits par type d'ennemi, vies perdues par cause et
+ * durée moyenne de chaque niveau.
+ */
+public class TelemetryReport {
+
+    private final long[] eventsByType = new long[TelemetryEvent.COUNT];
+    private final long[] hitsByEnemy = new long[EnemyType.values().length];
+    private final long[] killsByEnemy = new long[EnemyType.values().length];
+    private final long[][] deaths = new long[HitCause.values().length][EnemyType.values().length];
+    private long shots = 0;
+
+    /** Début de chaque niveau en cours, par (session, niveau) */
+    private final Map<Long, Long> levelStarts = new HashMap<>();
+
+    /** Nombre et durée totale (en frames) des niveaux terminés, par numéro */
+    private final Map<Integer, long[]> levelTimes = new HashMap<>();
+
+    /**
+     * Lit tous les fichiers de télémétrie d'un répertoire, dans l'ordre de
+     * leurs noms.
+     *
+     * @param directory répertoire
+     * @return synthèse
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public static TelemetryReport read(String directory) throws IOException {
+        TelemetryReport report = new TelemetryReport();
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(Telemetry.EXTENSION));
+        if (files == null) {
+            return report;
+        }
+        Arrays.sort(files);
+        for (File f : files) {
+            try {
+                report.add(ByteBuffer.wrap(readAvailable(f)));
+            } catch (IOException | RuntimeException e) {
+                // fin de lot tronquée : les événements précédents sont gardés
+                System.err.println("Fichier de télémétrie incomplet : " + f.getName());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Décompresse un fichier, y compris un fichier encore ouvert par
+     * l'écrivain (ou abandonné après un arrêt brutal) : tout ce qui a été
+     * vidé sur disque est retourné.
+     */
+    private static byte[] readAvailable(File f) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(f))) {
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                data.write(chunk, 0, n);
+            }
+        } catch (EOFException e) {
+            // fichier sans fin de flux gzip
+        }
+        return data.toByteArray();
+    }
+
+    /**
+     * Ajoute les événements d'un fichier décompressé.
+     */
+    private void add(ByteBuffer in) throws IOException {
+        if (in.getInt() != Telemetry.MAGIC || in.get() != Telemetry.VERSION)
+            throw new IOException("Fichier de télémétrie invalide");
+        long tick = 0;
+        while (in.hasRemaining()) {
+            long n = VarInts.read(in);
+            for (long i = 0; i < n; i++) {
+                int type = (int) VarInts.read(in);
+                int arg = (int) VarInts.read(in);
+                int value = (int) VarInts.read(in);
+                int session = (int) VarInts.read(in);
+                tick += VarInts.readSigned(in);
+                add(type, arg, value, session, tick);
+            }
+        }
+    }
+
+    /**
+     * Ajoute un événement à la synthèse.
+     */
+    private void add(int type, int arg, int value, int session, long tick) {
+        if (type <= 0 || type >= TelemetryEvent.COUNT) {
+            return;
+        }
+        eventsByType[type]++;
+        switch (type) {
+            case TelemetryEvent.SHOTS -> shots += value;
+            case TelemetryEvent.HIT -> hitsByEnemy[arg % hitsByEnemy.length]++;
+            case TelemetryEvent.KILL -> killsByEnemy[arg % killsByEnemy.length]++;
+            case TelemetryEvent.DEATH -> deaths[arg % deaths.length][value % hitsByEnemy.length]++;
+            case TelemetryEvent.LEVEL_START -> levelStarts.put(levelKey(session, value), tick);
+            case TelemetryEvent.LEVEL_END -> {
+                Long start = levelStarts.remove(levelKey(session, value));
+                if (start != null) {
+                    long[] times = levelTimes.computeIfAbsent(value, k -> new long[2]);
+                    times[0]++;
+                    times[1] += tick - start;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static long levelKey(int session, int level) {
+        return ((long) session << 32) | (level & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return nombre total de tirs
+     */
+    public long getShots() {
+        return shots;
+    }
+
+    /**
+     * @param type type d'ennemi
+     * @return nombre de missiles ayant touché ce type d'ennemi
+     */
+    public long getHits(EnemyType type) {
+        return hitsByEnemy[type.ordinal()];
+    }
+
+    /**
+     * @param type type d'ennemi
+     * @return nombre d'ennemis de ce type détruits
+     */
+    public long getKills(EnemyType type) {
+        return killsByEnemy[type.ordinal()];
+    }
+
+    /**
+     * @param cause cause
+     * @return nombre de vies perdues pour cette cause
+     */
+    public long getDeaths(HitCause cause) {
+        long total = 0;
+        for (long d : deaths[cause.ordinal()]) {
+            total += d;
+        }
+        return total;
+    }
+
+    /**
+     * @return nombre total d'événements lus
+     */
+    public long getEvents() {
+        long total = 0;
+        for (long n : eventsByType) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * @param level      numéro de niveau
+     * @param tickMillis durée d'une frame (en millisecondes)
+     * @return durée moyenne du niveau (en secondes), ou -1 s'il n'a jamais
+     *         été terminé
+     */
+    public double getAverageLevelSeconds(int level, long tickMillis) {
+        long[] times = levelTimes.get(level);
+        return times == null ? -1 : times[1] * tickMillis / 1000.0 / times[0];
+    }
+
+    /**
+     * Affiche la synthèse.
+     *
+     * @param tickMillis durée d'une frame (en millisecondes)
+     */
+    public void print(long tickMillis) {
+        System.out.printf("%d événements, %d tirs%n", getEvents(), shots);
+        long hits = 0;
+        for (EnemyType type : EnemyType.values()) {
+            hits += getHits(type);
+            System.out.printf("  %-10s touches %6d  détruits %6d%n", type, getHits(type), getKills(type));
+        }
+        if (shots > 0) {
+            System.out.printf("précision : %.1f %%%n", 100.0 * hits / shots);
+        }
+        for (HitCause cause : HitCause.values()) {
+            StringBuilder detail = new StringBuilder();
+            for (EnemyType type : EnemyType.values()) {
+                long d = deaths[cause.ordinal()][type.ordinal()];
+                if (d > 0) {
+                    detail.append(' ').append(type).append('=').append(d);
+                }
+            }
+            System.out.printf("vies perdues (%s) : %d%s%n", cause, getDeaths(cause), detail);
+        }
+        levelTimes.keySet().stream().sorted().forEach(level -> System.out.printf(
+                "niveau %d : %d fois, %.1f s en moyenne%n",
+                level, levelTimes.get(level)[0], getAverageLevelSeconds(level, tickMillis)));
+    }
+}
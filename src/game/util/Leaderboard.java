@@ -0,0 +1,406 @@
+package game.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+/**
+ * Classement persistant des meilleures parties.
+ * <p>
+ * En mémoire, le classement garde les {@code capacity} meilleures entrées
+ * dans un ensemble trié, et le nombre de parties de tout l'historique par
+ * score : le rang d'un score parmi des millions de parties ne coûte qu'un
+ * parcours des scores distincts qui lui sont supérieurs, sans accès disque.
+ * </p>
+ * <p>
+ * Sur disque, chaque partie est ajoutée à la fin d'un journal
+ * d'enregistrements (jamais réécrit en place), par un thread d'écriture en
+ * arrière-plan. Lorsque le journal contient trop d'entrées, il est compacté :
+ * réécrit dans un fichier temporaire avec un enregistrement de comptes par
+ * score (les parties hors classement) suivi des seules meilleures entrées,
+ * puis renommé sur l'ancien journal. Au démarrage, le journal est lu à
+ * travers une projection en mémoire ; chaque enregistrement porte un
+ * CRC32, et un enregistrement final incomplet (arrêt brutal pendant un
+ * ajout) est ignoré puis retiré du fichier.
+ * </p>
+ * <p>
+ * Format (gros-boutiste) : signature "GLDB" (int), version (octet), puis
+ * des enregistrements {@code type(octet) longueur(int) contenu crc(int)}.
+ * Une entrée contient score (int), niveau (int), date (long), durée
+ * (long) puis le nom en UTF-8 ; un enregistrement de comptes contient
+ * leur nombre (int) puis des paires score (int), nombre (long).
+ * </p>
+ */
+public class Leaderboard implements AutoCloseable {
+
+    /** Fichier du classement du jeu */
+    public static final String DEFAULT_FILE = "ressources/highscore/leaderboard.log";
+
+    /** Nombre d'entrées conservées par défaut */
+    public static final int DEFAULT_CAPACITY = 100;
+
+    /** Signature du format ("GLDB") */
+    private static final int MAGIC = 0x474C4442;
+
+    /** Version du format */
+    private static final int VERSION = 1;
+
+    /** Taille de l'en-tête du fichier */
+    private static final int HEADER_BYTES = 5;
+
+    /** Types d'enregistrements */
+    private static final byte ENTRY = 1;
+    private static final byte COUNTS = 2;
+
+    /** Taille fixe d'une entrée, hors nom */
+    private static final int ENTRY_FIXED_BYTES = 24;
+
+    /** Nombre d'entrées du journal au-delà du classement qui déclenche une compaction */
+    private static final int COMPACTION_SLACK = 4096;
+
+    /** Durée maximale d'attente des écritures (en millisecondes) */
+    private static final long FLUSH_TIMEOUT_MILLIS = 5000;
+
+    private final Path path;
+    private final int capacity;
+
+    /** Meilleures entrées, de la meilleure à la moins bonne */
+    private final TreeSet<LeaderboardEntry> top = new TreeSet<>();
+
+    /** Nombre de parties de tout l'historique, par score */
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+
+    /** Nombre total de parties */
+    private long total = 0;
+
+    /** Nombre d'entrées dans le journal */
+    private int logEntries = 0;
+
+    /** Thread d'écriture du journal */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "leaderboard-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Canal d'ajout au journal (thread d'écriture uniquement) */
+    private FileChannel log;
+
+    /**
+     * Ouvre le classement du jeu ; les écritures en attente sont terminées
+     * à l'arrêt de la JVM.
+     *
+     * @return classement
+     * @throws IOException si le journal ne peut pas être lu
+     */
+    public static Leaderboard open() throws IOException {
+        Leaderboard leaderboard = new Leaderboard(DEFAULT_FILE, DEFAULT_CAPACITY);
+        Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::flush, "leaderboard-flush"));
+        return leaderboard;
+    }
+
+    /**
+     * Ouvre un classement, en créant son journal si nécessaire.
+     *
+     * @param path     chemin du journal
+     * @param capacity nombre d'entrées conservées
+     * @throws IOException si le journal ne peut pas être lu
+     */
+    public Leaderboard(String path, int capacity) throws IOException {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacité invalide : " + capacity);
+        this.path = new File(path).toPath().toAbsolutePath();
+        this.capacity = capacity;
+        Files.createDirectories(this.path.getParent());
+
+        long valid = load();
+        log = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (valid < HEADER_BYTES) {
+            log.truncate(0);
+            log.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put((byte) VERSION).flip());
+        } else if (log.size() > valid) {
+            System.err.println("Fin du journal du classement incomplète, ignorée");
+            log.truncate(valid);
+        }
+        log.position(log.size());
+        if (logEntries > capacity + COMPACTION_SLACK) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * Lit le journal à travers une projection en mémoire.
+     *
+     * @return longueur de la partie valide du journal, 0 s'il n'existe pas
+     */
+    private long load() throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_BYTES) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                throw new IOException("Journal du classement invalide : " + path);
+            }
+            CRC32 crc = new CRC32();
+            while (in.hasRemaining()) {
+                int start = in.position();
+                try {
+                    byte type = in.get();
+                    int length = in.getInt();
+                    if (length < 0 || length > in.remaining() - 4) {
+                        return start;
+                    }
+                    ByteBuffer content = in.slice(in.position(), length);
+                    in.position(in.position() + length);
+                    crc.reset();
+                    crc.update(type);
+                    crc.update(content.duplicate());
+                    if ((int) crc.getValue() != in.getInt()) {
+                        return start;
+                    }
+                    apply(type, content);
+                } catch (BufferUnderflowException e) {
+                    return start;
+                }
+            }
+            return in.position();
+        }
+    }
+
+    /**
+     * Applique un enregistrement du journal au classement en mémoire.
+     */
+    private void apply(byte type, ByteBuffer content) {
+        if (type == ENTRY) {
+            insert(readEntry(content));
+            logEntries++;
+        } else if (type == COUNTS) {
+            int pairs = content.getInt();
+            for (int i = 0; i < pairs; i++) {
+                int score = content.getInt();
+                long count = content.getLong();
+                counts.merge(score, count, Long::sum);
+                total += count;
+            }
+        }
+    }
+
+    /**
+     * Ajoute une partie au classement en mémoire.
+     */
+    private void insert(LeaderboardEntry entry) {
+        counts.merge(entry.getScore(), 1L, Long::sum);
+        total++;
+        top.add(entry);
+        if (top.size() > capacity) {
+            top.pollLast();
+        }
+    }
+
+    /**
+     * Enregistre une partie terminée. Le journal est écrit en arrière-plan.
+     *
+     * @param entry partie terminée
+     * @return rang de la partie parmi tout l'historique (1 pour la meilleure)
+     */
+    public synchronized long submit(LeaderboardEntry entry) {
+        insert(entry);
+        logEntries++;
+        ByteBuffer record = encode(ENTRY, entryContent(entry));
+        writer.execute(() -> append(record));
+        if (logEntries > capacity + COMPACTION_SLACK) {
+            scheduleCompaction();
+        }
+        return rankOf(entry.getScore());
+    }
+
+    /**
+     * Rang qu'obtiendrait un score parmi tout l'historique (les parties de
+     * même score partagent le même rang).
+     *
+     * @param score score
+     * @return rang, 1 pour le meilleur
+     */
+    public synchronized long rankOf(int score) {
+        long better = 0;
+        for (long count : counts.tailMap(score, false).values()) {
+            better += count;
+        }
+        return better + 1;
+    }
+
+    /**
+     * @param count nombre d'entrées voulues
+     * @return meilleures entrées, de la meilleure à la moins bonne
+     */
+    public synchronized List<LeaderboardEntry> top(int count) {
+        List<LeaderboardEntry> result = new ArrayList<>(Math.min(count, top.size()));
+        for (LeaderboardEntry e : top) {
+            if (result.size() == count) {
+                break;
+            }
+            result.add(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return meilleur score de l'historique, 0 si aucun
+     */
+    public synchronized int getBestScore() {
+        return top.isEmpty() ? 0 : top.first().getScore();
+    }
+
+    /**
+     * @return nombre total de parties enregistrées
+     */
+    public synchronized long size() {
+        return total;
+    }
+
+    /**
+     * Prépare la compaction du journal à partir de l'état en mémoire ;
+     * les ajouts suivants seront écrits après elle.
+     */
+    private void scheduleCompaction() {
+        List<LeaderboardEntry> kept = new ArrayList<>(top);
+        TreeMap<Integer, Long> others = new TreeMap<>(counts);
+        for (LeaderboardEntry e : kept) {
+            others.merge(e.getScore(), -1L, Long::sum);
+        }
+        others.values().removeIf(c -> c == 0);
+        logEntries = kept.size();
+        writer.execute(() -> compact(kept, others));
+    }
+
+    /**
+     * Ajoute un enregistrement au journal (thread d'écriture).
+     */
+    private void append(ByteBuffer record) {
+        try {
+            while (record.hasRemaining()) {
+                log.write(record);
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur lors de l'écriture du classement : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Réécrit le journal avec les seules meilleures entrées et les comptes
+     * des autres parties (thread d'écriture).
+     */
+    private void compact(List<LeaderboardEntry> kept, TreeMap<Integer, Long> others) {
+        try {
+            ByteBuffer countsContent = ByteBuffer.allocate(4 + others.size() * 12);
+            countsContent.putInt(others.size());
+            for (Map.Entry<Integer, Long> e : others.entrySet()) {
+                countsContent.putInt(e.getKey()).putLong(e.getValue());
+            }
+
+            Path temp = Files.createTempFile(path.getParent(), "leaderboard", ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    out.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put((byte) VERSION).flip());
+                    out.write(encode(COUNTS, countsContent.flip()));
+                    for (LeaderboardEntry e : kept) {
+                        out.write(encode(ENTRY, entryContent(e)));
+                    }
+                    out.force(true);
+                }
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            log.close();
+            log = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la compaction du classement : " + e.getMessage());
+        }
+    }
+
+    private static ByteBuffer entryContent(LeaderboardEntry e) {
+        byte[] name = e.getName().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(ENTRY_FIXED_BYTES + name.length)
+                .putInt(e.getScore()).putInt(e.getLevel())
+                .putLong(e.getTimestamp()).putLong(e.getDurationMillis())
+                .put(name).flip();
+    }
+
+    private static LeaderboardEntry readEntry(ByteBuffer content) {
+        int score = content.getInt();
+        int level = content.getInt();
+        long timestamp = content.getLong();
+        long duration = content.getLong();
+        byte[] name = new byte[content.remaining()];
+        content.get(name);
+        return new LeaderboardEntry(score, new String(name, StandardCharsets.UTF_8), level, timestamp, duration);
+    }
+
+    /**
+     * Encode un enregistrement complet (type, longueur, contenu, CRC32).
+     */
+    private static ByteBuffer encode(byte type, ByteBuffer content) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(content.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(9 + content.remaining());
+        record.put(type).putInt(content.remaining()).put(content).putInt((int) crc.getValue());
+        return record.flip();
+    }
+
+    /**
+     * Attend que les écritures en attente soient terminées.
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> {
+            }).get(FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Écriture du classement non terminée : " + e);
+        }
+    }
+
+    /**
+     * Termine les écritures en attente et ferme le journal.
+     */
+    @Override
+    public void close() {
+        flush();
+        writer.shutdown();
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Erreur lors de la fermeture du classement");
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package game.util;
+
+/**
+ * Entrée du classement : une partie terminée.
+ * <p>
+ * Les entrées sont ordonnées du meilleur score au moins bon ; à score
+ * égal, la partie la plus ancienne passe devant.
+ * </p>
+ */
+public final class LeaderboardEntry implements Comparable<LeaderboardEntry> {
+
+    /** Longueur maximale d'un nom */
+    public static final int MAX_NAME_LENGTH = 32;
+
+    private final int score;
+    private final String name;
+    private final int level;
+    private final long timestamp;
+    private final long durationMillis;
+
+    /**
+     * Construit une entrée.
+     *
+     * @param score          score final
+     * @param name           nom du joueur (tronqué à {@link #MAX_NAME_LENGTH}
+     *                       caractères)
+     * @param level          niveau atteint
+     * @param timestamp      fin de la partie (en millisecondes depuis l'epoch)
+     * @param durationMillis durée de la partie (en millisecondes)
+     */
+    public LeaderboardEntry(int score, String name, int level, long timestamp, long durationMillis) {
+        this.score = score;
+        this.name = name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name;
+        this.level = level;
+        this.timestamp = timestamp;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @return score final
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return nom du joueur
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return niveau atteint
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return fin de la partie (en millisecondes depuis l'epoch)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return durée de la partie (en millisecondes)
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    @Override
+    public int compareTo(LeaderboardEntry other) {
+        if (score != other.score)
+            return Integer.compare(other.score, score);
+        if (timestamp != other.timestamp)
+            return Long.compare(timestamp, other.timestamp);
+        if (level != other.level)
+            return Integer.compare(other.level, level);
+        if (durationMillis != other.durationMillis)
+            return Long.compare(durationMillis, other.durationMillis);
+        return name.compareTo(other.name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LeaderboardEntry && compareTo((LeaderboardEntry) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(score) * 31 + Long.hashCode(timestamp) * 17 + name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-12s %7d  niveau %d  %ds", name, score, level, durationMillis / 1000);
+    }
+}
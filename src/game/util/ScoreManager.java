@@ -1,10 +1,23 @@
 package game.util;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Gestionnaire du meilleur score.
@@ -13,6 +26,15 @@ import java.io.IOException;
  * le meilleur score dans le fichier :
  * <code>ressources/highscore/highscore.sc</code>.
  * </p>
+ * <p>
+ * Le fichier n'est lu qu'une fois : les lectures suivantes sont servies
+ * depuis la mémoire. Les sauvegardes ne bloquent pas le jeu : elles sont
+ * confiées à un thread d'écriture qui écrit un fichier temporaire, le force
+ * sur le disque puis le renomme sur le fichier du highscore (un arrêt brutal laisse donc
+ * l'ancien ou le nouveau fichier, jamais un fichier tronqué). Si plusieurs
+ * sauvegardes arrivent avant que le thread n'ait écrit, seule la dernière
+ * est écrite. Les sauvegardes en attente sont écrites à l'arrêt de la JVM.
+ * </p>
  */
 public class ScoreManager {
     /*
@@ -26,16 +48,61 @@ public class ScoreManager {
     /** Chemin vers le fichier de sauvegarde du highscore */
     private static final String HIGHSCORE_FILE = "ressources/highscore/highscore.sc";
 
+    /** Valeur signalant l'absence de sauvegarde en attente */
+    private static final int NONE = Integer.MIN_VALUE;
+
+    /** Durée maximale d'attente des écritures à l'arrêt (en millisecondes) */
+    private static final long FLUSH_TIMEOUT_MILLIS = 2000;
+
+    /** Score en attente d'écriture, ou {@link #NONE} */
+    private static final AtomicInteger pending = new AtomicInteger(NONE);
+
+    /** Meilleur score en mémoire (valide une fois {@link #loaded} vrai) */
+    private static volatile int cached;
+
+    /** Indique si le fichier a déjà été lu */
+    private static volatile boolean loaded = false;
+
+    /**
+     * Thread d'écriture, créé à la première sauvegarde.
+     */
+    private static final class Writer {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "highscore-writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(ScoreManager::flush, "highscore-flush"));
+        }
+    }
+
     /**
-     * Charge le meilleur score depuis le fichier.
+     * Charge le meilleur score.
      * <p>
-     * Si le fichier n'existe pas, est vide ou mal formaté,
-     * retourne 0.
+     * Le fichier n'est lu qu'au premier appel. Si le fichier n'existe pas,
+     * est vide ou mal formaté, retourne 0.
      * </p>
      *
      * @return le meilleur score
      */
     public static int loadHighScore() {
+        if (!loaded) {
+            synchronized (ScoreManager.class) {
+                if (!loaded) {
+                    cached = readHighScore();
+                    loaded = true;
+                }
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Lit le meilleur score depuis le fichier.
+     */
+    private static int readHighScore() {
         try {
             File file = new File(HIGHSCORE_FILE);
             if (!file.exists()) {
@@ -61,20 +128,63 @@ public class ScoreManager {
     }
 
     /**
-     * Sauvegarde le meilleur score dans le fichier.
+     * Sauvegarde le meilleur score.
      * <p>
-     * Crée les répertoires nécessaires si ils n'existent pas.
+     * La valeur est immédiatement visible par {@link #loadHighScore()} ;
+     * l'écriture du fichier a lieu en arrière-plan.
      * </p>
      *
      * @param score le score à sauvegarder
      */
     public static void saveHighScore(int score) {
+        synchronized (ScoreManager.class) {
+            cached = score;
+            loaded = true;
+        }
+        if (pending.getAndSet(score) == NONE) {
+            Writer.EXECUTOR.execute(ScoreManager::writePending);
+        }
+    }
+
+    /**
+     * Attend que les sauvegardes en attente soient écrites.
+     */
+    public static void flush() {
         try {
-            File file = new File(HIGHSCORE_FILE);
-            file.getParentFile().mkdirs(); // créer les répertoires si nécessaire
+            Writer.EXECUTOR.submit(() -> {
+            }).get(FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Sauvegarde du highscore non terminée : " + e);
+        }
+    }
 
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(String.valueOf(score));
+    /**
+     * Écrit la dernière valeur en attente (thread d'écriture).
+     */
+    private static void writePending() {
+        int score = pending.getAndSet(NONE);
+        if (score == NONE) {
+            return;
+        }
+        try {
+            Path target = new File(HIGHSCORE_FILE).toPath().toAbsolutePath();
+            Files.createDirectories(target.getParent()); // créer les répertoires si nécessaire
+
+            Path temp = Files.createTempFile(target.getParent(), "highscore", ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    out.write(ByteBuffer.wrap(String.valueOf(score).getBytes(StandardCharsets.UTF_8)));
+                    out.force(true); // contenu sur disque avant le renommage
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
             }
         } catch (IOException e) {
             System.err.println("Erreur lors de la sauvegarde du highscore : " + e.getMessage());
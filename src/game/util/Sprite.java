@@ -1,17 +1,29 @@
 package game.util;
 
+import java.awt.Color;
+import java.util.Arrays;
+
 /**
- * Représente un sprite sous forme de tableau de caractères.
+ * Représente un sprite sous forme d'indices de palette.
  * <p>
- * Chaque sprite contient une matrice de pixels, où chaque pixel
- * est représenté par un caractère. La position (0,0) correspond
+ * Un sprite est lu comme une matrice de caractères (voir
+ * {@link SpriteLoader}), puis stocké de façon compacte : chaque pixel est un
+ * octet, indice dans la palette propre au sprite, et la transparence
+ * (caractère 'N') est un bit par pixel. Les couleurs de la palette sont
+ * résolues une fois à la construction (voir
+ * {@link SpriteRenderer#charToColor(char)}). La position (0,0) correspond
  * au coin supérieur gauche du sprite.
  * </p>
+ * <p>
+ * Le masque de transparence permet de parcourir une ligne par plages de
+ * pixels opaques de même couleur ({@link #spanStart} et {@link #spanEnd})
+ * en sautant les pixels transparents par 64.
+ * </p>
  */
 public class Sprite {
 
-    /** Matrice des pixels du sprite */
-    private final char[][] pixels;
+    /** Caractère des pixels transparents */
+    private static final char TRANSPARENT = 'N';
 
     /** Largeur du sprite (nombre de colonnes) */
     private final int width;
@@ -19,15 +31,63 @@ public class Sprite {
     /** Hauteur du sprite (nombre de lignes) */
     private final int height;
 
+    /** Indice de palette de chaque pixel, ligne par ligne */
+    private final byte[] indices;
+
+    /** Pixels opaques (un bit par pixel, dans l'ordre de {@link #indices}) */
+    private final long[] opaque;
+
+    /** Caractère de chaque couleur de la palette */
+    private final char[] codes;
+
+    /** Couleurs de la palette */
+    private final Color[] palette;
+
     /**
      * Construit un sprite à partir d'une matrice de caractères.
+     * <p>
+     * La largeur est celle de la première ligne ; une ligne plus courte est
+     * complétée par des pixels transparents.
+     * </p>
      *
      * @param pixels matrice de caractères représentant le sprite
+     * @throws IllegalArgumentException si le sprite a plus de 256 couleurs
      */
     public Sprite(char[][] pixels) {
-        this.pixels = pixels;
         this.height = pixels.length;
         this.width = (height > 0) ? pixels[0].length : 0;
+        this.indices = new byte[width * height];
+        this.opaque = new long[(width * height + 63) / 64];
+
+        char[] found = new char[256];
+        int colors = 0;
+        for (int y = 0; y < height; y++) {
+            int length = Math.min(width, pixels[y].length);
+            for (int x = 0; x < length; x++) {
+                char c = pixels[y][x];
+                if (c == TRANSPARENT) {
+                    continue;
+                }
+                int index = 0;
+                while (index < colors && found[index] != c) {
+                    index++;
+                }
+                if (index == colors) {
+                    if (colors == found.length)
+                        throw new IllegalArgumentException("Trop de couleurs dans le sprite");
+                    found[colors++] = c;
+                }
+                int i = y * width + x;
+                indices[i] = (byte) index;
+                opaque[i >> 6] |= 1L << i;
+            }
+        }
+
+        this.codes = Arrays.copyOf(found, colors);
+        this.palette = new Color[colors];
+        for (int i = 0; i < colors; i++) {
+            palette[i] = SpriteRenderer.charToColor(codes[i]);
+        }
     }
 
     /**
@@ -56,9 +116,101 @@ public class Sprite {
      * @return caractère du pixel ou 'N' si hors limites
      */
     public char getPixel(int x, int y) {
+        if (!isOpaque(x, y)) {
+            return TRANSPARENT; // transparent par défaut si hors limites
+        }
+        return codes[indices[y * width + x]];
+    }
+
+    /**
+     * Indique si un pixel est opaque.
+     *
+     * @param x position horizontale
+     * @param y position verticale
+     * @return {@code false} si le pixel est transparent ou hors limites
+     */
+    public boolean isOpaque(int x, int y) {
         if (x < 0 || x >= width || y < 0 || y >= height) {
-            return 'N'; // transparent par défaut si hors limites
+            return false;
+        }
+        int i = y * width + x;
+        return (opaque[i >> 6] & 1L << i) != 0;
+    }
+
+    /**
+     * Retourne l'indice de palette d'un pixel opaque.
+     *
+     * @param x position horizontale
+     * @param y position verticale
+     * @return indice dans la palette (sans signification pour un pixel
+     *         transparent)
+     */
+    public int getIndex(int x, int y) {
+        return indices[y * width + x] & 0xFF;
+    }
+
+    /**
+     * @return nombre de couleurs de la palette
+     */
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * Retourne une couleur de la palette.
+     *
+     * @param index indice dans la palette
+     * @return couleur
+     */
+    public Color getColor(int index) {
+        return palette[index];
+    }
+
+    /**
+     * Retourne le premier pixel opaque d'une ligne à partir d'une colonne.
+     *
+     * @param y    ligne
+     * @param from première colonne examinée
+     * @return colonne du pixel, ou la largeur si le reste de la ligne est
+     *         transparent
+     */
+    public int spanStart(int y, int from) {
+        if (from >= width) {
+            return width;
+        }
+        int row = y * width;
+        int i = row + from;
+        int end = row + width;
+        while (i < end) {
+            long bits = opaque[i >> 6] >>> i;
+            if (bits != 0) {
+                return Math.min(width, i + Long.numberOfTrailingZeros(bits) - row);
+            }
+            // reste du mot transparent : passer au mot suivant
+            i = (i | 63) + 1;
+        }
+        return width;
+    }
+
+    /**
+     * Retourne la fin de la plage de pixels opaques de même couleur qui
+     * commence à une colonne.
+     *
+     * @param y    ligne
+     * @param from première colonne de la plage (pixel opaque)
+     * @return colonne qui suit la plage
+     */
+    public int spanEnd(int y, int from) {
+        int row = y * width;
+        byte index = indices[row + from];
+        int x = from + 1;
+        while (x < width) {
+            int i = row + x;
+            if ((opaque[i >> 6] & 1L << i) == 0 || indices[i] != index) {
+                break;
+            }
+            x++;
         }
-        return pixels[y][x];
+        return x;
     }
 }
@@ -0,0 +1,197 @@
+package game.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Atlas de textures : tous les sprites rangés dans une seule image.
+ * <p>
+ * Chaque sprite est converti une fois en pixels ARGB, plage opaque par
+ * plage opaque (le reste demeure transparent), puis placé dans l'image
+ * par un algorithme d'étagères : les sprites, triés par hauteur
+ * décroissante, sont posés de gauche à droite sur des étagères empilées,
+ * et une nouvelle étagère est ouverte quand la courante est pleine. Chaque sprite est ensuite désigné
+ * par une {@link Region} de l'atlas, que {@link SpriteRenderer} dessine en
+ * une seule copie d'image : tous les sprites d'une frame viennent de la
+ * même texture, et un pixel de sprite n'occupe plus qu'un entier.
+ * </p>
+ * <p>
+ * L'atlas partagé ({@link #shared()}) contient tous les fichiers
+ * {@code .spr} du répertoire des sprites ; il est construit au premier
+ * usage.
+ * </p>
+ */
+public class SpriteAtlas {
+
+    /** Espace laissé entre deux sprites (en pixels) */
+    private static final int PADDING = 1;
+
+    /** Atlas de tous les sprites du jeu, construit au premier usage */
+    private static SpriteAtlas shared;
+
+    /** Image de l'atlas */
+    private final BufferedImage image;
+
+    /** Zone de chaque sprite, par nom */
+    private final Map<String, Region> regions = new HashMap<>();
+
+    /**
+     * Zone d'un sprite dans l'image d'un atlas.
+     */
+    public static class Region {
+
+        /** Image de l'atlas */
+        private final BufferedImage image;
+
+        /** Position et taille de la zone (en pixels de l'atlas) */
+        private final int x, y, width, height;
+
+        private Region(BufferedImage image, int x, int y, int width, int height) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * @return image de l'atlas contenant le sprite
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        /**
+         * @return gauche de la zone (en pixels de l'atlas)
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return haut de la zone (en pixels de l'atlas)
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return largeur du sprite (en pixels)
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return hauteur du sprite (en pixels)
+         */
+        public int getHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * Construit un atlas contenant des sprites.
+     *
+     * @param sprites sprites à ranger, par nom
+     * @throws IllegalArgumentException si aucun sprite n'est fourni
+     */
+    public SpriteAtlas(Map<String, Sprite> sprites) {
+        if (sprites.isEmpty())
+            throw new IllegalArgumentException("Atlas vide");
+
+        String[] names = sprites.keySet().toArray(new String[0]);
+        Arrays.sort(names, Comparator.comparingInt((String name) -> -sprites.get(name).getHeight())
+                .thenComparing(Comparator.naturalOrder()));
+
+        // largeur : une puissance de deux proche d'un carré, au moins celle
+        // du plus large sprite
+        long area = 0;
+        int widest = 0;
+        for (String name : names) {
+            Sprite sprite = sprites.get(name);
+            area += (long) (sprite.getWidth() + PADDING) * (sprite.getHeight() + PADDING);
+            widest = Math.max(widest, sprite.getWidth() + PADDING);
+        }
+        int width = Integer.highestOneBit((int) Math.ceil(Math.sqrt(area)) - 1) << 1;
+        width = Math.max(width, widest);
+
+        // étagères
+        int[] positions = new int[2 * names.length];
+        int x = 0, y = 0, shelfHeight = 0;
+        for (int i = 0; i < names.length; i++) {
+            Sprite sprite = sprites.get(names[i]);
+            if (x + sprite.getWidth() + PADDING > width) {
+                y += shelfHeight;
+                x = 0;
+                shelfHeight = 0;
+            }
+            positions[2 * i] = x;
+            positions[2 * i + 1] = y;
+            x += sprite.getWidth() + PADDING;
+            shelfHeight = Math.max(shelfHeight, sprite.getHeight() + PADDING);
+        }
+
+        this.image = new BufferedImage(width, y + shelfHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < names.length; i++) {
+            Sprite sprite = sprites.get(names[i]);
+            int left = positions[2 * i];
+            int top = positions[2 * i + 1];
+            for (int row = 0; row < sprite.getHeight(); row++) {
+                int offset = (top + row) * width + left;
+                int col = sprite.spanStart(row, 0);
+                while (col < sprite.getWidth()) {
+                    int end = sprite.spanEnd(row, col);
+                    int argb = sprite.getColor(sprite.getIndex(col, row)).getRGB();
+                    Arrays.fill(pixels, offset + col, offset + end, argb);
+                    col = sprite.spanStart(row, end);
+                }
+            }
+            regions.put(names[i], new Region(image, left, top, sprite.getWidth(), sprite.getHeight()));
+        }
+    }
+
+    /**
+     * Retourne l'atlas de tous les sprites du jeu, en le construisant au
+     * premier appel.
+     *
+     * @return atlas partagé
+     * @throws RuntimeException si un sprite ne peut pas être lu
+     */
+    public static synchronized SpriteAtlas shared() {
+        if (shared == null) {
+            Map<String, Sprite> sprites = new HashMap<>();
+            for (String name : SpriteLoader.listSprites()) {
+                sprites.put(name, new Sprite(SpriteLoader.loadSprite(name)));
+            }
+            shared = new SpriteAtlas(sprites);
+        }
+        return shared;
+    }
+
+    /**
+     * Retourne la zone d'un sprite.
+     *
+     * @param name nom du sprite (ex: "ship.spr")
+     * @return zone du sprite dans l'atlas
+     * @throws IllegalArgumentException si le sprite n'est pas dans l'atlas
+     */
+    public Region getRegion(String name) {
+        Region region = regions.get(name);
+        if (region == null)
+            throw new IllegalArgumentException("Sprite absent de l'atlas : " + name);
+        return region;
+    }
+
+    /**
+     * @return image de l'atlas
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+}
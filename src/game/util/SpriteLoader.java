@@ -2,6 +2,7 @@ package game.util;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -15,6 +16,9 @@ import java.util.Scanner;
  */
 public class SpriteLoader {
 
+    /** Répertoire des fichiers de sprites */
+    private static final String DIRECTORY = "ressources/sprites/";
+
     /**
      * Charge un sprite depuis un fichier.
      *
@@ -25,7 +29,7 @@ public class SpriteLoader {
      */
     public static char[][] loadSprite(String fileName) {
 
-        File file = new File("ressources/sprites/" + fileName);
+        File file = new File(DIRECTORY + fileName);
 
         if (!file.exists()) {
             throw new RuntimeException("Sprite introuvable : " + file.getAbsolutePath());
@@ -46,4 +50,20 @@ public class SpriteLoader {
             throw new RuntimeException("Erreur lors de la lecture du sprite : " + fileName, e);
         }
     }
+
+    /**
+     * Liste les fichiers de sprites disponibles.
+     *
+     * @return noms des fichiers {@code .spr}, par ordre alphabétique
+     * @throws RuntimeException si le répertoire des sprites est introuvable
+     */
+    public static String[] listSprites() {
+        File directory = new File(DIRECTORY);
+        String[] names = directory.list((dir, name) -> name.endsWith(".spr"));
+        if (names == null) {
+            throw new RuntimeException("Répertoire de sprites introuvable : " + directory.getAbsolutePath());
+        }
+        Arrays.sort(names);
+        return names;
+    }
 }
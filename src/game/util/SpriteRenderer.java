@@ -2,13 +2,20 @@ package game.util;
 
 import java.awt.Color;
 
+import game.render.Renderer;
+
 /**
  * Classe utilitaire pour dessiner des sprites à l'écran.
  * <p>
  * Chaque sprite est une matrice de caractères. Les caractères
- * sont convertis en couleurs via {@link #charToColor(char)}.
- * Les pixels avec le caractère 'N' sont considérés comme
- * transparents.
+ * sont convertis en couleurs via {@link #charToColor(char)}, une fois
+ * par sprite (voir {@link Sprite}). Les pixels avec le caractère 'N'
+ * sont considérés comme transparents.
+ * </p>
+ * <p>
+ * Les sprites du jeu sont dessinés depuis l'atlas partagé
+ * ({@link SpriteAtlas}), en une seule copie d'image par sprite ; le dessin
+ * rectangle par rectangle reste disponible pour un sprite hors atlas.
  * </p>
  */
 public class SpriteRenderer {
@@ -20,10 +27,11 @@ public class SpriteRenderer {
      * du sprite, et la taille est appliquée uniformément aux axes X et Y.
      * </p>
      *
-     * @param sprite sprite à dessiner
-     * @param posX   coordonnée X du coin inférieur gauche
-     * @param posY   coordonnée Y du coin inférieur gauche
-     * @param size   largeur et hauteur totale du sprite
+     * @param renderer moteur de rendu
+     * @param sprite   sprite à dessiner
+     * @param posX     coordonnée X du coin inférieur gauche
+     * @param posY     coordonnée Y du coin inférieur gauche
+     * @param size     largeur et hauteur totale du sprite
      */
     /*
      * @IAGENERATIVE
@@ -31,29 +39,51 @@ public class SpriteRenderer {
      * J'ai reçu de l'aide D'une IA pour cette fonction, seulement pour la logique
      * mathématiques des pixels.
      */
-    public static void drawSprite(Sprite sprite, double posX, double posY, double size) {
+    public static void drawSprite(Renderer renderer, Sprite sprite, double posX, double posY, double size) {
         int width = sprite.getWidth();
         int height = sprite.getHeight();
 
         double pixelWidth = size / width;
         double pixelHeight = size / height;
 
+        // un rectangle par plage de pixels opaques de même couleur
+        int color = -1;
         for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                char c = sprite.getPixel(x, y);
-                if (c != 'N') { // 'N' = transparent
-                    StdDraw.setPenColor(charToColor(c));
-                    // inverser y pour dessiner depuis le coin inférieur gauche
-                    StdDraw.filledRectangle(
-                            posX + x * pixelWidth + pixelWidth / 2,
-                            posY + (height - 1 - y) * pixelHeight + pixelHeight / 2,
-                            pixelWidth / 2,
-                            pixelHeight / 2);
+            int x = sprite.spanStart(y, 0);
+            while (x < width) {
+                int end = sprite.spanEnd(y, x);
+                int index = sprite.getIndex(x, y);
+                if (index != color) {
+                    renderer.setPenColor(sprite.getColor(index));
+                    color = index;
                 }
+                // inverser y pour dessiner depuis le coin inférieur gauche
+                renderer.filledRectangle(
+                        posX + (x + end) * pixelWidth / 2,
+                        posY + (height - 1 - y) * pixelHeight + pixelHeight / 2,
+                        (end - x) * pixelWidth / 2,
+                        pixelHeight / 2);
+                x = sprite.spanStart(y, end);
             }
         }
     }
 
+    /**
+     * Dessine un sprite d'un atlas à la position spécifiée avec la taille
+     * donnée, en une seule copie d'image.
+     *
+     * @param renderer moteur de rendu
+     * @param sprite   zone du sprite dans l'atlas
+     * @param posX     coordonnée X du coin inférieur gauche
+     * @param posY     coordonnée Y du coin inférieur gauche
+     * @param size     largeur et hauteur totale du sprite
+     */
+    public static void drawSprite(Renderer renderer, SpriteAtlas.Region sprite, double posX, double posY,
+            double size) {
+        renderer.picture(sprite.getImage(), sprite.getX(), sprite.getY(), sprite.getWidth(), sprite.getHeight(),
+                posX + size / 2, posY + size / 2, size / 2, size / 2);
+    }
+
     /**
      * Convertit un caractère en couleur.
      * <p>
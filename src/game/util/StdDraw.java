@@ -28,8 +28,10 @@ package game.util;
  ******************************************************************************/
 
 import java.awt.BasicStroke;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Dimension;
 import java.awt.FileDialog;
 import java.awt.Font;
 import java.awt.FontMetrics;
@@ -51,6 +53,7 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.awt.image.DirectColorModel;
 import java.awt.image.WritableRaster;
@@ -71,6 +74,8 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.KeyStroke;
 
+import game.input.KeyEventQueue;
+
 /**
  * The {@code StdDraw} class provides a basic capability for creating drawings
  * with your programs. It uses a simple graphics model that allows you to create
@@ -594,6 +599,21 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	private static BufferedImage offscreenImage, onscreenImage;
 	private static Graphics2D offscreen, onscreen;
 
+	// active rendering: draw straight into the back buffer of a Canvas and
+	// page flip it from the calling thread (selected with -Dstddraw.active=true
+	// or setActiveRendering(true) before setCanvasSize())
+	private static boolean active = Boolean.getBoolean("stddraw.active");
+	private static Canvas canvas;
+	private static BufferStrategy strategy;
+
+	// offscreen pixels per canvas pixel (2 for Retina displays), see
+	// setRenderScale()
+	private static double renderScale = 2.0;
+
+	// current pen stroke and rendering hints, reapplied to each back buffer
+	private static BasicStroke stroke;
+	private static RenderingHints hints;
+
 	// singleton for callbacks: avoids generation of extra .class files
 	private static StdDraw std = new StdDraw();
 
@@ -651,17 +671,52 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 		init();
 	}
 
+	/**
+	 * Selects the rendering backend used by the next call to
+	 * {@link #setCanvasSize(int, int)}.
+	 * <p>
+	 * With active rendering, drawing methods write directly into the back
+	 * buffer of a {@link Canvas} and {@link #show()} flips it to the screen from
+	 * the calling thread, without going through an intermediate image or the
+	 * event dispatch thread. Drawings only become visible on the next call to
+	 * {@code show()}, as with double buffering, and the contents of the window
+	 * are not repainted if it is hidden and exposed again.
+	 *
+	 * @param enabled {@code true} for active rendering, {@code false} for the
+	 *                default offscreen image
+	 */
+	public static void setActiveRendering(boolean enabled) {
+		active = enabled;
+	}
+
+	/**
+	 * Returns true if the canvas uses active rendering.
+	 *
+	 * @return {@code true} if drawing goes straight into a page flipped buffer
+	 */
+	public static boolean isActiveRendering() {
+		return canvas != null;
+	}
+
 	// init
 	private static void init() {
 		if (frame != null)
 			// frame.setVisible(false);
 			frame.dispose();
 		frame = new JFrame();
-		offscreenImage = new BufferedImage(2 * width, 2 * height, BufferedImage.TYPE_INT_ARGB);
-		onscreenImage = new BufferedImage(2 * width, 2 * height, BufferedImage.TYPE_INT_ARGB);
-		offscreen = offscreenImage.createGraphics();
-		onscreen = onscreenImage.createGraphics();
-		offscreen.scale(2.0, 2.0); // since we made it 2x as big
+		hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		if (active) {
+			initCanvas();
+		} else {
+			canvas = null;
+			strategy = null;
+			createOffscreen();
+			onscreenImage = new BufferedImage(2 * width, 2 * height, BufferedImage.TYPE_INT_ARGB);
+			onscreen = onscreenImage.createGraphics();
+			onscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		}
 
 		setXscale();
 		setYscale();
@@ -677,9 +732,9 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 		keysDown = new TreeSet<Integer>();
 
 		// add antialiasing
-		RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-		hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
 		offscreen.addRenderingHints(hints);
+		if (active)
+			return;
 
 		// frame stuff
 		RetinaImageIcon icon = new RetinaImageIcon(onscreenImage);
@@ -689,6 +744,84 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 		draw.addMouseMotionListener(std);
 
 		frame.setContentPane(draw);
+		openFrame();
+		frame.setJMenuBar(createMenuBar());
+		frame.pack();
+		frame.requestFocusInWindow();
+		frame.setVisible(true);
+	}
+
+	// offscreen image at the current render scale
+	private static void createOffscreen() {
+		int w = Math.max(1, (int) Math.ceil(renderScale * width));
+		int h = Math.max(1, (int) Math.ceil(renderScale * height));
+		offscreenImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		offscreen = offscreenImage.createGraphics();
+		offscreen.scale(renderScale, renderScale);
+	}
+
+	/**
+	 * Sets the resolution of the offscreen image, in pixels per canvas pixel. The
+	 * default is 2, for Retina displays; lower values cut the cost of every
+	 * drawing at the expense of detail, and the image is then enlarged to the
+	 * window with nearest-neighbor interpolation in {@link #show()}. The current
+	 * drawing is erased. This has no effect with active rendering.
+	 *
+	 * @param scale the number of offscreen pixels per canvas pixel
+	 * @throws IllegalArgumentException unless {@code scale} is in (0, 2]
+	 */
+	public static void setRenderScale(double scale) {
+		validate(scale, "scale");
+		if (scale <= 0 || scale > 2)
+			throw new IllegalArgumentException("render scale must be in (0, 2]");
+		renderScale = scale;
+		if (canvas != null || offscreenImage == null)
+			return;
+		createOffscreen();
+		offscreen.addRenderingHints(hints);
+		offscreen.setColor(DEFAULT_CLEAR_COLOR);
+		offscreen.fillRect(0, 0, width, height);
+		offscreen.setColor(penColor);
+		offscreen.setStroke(stroke);
+	}
+
+	/**
+	 * Returns the resolution of the offscreen image.
+	 *
+	 * @return the number of offscreen pixels per canvas pixel
+	 */
+	public static double getRenderScale() {
+		return renderScale;
+	}
+
+	// init for active rendering: the frame must be displayable before the
+	// buffer strategy can be created
+	private static void initCanvas() {
+		offscreenImage = null;
+		onscreenImage = null;
+		onscreen = null;
+
+		canvas = new Canvas();
+		canvas.setPreferredSize(new Dimension(width, height));
+		canvas.setIgnoreRepaint(true); // nothing to repaint from, frames come from show()
+		canvas.setFocusable(false); // keep keyboard focus on the frame
+		canvas.addMouseListener(std);
+		canvas.addMouseMotionListener(std);
+
+		frame.add(canvas);
+		frame.setIgnoreRepaint(true);
+		openFrame();
+		frame.pack();
+		frame.requestFocusInWindow();
+		frame.setVisible(true);
+
+		canvas.createBufferStrategy(2);
+		strategy = canvas.getBufferStrategy();
+		offscreen = (Graphics2D) strategy.getDrawGraphics();
+	}
+
+	// frame settings shared by both backends
+	private static void openFrame() {
 		frame.addKeyListener(std); // JLabel cannot get keyboard focus
 		frame.setFocusTraversalKeysEnabled(false); // allow VK_TAB with isKeyPressed()
 		frame.setResizable(false);
@@ -696,10 +829,6 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 		// frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // closes only
 		// current window
 		frame.setTitle("Standard Draw");
-		frame.setJMenuBar(createMenuBar());
-		frame.pack();
-		frame.requestFocusInWindow();
-		frame.setVisible(true);
 	}
 
 	// create the menu bar (changed to private)
@@ -911,7 +1040,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 
 		penRadius = radius;
 		float scaledPenRadius = (float) (radius * DEFAULT_SIZE);
-		BasicStroke stroke = new BasicStroke(scaledPenRadius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+		stroke = new BasicStroke(scaledPenRadius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
 		// BasicStroke stroke = new BasicStroke(scaledPenRadius);
 		offscreen.setStroke(stroke);
 	}
@@ -1623,6 +1752,109 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 		draw();
 	}
 
+	/**
+	 * Draws the specified image centered at (<em>x</em>, <em>y</em>), rescaled to
+	 * the specified bounding box with nearest-neighbor interpolation. Unlike the
+	 * methods taking a filename, the image is drawn as is, so it can be updated
+	 * between calls.
+	 *
+	 * @param x            the center <em>x</em>-coordinate of the image
+	 * @param y            the center <em>y</em>-coordinate of the image
+	 * @param image        the image to draw
+	 * @param scaledWidth  the width of the scaled image (in screen coordinates)
+	 * @param scaledHeight the height of the scaled image (in screen coordinates)
+	 * @throws IllegalArgumentException if {@code image} is {@code null}
+	 * @throws IllegalArgumentException if any argument is NaN or infinite, or if
+	 *                                  either width or height is negative
+	 */
+	public static void picture(double x, double y, Image image, double scaledWidth, double scaledHeight) {
+		validate(x, "x");
+		validate(y, "y");
+		validate(scaledWidth, "scaled width");
+		validate(scaledHeight, "scaled height");
+		validateNotNull(image, "image");
+		validateNonnegative(scaledWidth, "scaled width");
+		validateNonnegative(scaledHeight, "scaled height");
+
+		double xs = scaleX(x);
+		double ys = scaleY(y);
+		double ws = factorX(scaledWidth);
+		double hs = factorY(scaledHeight);
+		Object interpolation = offscreen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+		offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		offscreen.drawImage(image, (int) Math.round(xs - ws / 2.0), (int) Math.round(ys - hs / 2.0),
+				(int) Math.round(ws), (int) Math.round(hs), null);
+		if (interpolation != null)
+			offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		draw();
+	}
+
+	/**
+	 * Draws a rectangular region of the specified image centered at
+	 * (<em>x</em>, <em>y</em>), rescaled to the specified bounding box with
+	 * nearest-neighbor interpolation. This draws one sprite out of a texture
+	 * atlas in a single call.
+	 *
+	 * @param x            the center <em>x</em>-coordinate of the region
+	 * @param y            the center <em>y</em>-coordinate of the region
+	 * @param image        the image holding the region
+	 * @param sx           the left of the region (in image pixels)
+	 * @param sy           the top of the region (in image pixels)
+	 * @param sw           the width of the region (in image pixels)
+	 * @param sh           the height of the region (in image pixels)
+	 * @param scaledWidth  the width of the scaled region (in screen coordinates)
+	 * @param scaledHeight the height of the scaled region (in screen coordinates)
+	 * @throws IllegalArgumentException if {@code image} is {@code null}
+	 * @throws IllegalArgumentException if any argument is NaN or infinite, or if
+	 *                                  either width or height is negative
+	 */
+	public static void picture(double x, double y, Image image, int sx, int sy, int sw, int sh,
+			double scaledWidth, double scaledHeight) {
+		validate(x, "x");
+		validate(y, "y");
+		validate(scaledWidth, "scaled width");
+		validate(scaledHeight, "scaled height");
+		validateNotNull(image, "image");
+		validateNonnegative(scaledWidth, "scaled width");
+		validateNonnegative(scaledHeight, "scaled height");
+
+		double xs = scaleX(x);
+		double ys = scaleY(y);
+		double ws = factorX(scaledWidth);
+		double hs = factorY(scaledHeight);
+		int dx = (int) Math.round(xs - ws / 2.0);
+		int dy = (int) Math.round(ys - hs / 2.0);
+		Object interpolation = offscreen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+		offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		offscreen.drawImage(image, dx, dy, dx + (int) Math.round(ws), dy + (int) Math.round(hs),
+				sx, sy, sx + sw, sy + sh, null);
+		if (interpolation != null)
+			offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		draw();
+	}
+
+	/**
+	 * Draws the specified image stretched over the whole canvas, with
+	 * nearest-neighbor interpolation so that pixels stay sharp when the image is
+	 * smaller than the canvas. This presents a frame rendered elsewhere (e.g. in
+	 * software) with a single call.
+	 *
+	 * @param image the image to draw
+	 * @throws IllegalArgumentException if {@code image} is {@code null}
+	 */
+	public static void fullscreenImage(Image image) {
+		validateNotNull(image, "image");
+		Object interpolation = offscreen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+		offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		offscreen.drawImage(image, 0, 0, width, height, null);
+		if (interpolation != null)
+			offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		draw();
+	}
+
 	/***************************************************************************
 	 * Drawing text.
 	 ***************************************************************************/
@@ -1765,13 +1997,34 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	 * method unless double buffering is enabled.
 	 */
 	public static void show() {
-		onscreen.drawImage(offscreenImage, 0, 0, null);
+		if (canvas != null) {
+			flip();
+			return;
+		}
+		if (offscreenImage.getWidth() == onscreenImage.getWidth())
+			onscreen.drawImage(offscreenImage, 0, 0, null);
+		else
+			onscreen.drawImage(offscreenImage, 0, 0, onscreenImage.getWidth(), onscreenImage.getHeight(), null);
 		frame.repaint();
 	}
 
-	// draw onscreen if defer is false
+	// active rendering: present the back buffer and start drawing the next one.
+	// A frame whose contents were lost is simply dropped, since the next one is
+	// drawn from scratch anyway.
+	private static void flip() {
+		offscreen.dispose();
+		if (!strategy.contentsLost())
+			strategy.show();
+		Toolkit.getDefaultToolkit().sync();
+		offscreen = (Graphics2D) strategy.getDrawGraphics();
+		offscreen.addRenderingHints(hints);
+		offscreen.setColor(penColor);
+		offscreen.setStroke(stroke);
+	}
+
+	// draw onscreen if defer is false (active rendering always waits for show())
 	private static void draw() {
-		if (!defer)
+		if (!defer && canvas == null)
 			show();
 	}
 
@@ -1807,6 +2060,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	 */
 	public static void save(String filename) {
 		validateNotNull(filename, "filename");
+		if (canvas != null) {
+			System.err.println("cannot save " + filename + ": active rendering keeps no image");
+			return;
+		}
 		File file = new File(filename);
 		String suffix = filename.substring(filename.lastIndexOf('.') + 1);
 
@@ -2044,9 +2301,11 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	 */
 	@Override
 	public void keyPressed(KeyEvent e) {
+		long now = System.nanoTime();
 		synchronized (keyLock) {
 			keysDown.add(e.getKeyCode());
 		}
+		KeyEventQueue.keyboard().offer(e.getKeyCode(), true, now);
 	}
 
 	/**
@@ -2054,9 +2313,11 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 	 */
 	@Override
 	public void keyReleased(KeyEvent e) {
+		long now = System.nanoTime();
 		synchronized (keyLock) {
 			keysDown.remove(e.getKeyCode());
 		}
+		KeyEventQueue.keyboard().offer(e.getKeyCode(), false, now);
 	}
 
 	/***************************************************************************